@@ -5,6 +5,7 @@ import java.util.Scanner;
 /**
  * Sample TCP Client for WordBrain2 Game
  * Connect to the TCP server on port 5555 and send messages
+ * For many clients at once, see the load test in src/jmh/java (com.wordbrain2.benchmark.TcpLoadTest)
  */
 public class TcpClientExample {
     private static final String SERVER_HOST = "localhost";
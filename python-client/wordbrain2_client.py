@@ -8,11 +8,20 @@ import sys
 import json
 import socket
 import threading
+import time
+import zlib
 from datetime import datetime
 from PyQt5.QtWidgets import *
 from PyQt5.QtCore import *
 from PyQt5.QtGui import *
 
+# v2 framing: after the server's v1 welcome the client sends this preamble
+# (magic + capability byte) and both sides switch to
+# [u32 length][u8 message type][u8 flags][UTF-8 JSON body]
+V2_PREAMBLE = b'WB2' + bytes([0x01])  # capability 0x01: accepts deflate
+FLAG_DEFLATE = 0x01
+
+
 class TCPConnection(QObject):
     """Handles TCP Socket connection to game server"""
     
@@ -28,12 +37,15 @@ class TCPConnection(QObject):
         self.host = "localhost"
         self.port = 5555
         self.receive_thread = None
+        # The receive thread answers TIME_SYNC pings while the GUI thread sends commands
+        self.send_lock = threading.Lock()
         
     def connect_to_server(self):
         """Establish TCP connection to game server"""
         try:
             self.socket = socket.socket(socket.AF_INET, socket.SOCK_STREAM)
             self.socket.connect((self.host, self.port))
+            self.socket.sendall(V2_PREAMBLE)
             self.connected = True
             self.connection_established.emit()
             
@@ -56,36 +68,56 @@ class TCPConnection(QObject):
                     message_dict['messageType'] = message_dict['type']
                 
                 json_str = json.dumps(message_dict)
-                # Use length prefix for message framing
+                # v2 frame; type id 0 lets the server read the type from the JSON
                 message_bytes = json_str.encode('utf-8')
-                self.socket.send(len(message_bytes).to_bytes(4, 'big'))
-                self.socket.send(message_bytes)
+                header = len(message_bytes).to_bytes(4, 'big') + bytes([0, 0])
+                with self.send_lock:
+                    self.socket.sendall(header + message_bytes)
                 print(f"Sent: {json_str}")
             except Exception as e:
                 print(f"Send error: {e}")
                 self.disconnect()
     
+    def recv_exact(self, length):
+        """Read exactly length bytes, or None if the socket closed"""
+        data = b''
+        while len(data) < length:
+            chunk = self.socket.recv(min(65536, length - len(data)))
+            if not chunk:
+                return None
+            data += chunk
+        return data
+    
     def receive_messages(self):
         """Receive messages from server (runs in separate thread)"""
+        # The welcome message always arrives in v1 framing (2-byte length)
+        first_frame = True
         while self.connected:
             try:
-                # Read length prefix
-                length_bytes = self.socket.recv(4)
-                if not length_bytes:
-                    break
-                
-                message_length = int.from_bytes(length_bytes, 'big')
-                
-                # Read message
-                message_bytes = b''
-                while len(message_bytes) < message_length:
-                    chunk = self.socket.recv(min(4096, message_length - len(message_bytes)))
-                    if not chunk:
+                if first_frame:
+                    header = self.recv_exact(2)
+                    if header is None:
                         break
-                    message_bytes += chunk
+                    message_bytes = self.recv_exact(int.from_bytes(header, 'big'))
+                    first_frame = False
+                else:
+                    header = self.recv_exact(6)
+                    if header is None:
+                        break
+                    message_length = int.from_bytes(header[:4], 'big')
+                    flags = header[5]
+                    message_bytes = self.recv_exact(message_length)
+                    if message_bytes is not None and flags & FLAG_DEFLATE:
+                        message_bytes = zlib.decompress(message_bytes)
                 
+                if message_bytes is None:
+                    break
                 if message_bytes:
                     message = json.loads(message_bytes.decode('utf-8'))
+                    if message.get('type') == 'TIME_SYNC':
+                        # Answer on this thread so GUI event latency does not skew the sample
+                        self.answer_time_sync(message.get('data', {}))
+                        continue
                     print(f"Received: {message}")
                     self.message_received.emit(message)
                     
@@ -98,6 +130,17 @@ class TCPConnection(QObject):
         self.connected = False
         self.connection_lost.emit()
     
+    def answer_time_sync(self, ping):
+        """Echo a clock sync ping with our own clock reading"""
+        self.send_message({
+            "type": "TIME_SYNC",
+            "data": {
+                "seq": ping.get('seq', 0),
+                "serverTime": ping.get('serverTime', 0),
+                "clientTime": int(time.time() * 1000)
+            }
+        })
+    
     def disconnect(self):
         """Close TCP connection"""
         self.connected = False
@@ -218,6 +261,8 @@ class GameGrid(QWidget):
         """Update grid with new letters"""
         if not grid_data:
             return
+        if isinstance(grid_data, dict):
+            grid_data = grid_data.get('cells', [])
         
         for i in range(self.size):
             for j in range(self.size):
@@ -226,6 +271,21 @@ class GameGrid(QWidget):
                     self.cells[i][j].setText(letter if letter else '')
                     self.cells[i][j].setEnabled(bool(letter))
     
+    def apply_delta(self, delta):
+        """Apply a GRID_DELTA: empty the cleared cells, then let letters fall"""
+        for cell in delta.get('cleared', []):
+            self.set_letter(cell['row'], cell['col'], '')
+        for move in delta.get('moves', []):
+            col = move['col']
+            letter = self.cells[move['fromRow']][col].text() if move['fromRow'] < self.size else ''
+            self.set_letter(move['toRow'], col, letter)
+            self.set_letter(move['fromRow'], col, '')
+    
+    def set_letter(self, row, col, letter):
+        if row < self.size and col < self.size:
+            self.cells[row][col].setText(letter)
+            self.cells[row][col].setEnabled(bool(letter))
+    
     def clear_grid(self):
         """Clear all cells"""
         for i in range(self.size):
@@ -241,6 +301,7 @@ class WordBrain2Client(QMainWindow):
         super().__init__()
         self.tcp_connection = TCPConnection()
         self.game_grid = None
+        self.grid_version = None
         self.player_info = {}
         self.room_info = {}
         self.init_ui()
@@ -506,7 +567,8 @@ class WordBrain2Client(QMainWindow):
             "type": "SUBMIT_WORD",
             "data": {
                 "word": word,
-                "path": path
+                "path": path,
+                "clientTime": int(time.time() * 1000)
             }
         }
         self.tcp_connection.send_message(message)
@@ -555,10 +617,25 @@ class WordBrain2Client(QMainWindow):
             self.log_message("Level started!")
             grid_data = data.get('grid', [])
             self.game_grid.update_grid(grid_data)
+            self.grid_version = grid_data.get('version') if isinstance(grid_data, dict) else None
             
         elif msg_type == 'GRID_UPDATE':
             grid_data = data.get('grid', [])
             self.game_grid.update_grid(grid_data)
+            self.grid_version = grid_data.get('version') if isinstance(grid_data, dict) else None
+            
+        elif msg_type == 'GRID_DELTA':
+            if self.grid_version is not None and data.get('version', 0) <= self.grid_version:
+                pass  # already applied
+            elif self.grid_version is not None and data.get('baseVersion') == self.grid_version:
+                self.game_grid.apply_delta(data)
+                self.grid_version = data.get('version')
+            else:
+                # Missed an update; ask for what we lack (or a full grid)
+                self.tcp_connection.send_message({
+                    'type': 'REQUEST_GRID_UPDATE',
+                    'data': {'knownVersion': self.grid_version if self.grid_version is not None else -1}
+                })
             
         elif msg_type == 'WORD_ACCEPTED':
             points = data.get('points', 0)
@@ -0,0 +1,89 @@
+package com.wordbrain2.benchmark;
+
+import com.google.gson.Gson;
+import com.wordbrain2.config.GameConfig;
+import com.wordbrain2.controller.websocket.OutboundFrame;
+import com.wordbrain2.controller.websocket.TcpFraming;
+import com.wordbrain2.model.enums.MessageType;
+import com.wordbrain2.websocket.codec.BinaryMessageCodec;
+import com.wordbrain2.websocket.codec.JsonMessageCodec;
+import com.wordbrain2.websocket.message.BaseMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of encoding one room broadcast for every recipient: serializing the
+ * message per recipient, as broadcastToRoom did through sendMessage, against
+ * encoding it once into a shared OutboundFrame. Run with -prof gc (the profile's
+ * default) to compare gc.alloc.rate.norm, the bytes allocated per broadcast.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BroadcastBenchmark {
+
+    @Param({"4", "16", "64"})
+    public int recipients;
+
+    // Framing the recipients negotiated: 1 is writeUTF, 2 the length-prefixed v2 frame
+    @Param({"1", "2"})
+    public int protocol;
+
+    private final Gson gson = new Gson();
+    private final JsonMessageCodec jsonCodec = new JsonMessageCodec();
+    private final BinaryMessageCodec binaryCodec = new BinaryMessageCodec();
+    private final int compressionThreshold = new GameConfig().getServer().getCompressionThreshold();
+    private BaseMessage message;
+
+    @Setup
+    public void setUp() {
+        // A ROOM_STATE broadcast as MessageBroadcastService.broadcastRoomState builds it
+        List<Map<String, Object>> players = new ArrayList<>(recipients);
+        for (int i = 0; i < recipients; i++) {
+            Map<String, Object> player = new HashMap<>();
+            player.put("id", "player-" + i);
+            player.put("name", "Player " + i);
+            player.put("ready", i % 2 == 0);
+            player.put("isHost", i == 0);
+            players.add(player);
+        }
+        Map<String, Object> state = new HashMap<>();
+        state.put("roomCode", "ABC123");
+        state.put("hostId", "player-0");
+        state.put("players", players);
+        state.put("playersCount", recipients);
+        state.put("maxPlayers", recipients);
+        message = new BaseMessage(MessageType.ROOM_STATE, state);
+    }
+
+    @Benchmark
+    public void perRecipient(Blackhole blackhole) {
+        for (int i = 0; i < recipients; i++) {
+            String json = gson.toJson(message);
+            blackhole.consume(protocol < 2
+                ? TcpFraming.encodeV1(json)
+                : OutboundFrame.ofJson(message.getType(), json).encodeFor(protocol, 0, compressionThreshold));
+        }
+    }
+
+    @Benchmark
+    public void sharedFrame(Blackhole blackhole) {
+        OutboundFrame frame = OutboundFrame.of(message, jsonCodec, binaryCodec);
+        for (int i = 0; i < recipients; i++) {
+            blackhole.consume(frame.encodeFor(protocol, 0, compressionThreshold));
+        }
+    }
+}
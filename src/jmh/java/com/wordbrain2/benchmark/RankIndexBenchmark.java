@@ -0,0 +1,139 @@
+package com.wordbrain2.benchmark;
+
+import com.wordbrain2.model.scoring.Leaderboard;
+import com.wordbrain2.model.scoring.Score;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Leaderboard on RankIndex against the list it replaced, which removed the
+ * player, appended them and re-sorted the whole board on every update: one
+ * score update, one player's rank and a top-20 read, on boards of each size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RankIndexBenchmark {
+
+    private static final int TOP = 20;
+
+    @Param({"1000", "10000", "100000"})
+    public int players;
+
+    private Leaderboard rankIndex;
+    private ListLeaderboard list;
+    private Score[] indexScores;
+    private Score[] listScores;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new SplittableRandom(42);
+        rankIndex = new Leaderboard("BENCH");
+        list = new ListLeaderboard();
+        indexScores = new Score[players];
+        listScores = new Score[players];
+        List<Score> initial = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            int points = random.nextInt(100_000);
+            indexScores[i] = score("p" + i, points);
+            listScores[i] = score("p" + i, points);
+            rankIndex.updateScore(indexScores[i]);
+            initial.add(listScores[i]);
+        }
+        // Loading the list one update at a time would be quadratic; sort it once instead
+        list.scores.addAll(initial);
+        list.sortAndRank();
+    }
+
+    @Benchmark
+    public Object updateRankIndex() {
+        Score score = indexScores[random.nextInt(players)];
+        score.addPoints(random.nextInt(1, 500));
+        rankIndex.updateScore(score);
+        return score;
+    }
+
+    @Benchmark
+    public Object updateList() {
+        Score score = listScores[random.nextInt(players)];
+        score.addPoints(random.nextInt(1, 500));
+        list.updateScore(score);
+        return score;
+    }
+
+    @Benchmark
+    public int rankRankIndex() {
+        return rankIndex.getRank("p" + random.nextInt(players));
+    }
+
+    @Benchmark
+    public int rankList() {
+        Score score = list.getPlayerScore("p" + random.nextInt(players));
+        return score != null ? score.getRank() : -1;
+    }
+
+    @Benchmark
+    public List<Score> topRankIndex() {
+        return rankIndex.getTopScores(TOP);
+    }
+
+    @Benchmark
+    public List<Score> topList() {
+        return list.getTopScores(TOP);
+    }
+
+    private static Score score(String playerId, int points) {
+        Score score = new Score();
+        score.setPlayerId(playerId);
+        score.setTotalPoints(points);
+        return score;
+    }
+
+    /**
+     * The list-based Leaderboard as it was before RankIndex
+     */
+    static final class ListLeaderboard {
+        final List<Score> scores = new ArrayList<>();
+
+        void updateScore(Score score) {
+            scores.removeIf(s -> s.getPlayerId().equals(score.getPlayerId()));
+            scores.add(score);
+            sortAndRank();
+        }
+
+        void sortAndRank() {
+            scores.sort(Comparator.comparing(Score::getTotalPoints).reversed());
+            for (int i = 0; i < scores.size(); i++) {
+                scores.get(i).setRank(i + 1);
+            }
+        }
+
+        List<Score> getTopScores(int limit) {
+            return scores.stream()
+                .limit(limit)
+                .collect(Collectors.toList());
+        }
+
+        Score getPlayerScore(String playerId) {
+            return scores.stream()
+                .filter(s -> s.getPlayerId().equals(playerId))
+                .findFirst()
+                .orElse(null);
+        }
+    }
+}
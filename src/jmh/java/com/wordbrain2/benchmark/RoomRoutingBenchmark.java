@@ -0,0 +1,122 @@
+package com.wordbrain2.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.wordbrain2.config.GameConfig;
+import com.wordbrain2.controller.websocket.ConnectionManager;
+import com.wordbrain2.controller.websocket.SessionContext;
+import com.wordbrain2.model.entity.Room;
+import com.wordbrain2.service.core.RoomExecutor;
+import com.wordbrain2.service.core.RoomService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding the room an inbound message belongs to, with 2,000 live rooms: the old
+ * path from session to player and then a scan of every room's players, the
+ * RoomService player-room index, and the room cached on the SessionContext,
+ * which is what MessageRouter reads now.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RoomRoutingBenchmark {
+
+    @Param({"2000"})
+    public int rooms;
+
+    @Param({"4", "8"})
+    public int playersPerRoom;
+
+    private RoomExecutor roomExecutor;
+    private RoomService roomService;
+    private ConnectionManager connectionManager;
+    // The session -> player map ConnectionManager kept before it held SessionContexts
+    private final Map<String, String> sessionToPlayer = new ConcurrentHashMap<>();
+    private String[] sessionIds;
+
+    @Setup
+    public void setUp() {
+        // Rooms and sessions log every create and join at INFO
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        GameConfig gameConfig = new GameConfig();
+        roomExecutor = new RoomExecutor(gameConfig, new SimpleMeterRegistry());
+        roomService = new RoomService(gameConfig, roomExecutor);
+        connectionManager = new ConnectionManager();
+
+        List<String> sessions = new ArrayList<>(rooms * playersPerRoom);
+        for (int r = 0; r < rooms; r++) {
+            String hostSession = "s" + r + "-0";
+            Map<String, Object> created = roomService.createRoom("Host " + r, "animals", hostSession);
+            String roomCode = (String) created.get("roomCode");
+            register(hostSession, (String) created.get("playerId"), roomCode, sessions);
+            for (int p = 1; p < playersPerRoom; p++) {
+                String sessionId = "s" + r + "-" + p;
+                Map<String, Object> joined = roomService.joinRoom(roomCode, "Player " + p, sessionId);
+                register(sessionId, (String) joined.get("playerId"), roomCode, sessions);
+            }
+        }
+        sessionIds = sessions.toArray(String[]::new);
+    }
+
+    @TearDown
+    public void tearDown() {
+        roomExecutor.shutdown();
+    }
+
+    private void register(String sessionId, String playerId, String roomCode, List<String> sessions) {
+        connectionManager.addSession(sessionId, sessionId);
+        connectionManager.registerPlayer(sessionId, playerId, roomCode);
+        sessionToPlayer.put(sessionId, playerId);
+        sessions.add(sessionId);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final SplittableRandom random = new SplittableRandom(7);
+
+        int next(int bound) {
+            return random.nextInt(bound);
+        }
+    }
+
+    @Benchmark
+    public String scanRooms(Cursor cursor) {
+        String playerId = sessionToPlayer.get(sessionIds[cursor.next(sessionIds.length)]);
+        for (Room room : roomService.getAllRooms().values()) {
+            if (room.getPlayers().stream().anyMatch(p -> p.getId().equals(playerId))) {
+                return room.getRoomCode();
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public String playerRoomIndex(Cursor cursor) {
+        String playerId = sessionToPlayer.get(sessionIds[cursor.next(sessionIds.length)]);
+        return roomService.getPlayerRoom(playerId);
+    }
+
+    @Benchmark
+    public String sessionContext(Cursor cursor) {
+        SessionContext context = connectionManager.getContext(sessionIds[cursor.next(sessionIds.length)]);
+        return context.getRoomCode();
+    }
+}
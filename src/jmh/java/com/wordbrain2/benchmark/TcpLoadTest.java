@@ -0,0 +1,306 @@
+package com.wordbrain2.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.wordbrain2.config.GameConfig;
+import com.wordbrain2.controller.websocket.ClientConnection;
+import com.wordbrain2.controller.websocket.NioTcpServer;
+import com.wordbrain2.controller.websocket.OutboundQueue;
+import com.wordbrain2.model.enums.MessageType;
+import com.wordbrain2.util.LatencyHistogram;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test for NioTcpServer: holds many idle connections open while a set of
+ * active ones send v1 frames at a fixed rate, and reports the server's thread
+ * count and the round-trip latency percentiles of the active clients.
+ *
+ * The server runs in this process with a listener that echoes every message back
+ * from its event loop, so the measured path is read, frame, route, queue and
+ * gathering write, without any game logic. The clients are driven by a single
+ * selector thread of their own, so the thread count is the server's plus one.
+ *
+ * Usage, from the project root (the harness opens two sockets per connection, so
+ * raise the open-file limit first, e.g. ulimit -n 65536):
+ * <pre>
+ * mvn -Pbenchmarks compile exec:java -Dexec.mainClass=com.wordbrain2.benchmark.TcpLoadTest \
+ *     -Dexec.args="--idle=10000 --active=1000 --rate=10 --seconds=30"
+ * </pre>
+ * Options: --idle, --active, --rate (messages per second per active client),
+ * --seconds (measured run, after a warm-up of a fifth of it), --loops (server
+ * event loops, default one per core), --port.
+ */
+public final class TcpLoadTest {
+
+    private final int idle;
+    private final int active;
+    private final int rate;
+    private final int seconds;
+    private final int loops;
+    private final int port;
+
+    private final LatencyHistogram latencyMicros = new LatencyHistogram();
+    private long sent;
+    private long received;
+    private boolean measuring;
+
+    private TcpLoadTest(Map<String, String> options) {
+        this.idle = Integer.parseInt(options.getOrDefault("idle", "10000"));
+        this.active = Integer.parseInt(options.getOrDefault("active", "1000"));
+        this.rate = Integer.parseInt(options.getOrDefault("rate", "10"));
+        this.seconds = Integer.parseInt(options.getOrDefault("seconds", "30"));
+        this.loops = Integer.parseInt(options.getOrDefault("loops",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+        this.port = Integer.parseInt(options.getOrDefault("port", "15555"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        // One INFO line per connection would dominate the run
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        new TcpLoadTest(options).run();
+    }
+
+    private void run() throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int threadsBefore = threads.getThreadCount();
+
+        GameConfig.ServerConfig config = new GameConfig().getServer();
+        config.setPort(port);
+        NioTcpServer server = new NioTcpServer(config, loops, new EchoListener());
+        server.start();
+
+        Selector selector = Selector.open();
+        List<Client> activeClients = new ArrayList<>(active);
+        try {
+            long connectStart = System.nanoTime();
+            for (int i = 0; i < idle + active; i++) {
+                Client client = connect(selector, i);
+                if (i >= idle) {
+                    activeClients.add(client);
+                }
+            }
+            awaitConnections(server, idle + active);
+            long connectMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStart);
+            System.out.printf("Connected %d clients (%d idle, %d active) in %d ms%n",
+                idle + active, idle, active, connectMs);
+
+            long warmupNanos = TimeUnit.SECONDS.toNanos(Math.max(1, seconds / 5));
+            drive(selector, activeClients, warmupNanos);
+            measuring = true;
+            long measureStart = System.nanoTime();
+            drive(selector, activeClients, TimeUnit.SECONDS.toNanos(seconds));
+            double elapsed = (System.nanoTime() - measureStart) / 1e9;
+
+            report(threads, threadsBefore, elapsed, server.getConnectionCount());
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            selector.close();
+            server.stop();
+        }
+    }
+
+    private Client connect(Selector selector, int id) throws IOException {
+        // A blocking connect paces the clients to the accept loop instead of overflowing the backlog
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress("127.0.0.1", port));
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.configureBlocking(false);
+        Client client = new Client(id, channel);
+        client.key = channel.register(selector, SelectionKey.OP_READ, client);
+        return client;
+    }
+
+    private void awaitConnections(NioTcpServer server, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (server.getConnectionCount() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        if (server.getConnectionCount() < expected) {
+            throw new IllegalStateException("Server registered " + server.getConnectionCount()
+                + " of " + expected + " connections");
+        }
+    }
+
+    /**
+     * Send on every active client at its rate, and read echoes from all of them, for the given time
+     */
+    private void drive(Selector selector, List<Client> clients, long nanos) throws IOException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, rate);
+        long start = System.nanoTime();
+        long end = start + nanos;
+        // Spread the first sends over one interval so the clients do not fire in lockstep
+        for (int i = 0; i < clients.size(); i++) {
+            clients.get(i).nextSendAt = start + intervalNanos * i / Math.max(1, clients.size());
+        }
+
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            for (Client client : clients) {
+                if (now >= client.nextSendAt) {
+                    client.send(now);
+                    client.nextSendAt += intervalNanos;
+                }
+            }
+
+            selector.select(1);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Client client = (Client) key.attachment();
+                if (key.isReadable()) {
+                    client.read();
+                }
+                if (key.isValid() && key.isWritable()) {
+                    client.flush();
+                }
+            }
+        }
+    }
+
+    private void report(ThreadMXBean threads, int threadsBefore, double elapsedSeconds, int serverConnections) {
+        int serverThreads = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("wb-nio-")) {
+                serverThreads++;
+            }
+        }
+        LatencyHistogram.Snapshot rtt = latencyMicros.snapshot();
+
+        System.out.printf("Server connections:   %d%n", serverConnections);
+        System.out.printf("Server threads:       %d (wb-nio-*: acceptor + %d event loops)%n", serverThreads, loops);
+        System.out.printf("JVM threads:          %d live, %d peak, %d before the server started%n",
+            threads.getThreadCount(), threads.getPeakThreadCount(), threadsBefore);
+        System.out.printf("Messages:             %d sent, %d echoed, %.0f/s%n",
+            sent, received, received / elapsedSeconds);
+        System.out.printf("Round trip (us):      p50 %d, p99 %d, p99.9 %d, max %d, mean %.1f%n",
+            rtt.percentile(50), rtt.percentile(99), rtt.percentile(99.9), rtt.getMax(), rtt.getMean());
+    }
+
+    /**
+     * Echoes every message back on the event loop that read it
+     */
+    private static final class EchoListener implements NioTcpServer.Listener {
+        @Override
+        public void onOpen(ClientConnection connection) {
+        }
+
+        @Override
+        public void onMessage(ClientConnection connection, MessageType type, String message) {
+            connection.sendMessage(message);
+        }
+
+        @Override
+        public void onBinaryMessage(ClientConnection connection, MessageType type, byte[] body) {
+        }
+
+        @Override
+        public void onUpgrade(ClientConnection connection, int capabilities) {
+        }
+
+        @Override
+        public void onClose(ClientConnection connection) {
+        }
+
+        @Override
+        public void onSlowConsumer(ClientConnection connection, OutboundQueue.Overflow reason) {
+            System.err.println("Server evicted slow client " + connection.getSessionId() + ": " + reason);
+        }
+    }
+
+    /**
+     * One client socket speaking v1 framing; messages carry their send time, so
+     * the echo alone gives the round trip
+     */
+    private final class Client {
+        private final int id;
+        private final SocketChannel channel;
+        private final ByteBuffer in = ByteBuffer.allocate(1024);
+        private ByteBuffer out = ByteBuffer.allocate(0);
+        private SelectionKey key;
+        private long nextSendAt;
+
+        Client(int id, SocketChannel channel) {
+            this.id = id;
+            this.channel = channel;
+        }
+
+        void send(long now) throws IOException {
+            byte[] json = ("{\"type\":\"HEARTBEAT\",\"client\":" + id + ",\"sentAt\":" + now + "}")
+                .getBytes(StandardCharsets.UTF_8);
+            ByteBuffer frame = ByteBuffer.allocate(out.remaining() + 2 + json.length);
+            frame.put(out).putShort((short) json.length).put(json).flip();
+            out = frame;
+            sent++;
+            flush();
+        }
+
+        void flush() throws IOException {
+            channel.write(out);
+            // Only ask for OP_WRITE while a frame is stuck behind a full socket buffer
+            key.interestOps(out.hasRemaining() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                throw new IOException("Server closed client " + id);
+            }
+            in.flip();
+            long now = System.nanoTime();
+            while (in.remaining() >= 2) {
+                int length = Short.toUnsignedInt(in.getShort(in.position()));
+                if (in.remaining() < 2 + length) {
+                    break;
+                }
+                byte[] json = new byte[length];
+                in.position(in.position() + 2);
+                in.get(json);
+                onEcho(new String(json, StandardCharsets.UTF_8), now);
+            }
+            in.compact();
+        }
+
+        private void onEcho(String json, long now) {
+            int at = json.indexOf("\"sentAt\":");
+            if (at < 0) {
+                // The welcome frame and anything else the server sends unprompted
+                return;
+            }
+            int from = at + "\"sentAt\":".length();
+            int to = from;
+            while (to < json.length() && Character.isDigit(json.charAt(to))) {
+                to++;
+            }
+            long sentAt = Long.parseLong(json.substring(from, to));
+            received++;
+            if (measuring) {
+                latencyMicros.record(TimeUnit.NANOSECONDS.toMicros(now - sentAt));
+            }
+        }
+    }
+}
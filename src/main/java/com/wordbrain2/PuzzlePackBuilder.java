@@ -0,0 +1,229 @@
+package com.wordbrain2;
+
+import com.wordbrain2.config.GameConfig;
+import com.wordbrain2.model.entity.Topic;
+import com.wordbrain2.model.game.Cell;
+import com.wordbrain2.model.game.Puzzle;
+import com.wordbrain2.model.game.Word;
+import com.wordbrain2.service.core.TopicService;
+import com.wordbrain2.service.game.DictionaryService;
+import com.wordbrain2.service.game.GridGeneratorService;
+import com.wordbrain2.service.game.GridSolverService;
+import com.wordbrain2.service.game.PuzzleGenerator;
+import com.wordbrain2.util.PuzzlePack;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Offline batch mode: pre-generates puzzles for tournaments and writes one
+ * PuzzlePack per topic for the server to serve from game.level.puzzle-pack-dir.
+ *
+ * Usage: PuzzlePackBuilder --out=DIR [--topics=a,b] [--levels=10] [--per-section=1000] [--parallelism=N]
+ * or: mvn -Ppuzzle-packs package -Dpuzzle.packs.levels=20
+ *
+ * Runs without Spring, wiring the same generator the server uses by hand.
+ */
+@Slf4j
+public class PuzzlePackBuilder {
+
+    // Puzzles generated per leaf task before the fork/join split stops
+    private static final int LEAF_SIZE = 32;
+    // Rounds that may come back without a single new puzzle before a section is cut short
+    private static final int MAX_DRY_ROUNDS = 3;
+
+    private final PuzzleGenerator generator;
+    private final ForkJoinPool forkJoinPool;
+
+    PuzzlePackBuilder(PuzzleGenerator generator, int parallelism) {
+        this.generator = generator;
+        this.forkJoinPool = new ForkJoinPool(parallelism);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parseOptions(args);
+        if (!options.containsKey("out")) {
+            System.err.println("Usage: PuzzlePackBuilder --out=DIR [--topics=a,b] [--levels=10]"
+                + " [--per-section=1000] [--parallelism=N]");
+            System.exit(2);
+        }
+
+        Path out = Paths.get(options.get("out"));
+        int levels = Integer.parseInt(options.getOrDefault("levels", "10"));
+        int perSection = Integer.parseInt(options.getOrDefault("per-section", "1000"));
+        int parallelism = Integer.parseInt(options.getOrDefault("parallelism",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+        GameConfig gameConfig = new GameConfig();
+        TopicService topicService = new TopicService();
+        topicService.loadTopics();
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DictionaryService dictionaryService = new DictionaryService(gameConfig, topicService);
+        PuzzleGenerator generator = new PuzzleGenerator(new GridGeneratorService(meterRegistry),
+            new GridSolverService(), dictionaryService, gameConfig, meterRegistry);
+
+        List<String> topics = options.containsKey("topics")
+            ? Arrays.asList(options.get("topics").split(","))
+            : topicService.getAllTopics().stream().map(Topic::getId).toList();
+
+        Files.createDirectories(out);
+        PuzzlePackBuilder builder = new PuzzlePackBuilder(generator, parallelism);
+        try {
+            for (String topic : topics) {
+                Path file = out.resolve(topic + PuzzlePack.FILE_EXTENSION);
+                builder.buildPack(topic, levels, perSection, file);
+            }
+        } finally {
+            builder.forkJoinPool.shutdown();
+        }
+    }
+
+    void buildPack(String topic, int levels, int perSection, Path file) throws IOException {
+        long start = System.nanoTime();
+
+        // One section per distinct (tier, grid size) the levels reach, generated as its first level
+        Map<PuzzlePack.SectionKey, Integer> sectionLevels = new LinkedHashMap<>();
+        for (int level = 1; level <= levels; level++) {
+            sectionLevels.putIfAbsent(
+                new PuzzlePack.SectionKey(PuzzleGenerator.tier(level), generator.gridSize(level)), level);
+        }
+
+        Map<PuzzlePack.SectionKey, List<Puzzle>> sections = new LinkedHashMap<>();
+        int total = 0;
+        for (Map.Entry<PuzzlePack.SectionKey, Integer> entry : sectionLevels.entrySet()) {
+            List<Puzzle> puzzles = buildSection(topic, entry.getValue(), perSection);
+            if (puzzles.size() < perSection) {
+                log.warn("Topic {} {}: only {} distinct puzzles out of {} requested",
+                    topic, entry.getKey(), puzzles.size(), perSection);
+            }
+            sections.put(entry.getKey(), puzzles);
+            total += puzzles.size();
+        }
+
+        PuzzlePack.write(file, topic, sections);
+        verifyPack(file, sections);
+        log.info("Wrote {} puzzles in {} sections for topic {} to {} ({} bytes, {} ms)", total, sections.size(),
+            topic, file, Files.size(file), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Read every record back and check it decodes to the board, words and paths that were written
+     */
+    static void verifyPack(Path file, Map<PuzzlePack.SectionKey, List<Puzzle>> sections) throws IOException {
+        PuzzlePack pack = PuzzlePack.open(file);
+        for (Map.Entry<PuzzlePack.SectionKey, List<Puzzle>> entry : sections.entrySet()) {
+            PuzzlePack.SectionKey key = entry.getKey();
+            List<Puzzle> written = entry.getValue();
+            if (pack.size(key.tier(), key.gridSize()) != written.size()) {
+                throw new IOException(file + " " + key + ": holds " + pack.size(key.tier(), key.gridSize())
+                    + " puzzles, wrote " + written.size());
+            }
+            for (int i = 0; i < written.size(); i++) {
+                Puzzle expected = written.get(i);
+                Puzzle actual = pack.read(key.tier(), key.gridSize(), i);
+                if (PuzzlePack.canonicalHash(actual) != PuzzlePack.canonicalHash(expected)
+                        || !samePaths(actual.grid().getSolutions(), expected.grid().getSolutions())) {
+                    throw new IOException(file + " " + key + ": puzzle " + i + " does not read back as written");
+                }
+            }
+        }
+    }
+
+    private static boolean samePaths(List<Word> actual, List<Word> expected) {
+        if (actual.size() != expected.size()) {
+            return false;
+        }
+        for (int i = 0; i < actual.size(); i++) {
+            List<Cell> a = actual.get(i).getPath();
+            List<Cell> b = expected.get(i).getPath();
+            if (!actual.get(i).getText().equals(expected.get(i).getText()) || a.size() != b.size()) {
+                return false;
+            }
+            for (int k = 0; k < a.size(); k++) {
+                if (a.get(k).getRow() != b.get(k).getRow() || a.get(k).getCol() != b.get(k).getCol()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private List<Puzzle> buildSection(String topic, int levelNumber, int count) {
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        List<Puzzle> puzzles = new ArrayList<>(count);
+        int dryRounds = 0;
+        // Duplicates and unsolvable layouts are dropped, so top up until the section is full
+        while (puzzles.size() < count && dryRounds < MAX_DRY_ROUNDS) {
+            List<Puzzle> batch = forkJoinPool.invoke(new GenerateTask(topic, levelNumber, count - puzzles.size(), seen));
+            dryRounds = batch.isEmpty() ? dryRounds + 1 : 0;
+            puzzles.addAll(batch);
+        }
+        return puzzles.size() > count ? puzzles.subList(0, count) : puzzles;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int eq = arg.indexOf('=');
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Generates count puzzles, splitting in halves down to LEAF_SIZE; keeps only
+     * solvable boards not seen before in the section
+     */
+    private final class GenerateTask extends RecursiveTask<List<Puzzle>> {
+        private final String topic;
+        private final int levelNumber;
+        private final int count;
+        private final Set<Long> seen;
+
+        GenerateTask(String topic, int levelNumber, int count, Set<Long> seen) {
+            this.topic = topic;
+            this.levelNumber = levelNumber;
+            this.count = count;
+            this.seen = seen;
+        }
+
+        @Override
+        protected List<Puzzle> compute() {
+            if (count <= LEAF_SIZE) {
+                List<Puzzle> puzzles = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    Puzzle puzzle = generator.generate(topic, levelNumber);
+                    if (puzzle.solvable() && seen.add(PuzzlePack.canonicalHash(puzzle))) {
+                        puzzles.add(puzzle);
+                    }
+                }
+                return puzzles;
+            }
+
+            int half = count / 2;
+            GenerateTask left = new GenerateTask(topic, levelNumber, half, seen);
+            GenerateTask right = new GenerateTask(topic, levelNumber, count - half, seen);
+            left.fork();
+            List<Puzzle> puzzles = new ArrayList<>(right.compute());
+            puzzles.addAll(left.join());
+            return puzzles;
+        }
+    }
+}
@@ -4,6 +4,9 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import lombok.Data;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
 @ConfigurationProperties(prefix = "game")
 @Data
@@ -15,12 +18,14 @@ public class GameConfig {
     private ScoreConfig score = new ScoreConfig();
     private BoosterConfig booster = new BoosterConfig();
     private DictionaryConfig dictionary = new DictionaryConfig();
+    private ServerConfig server = new ServerConfig();
+    private LeaderboardConfig leaderboard = new LeaderboardConfig();
     
     @Data
     public static class RoomConfig {
         private int codeLength = 6;
         private int maxPlayers = 20;
-        private long idleTimeout = 300000; // 5 minutes
+        private long idleTimeout = 300000; // 5 minutes without a command before a room is reaped, 0 = never
     }
     
     @Data
@@ -28,6 +33,8 @@ public class GameConfig {
         private int defaultDuration = 30;
         private int defaultCount = 10;
         private int transitionTime = 5;
+        private int puzzlePoolSize = 4; // pre-generated puzzles kept per topic, tier and grid size
+        private String puzzlePackDir = ""; // directory of offline-built .wbpk puzzle packs, empty for none
     }
     
     @Data
@@ -66,4 +73,33 @@ public class GameConfig {
         private boolean preload = true;
         private int minWordLength = 3;
     }
-}
\ No newline at end of file
+    
+    @Data
+    public static class ServerConfig {
+        private int port = 5555;
+        private Transport transport = Transport.BLOCKING;
+        private int eventLoopThreads = 0; // 0 = one per available processor
+        private int readBufferSize = 8192;
+        private boolean virtualThreads = false; // blocking transport only
+        private long outboundMaxBytes = 1048576; // slow-consumer eviction thresholds
+        private long outboundMaxAgeMs = 10000;
+        private int maxFrameBytes = 4194304; // v2 frames, after inflating
+        private int compressionThreshold = 1024; // v2 deflate for JSON at least this long
+        private int roomWorkerThreads = 0; // room mailbox workers, 0 = one per available processor
+        private long clockSyncIntervalMs = 30000; // TIME_SYNC ping period after the initial burst
+        private long maxLatencyCompensationMs = 500; // cap on how far back a submit may be dated
+        private int browserMaxMessageBytes = 65536; // largest inbound browser WebSocket message
+        private List<String> browserAllowedOrigins = new ArrayList<>(); // origin patterns besides same-origin
+        
+        public enum Transport {
+            BLOCKING, // one ClientHandler thread per socket
+            NIO       // selector event loops shared by all sockets
+        }
+    }
+    
+    @Data
+    public static class LeaderboardConfig {
+        private int windowCapacity = 100000; // players kept per hourly/daily/weekly period, lowest evicted
+        private long broadcastIntervalMs = 150; // room LEADERBOARD_UPDATE coalescing, 0 = send on every change
+    }
+}
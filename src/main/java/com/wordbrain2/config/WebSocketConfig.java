@@ -0,0 +1,44 @@
+package com.wordbrain2.config;
+
+import com.wordbrain2.controller.websocket.BrowserWebSocketHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    @Autowired
+    private BrowserWebSocketHandler browserWebSocketHandler;
+
+    @Autowired
+    private GameConfig gameConfig;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        // Same-origin pages are always accepted; other sites only when configured
+        registry.addHandler(browserWebSocketHandler, "/game-websocket")
+                .setAllowedOriginPatterns(gameConfig.getServer().getBrowserAllowedOrigins().toArray(String[]::new));
+    }
+
+    /**
+     * Tomcat's JSR-356 container negotiates permessage-deflate on its own when
+     * the browser offers it, so no compression setup is needed here. It allocates
+     * both message buffers up front for every session, so they are sized for the
+     * small commands clients send rather than for the server's own frames.
+     */
+    @Bean
+    public ServletServerContainerFactoryBean createWebSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        int maxMessageBytes = gameConfig.getServer().getBrowserMaxMessageBytes();
+        container.setMaxTextMessageBufferSize(maxMessageBytes);
+        container.setMaxBinaryMessageBufferSize(maxMessageBytes);
+        container.setMaxSessionIdleTimeout(gameConfig.getRoom().getIdleTimeout());
+        return container;
+    }
+}
@@ -3,7 +3,12 @@ package com.wordbrain2.controller.api;
 import com.wordbrain2.model.dto.request.SubmitWordRequest;
 import com.wordbrain2.model.dto.request.UseBoosterRequest;
 import com.wordbrain2.service.core.GameEngine;
+import com.wordbrain2.service.core.RoomExecutor;
 import com.wordbrain2.service.core.RoomService;
+import com.wordbrain2.service.game.TimerService;
+import com.wordbrain2.service.messaging.MessageBroadcastService;
+import com.wordbrain2.service.scoring.StatisticsService;
+import com.wordbrain2.model.enums.MessageType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -21,6 +26,18 @@ public class GameController {
     @Autowired
     private RoomService roomService;
     
+    @Autowired
+    private RoomExecutor roomExecutor;
+    
+    @Autowired
+    private TimerService timerService;
+    
+    @Autowired
+    private MessageBroadcastService broadcastService;
+    
+    @Autowired
+    private StatisticsService statisticsService;
+    
     @GetMapping("/{roomCode}/state")
     public ResponseEntity<?> getGameState(@PathVariable String roomCode) {
         // Get game state from room service
@@ -31,14 +48,43 @@ public class GameController {
         return ResponseEntity.ok(state);
     }
     
+    /**
+     * Word submissions and points for a room, counted since it opened
+     */
+    @GetMapping("/{roomCode}/statistics")
+    public ResponseEntity<?> getRoomStatistics(@PathVariable String roomCode) {
+        StatisticsService.RoomStats stats = statisticsService.getRoomStatistics(roomCode);
+        if (stats == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("roomCode", roomCode);
+        response.put("submissions", stats.getSubmissions());
+        response.put("correctWords", stats.getCorrectWords());
+        response.put("wrongWords", stats.getWrongWords());
+        response.put("points", stats.getPoints());
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Response times across every player: count, mean, max and p50/p95/p99 in ms
+     */
+    @GetMapping("/statistics")
+    public ResponseEntity<?> getGlobalStatistics() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("responseTime", statisticsService.getGlobalResponseTimes());
+        return ResponseEntity.ok(response);
+    }
+    
     @PostMapping("/submit-word")
     public ResponseEntity<?> submitWord(@Valid @RequestBody SubmitWordRequest request) {
-        Map<String, Object> result = gameEngine.submitWord(
+        // Serialized with the room's socket commands
+        Map<String, Object> result = roomExecutor.submit(request.getRoomCode(), () -> gameEngine.submitWord(
             request.getRoomCode(),
             request.getPlayerId(),
             request.getPath(),
             request.getWord()
-        );
+        )).join();
         
         if (result != null && result.get("result") != null) {
             return ResponseEntity.ok(result);
@@ -52,11 +98,11 @@ public class GameController {
         Map<String, Object> boosterData = new HashMap<>();
         boosterData.put("boosterType", request.getBoosterType());
         
-        Map<String, Object> result = gameEngine.useBooster(
+        Map<String, Object> result = roomExecutor.submit(request.getRoomCode(), () -> gameEngine.useBooster(
             request.getRoomCode(),
             request.getPlayerId(),
             boosterData
-        );
+        )).join();
         
         if (result != null && Boolean.TRUE.equals(result.get("success"))) {
             return ResponseEntity.ok(result);
@@ -71,8 +117,11 @@ public class GameController {
     @PostMapping("/{roomCode}/pause")
     public ResponseEntity<?> pauseGame(@PathVariable String roomCode,
                                       @RequestParam String hostId) {
-        Map<String, Object> pauseResult = gameEngine.pauseGame(roomCode, hostId);
+        Map<String, Object> pauseResult = roomExecutor.submit(roomCode, () -> gameEngine.pauseGame(roomCode, hostId)).join();
         boolean success = pauseResult != null;
+        if (success) {
+            broadcastClockCorrection(roomCode);
+        }
         Map<String, Object> response = new HashMap<>();
         response.put("success", success);
         response.put("roomCode", roomCode);
@@ -83,8 +132,11 @@ public class GameController {
     @PostMapping("/{roomCode}/resume")
     public ResponseEntity<?> resumeGame(@PathVariable String roomCode,
                                        @RequestParam String hostId) {
-        Map<String, Object> resumeResult = gameEngine.resumeGame(roomCode, hostId);
+        Map<String, Object> resumeResult = roomExecutor.submit(roomCode, () -> gameEngine.resumeGame(roomCode, hostId)).join();
         boolean success = resumeResult != null;
+        if (success) {
+            broadcastClockCorrection(roomCode);
+        }
         Map<String, Object> response = new HashMap<>();
         response.put("success", success);
         response.put("roomCode", roomCode);
@@ -95,7 +147,7 @@ public class GameController {
     @PostMapping("/{roomCode}/end")
     public ResponseEntity<?> endGame(@PathVariable String roomCode,
                                     @RequestParam String hostId) {
-        Map<String, Object> endResult = gameEngine.endGame(roomCode, hostId);
+        Map<String, Object> endResult = roomExecutor.submit(roomCode, () -> gameEngine.endGame(roomCode, hostId)).join();
         boolean success = endResult != null;
         Map<String, Object> response = new HashMap<>();
         response.put("success", success);
@@ -103,4 +155,9 @@ public class GameController {
         response.put("ended", success);
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+    
+    // Clients render the level countdown themselves; tell them when the server moves it
+    private void broadcastClockCorrection(String roomCode) {
+        broadcastService.broadcastToRoom(roomCode, MessageType.TIMER_UPDATE, timerService.snapshot(roomCode));
+    }
+}
@@ -1,7 +1,10 @@
 package com.wordbrain2.controller.api;
 
 import com.wordbrain2.model.dto.response.LeaderboardResponse;
+import com.wordbrain2.model.enums.LeaderboardWindow;
 import com.wordbrain2.model.scoring.Score;
+import com.wordbrain2.model.scoring.WindowScore;
+import com.wordbrain2.model.scoring.WindowedLeaderboard;
 import com.wordbrain2.service.scoring.LeaderboardService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -36,9 +39,47 @@ public class LeaderboardController {
     }
     
     @GetMapping("/global")
-    public ResponseEntity<?> getGlobalLeaderboard(@RequestParam(defaultValue = "20") int limit) {
-        List<Score> topScores = leaderboardService.getGlobalTopPlayers(limit);
-        return ResponseEntity.ok(topScores);
+    public ResponseEntity<?> getGlobalLeaderboard(@RequestParam(defaultValue = "20") int limit,
+                                                 @RequestParam(defaultValue = "all") String window) {
+        LeaderboardWindow boardWindow = parseWindow(window);
+        if (boardWindow == null) {
+            return invalidWindow(window);
+        }
+        if (boardWindow == LeaderboardWindow.ALL_TIME) {
+            List<Score> topScores = leaderboardService.getGlobalTopPlayers(limit);
+            return ResponseEntity.ok(topScores);
+        }
+        
+        long now = System.currentTimeMillis();
+        WindowedLeaderboard board = leaderboardService.getWindowedLeaderboard(boardWindow);
+        Map<String, Object> response = new HashMap<>();
+        response.put("window", boardWindow);
+        response.put("periodStart", board.getPeriodStart(now));
+        response.put("periodEnd", board.getPeriodEnd(now));
+        response.put("scores", leaderboardService.getGlobalTopPlayers(boardWindow, limit));
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/global/player/{playerId}")
+    public ResponseEntity<?> getGlobalPlayerRank(@PathVariable String playerId,
+                                                @RequestParam(defaultValue = "all") String window) {
+        LeaderboardWindow boardWindow = parseWindow(window);
+        if (boardWindow == null) {
+            return invalidWindow(window);
+        }
+        WindowScore score = leaderboardService.getGlobalPlayerScore(boardWindow, playerId);
+        if (score == null) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("window", boardWindow);
+        response.put("playerId", playerId);
+        response.put("rank", score.rank());
+        response.put("points", score.points());
+        
+        return ResponseEntity.ok(response);
     }
     
     @GetMapping("/player/{playerId}/rank")
@@ -70,4 +111,19 @@ public class LeaderboardController {
         
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+    
+    private LeaderboardWindow parseWindow(String window) {
+        try {
+            return LeaderboardWindow.fromParam(window);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    private ResponseEntity<?> invalidWindow(String window) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", "Unknown window '" + window + "', expected hourly, daily, weekly or all");
+        return ResponseEntity.badRequest().body(response);
+    }
+}
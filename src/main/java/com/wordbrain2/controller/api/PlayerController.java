@@ -1,9 +1,15 @@
 package com.wordbrain2.controller.api;
 
+import com.wordbrain2.controller.websocket.ConnectionManager;
+import com.wordbrain2.controller.websocket.SessionContext;
 import com.wordbrain2.model.entity.Player;
+import com.wordbrain2.model.entity.Room;
 import com.wordbrain2.model.scoring.Score;
 import com.wordbrain2.service.core.PlayerService;
+import com.wordbrain2.service.core.RoomService;
 import com.wordbrain2.service.scoring.LeaderboardService;
+import com.wordbrain2.service.scoring.StatisticsService;
+import com.wordbrain2.util.ClockEstimator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -20,9 +26,18 @@ public class PlayerController {
     @Autowired
     private LeaderboardService leaderboardService;
     
+    @Autowired
+    private StatisticsService statisticsService;
+    
+    @Autowired
+    private ConnectionManager connectionManager;
+    
+    @Autowired
+    private RoomService roomService;
+    
     @GetMapping("/{playerId}")
     public ResponseEntity<?> getPlayer(@PathVariable String playerId) {
-        Player player = playerService.getPlayer(playerId);
+        Player player = findPlayer(playerId);
         if (player == null) {
             return ResponseEntity.notFound().build();
         }
@@ -43,7 +58,7 @@ public class PlayerController {
     
     @GetMapping("/{playerId}/statistics")
     public ResponseEntity<?> getPlayerStatistics(@PathVariable String playerId) {
-        Player player = playerService.getPlayer(playerId);
+        Player player = findPlayer(playerId);
         if (player == null) {
             return ResponseEntity.notFound().build();
         }
@@ -54,6 +69,27 @@ public class PlayerController {
         stats.put("maxStreak", player.getMaxStreak());
         stats.put("correctWords", player.getCorrectWords());
         stats.put("boostersUsed", player.getBoostersUsed());
+        
+        StatisticsService.PlayerStats recorded = statisticsService.findPlayerStatistics(playerId);
+        if (recorded != null) {
+            stats.put("wrongWords", recorded.getWrongWords());
+            stats.put("accuracy", statisticsService.getAccuracy(playerId));
+            stats.put("responseTime", recorded.getResponseTimes());
+        }
+        
+        // TIME_SYNC estimate of the player's current connection
+        SessionContext context = connectionManager.getContextByPlayerId(playerId);
+        if (context != null) {
+            ClockEstimator clock = context.getClock();
+            Map<String, Object> clockStats = new HashMap<>();
+            clockStats.put("synced", clock.isSynced());
+            clockStats.put("srttMillis", clock.getRttMillis());
+            clockStats.put("rttVarMillis", clock.getRttDeviationMillis());
+            clockStats.put("offsetMillis", clock.getOffsetMillis());
+            clockStats.put("samples", clock.getSamples());
+            clockStats.put("rejectedSamples", clock.getRejectedSamples());
+            stats.put("clock", clockStats);
+        }
         return ResponseEntity.ok(stats);
     }
     
@@ -79,4 +115,23 @@ public class PlayerController {
         response.put("roomCode", roomCode);
         return ResponseEntity.ok(response);
     }
+    
+    /**
+     * Players who joined through a room are held by the room, not PlayerService
+     */
+    private Player findPlayer(String playerId) {
+        Player player = playerService.getPlayer(playerId);
+        if (player != null) {
+            return player;
+        }
+        String roomCode = roomService.getPlayerRoom(playerId);
+        Room room = roomCode != null ? roomService.getRoom(roomCode) : null;
+        if (room == null) {
+            return null;
+        }
+        return room.getPlayers().stream()
+            .filter(p -> p.getId().equals(playerId))
+            .findFirst()
+            .orElse(null);
+    }
 }
\ No newline at end of file
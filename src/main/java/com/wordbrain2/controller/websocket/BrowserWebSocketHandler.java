@@ -0,0 +1,238 @@
+package com.wordbrain2.controller.websocket;
+
+import com.wordbrain2.config.GameConfig;
+import com.wordbrain2.model.enums.MessageType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Native WebSocket endpoint for browser clients.
+ *
+ * Text messages carry the same JSON envelopes as the TCP transport. A client
+ * that requests the "wordbrain.binary" subprotocol receives the compact codec
+ * as binary messages laid out as [u8 message type][body], falling back to text
+ * for messages the codec does not cover. Compression is left to the container's
+ * permessage-deflate extension.
+ */
+@Slf4j
+@Component
+public class BrowserWebSocketHandler extends AbstractWebSocketHandler implements SubProtocolCapable {
+
+    public static final String PROTOCOL_JSON = "wordbrain.json";
+    public static final String PROTOCOL_BINARY = "wordbrain.binary";
+
+    private static final String SESSION_PREFIX = "ws_";
+
+    @Autowired
+    private GameWebSocketHandler gameWebSocketHandler;
+
+    @Autowired
+    private MessageRouter messageRouter;
+
+    @Autowired
+    private GameConfig gameConfig;
+
+    private final Map<String, BrowserConnection> connections = new ConcurrentHashMap<>();
+    private ExecutorService writers;
+
+    @PostConstruct
+    public void init() {
+        // WebSocketSession is not safe for concurrent sends, so each connection drains on its own task
+        writers = gameConfig.getServer().isVirtualThreads()
+            ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("wb-ws-writer-", 0).factory())
+            : Executors.newCachedThreadPool();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connections.values().forEach(BrowserConnection::close);
+        connections.clear();
+        if (writers != null) {
+            writers.shutdownNow();
+        }
+    }
+
+    @Override
+    public List<String> getSubProtocols() {
+        return List.of(PROTOCOL_JSON, PROTOCOL_BINARY);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        BrowserConnection connection = new BrowserConnection(session);
+        connections.put(session.getId(), connection);
+        log.info("WebSocket connection established: {} (protocol {})",
+            connection.getSessionId(), session.getAcceptedProtocol());
+        gameWebSocketHandler.registerConnection(connection);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        BrowserConnection connection = connections.get(session.getId());
+        if (connection != null) {
+            messageRouter.routeTcpMessage(connection.getSessionId(), message.getPayload());
+        }
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        BrowserConnection connection = connections.get(session.getId());
+        ByteBuffer payload = message.getPayload();
+        if (connection == null || !payload.hasRemaining()) {
+            return;
+        }
+
+        MessageType type = MessageType.fromWireId(payload.get() & 0xFF);
+        byte[] body = new byte[payload.remaining()];
+        payload.get(body);
+        messageRouter.routeBinaryMessage(connection.getSessionId(), type, body);
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.error("WebSocket transport error for session {}", session.getId(), exception);
+        BrowserConnection connection = connections.get(session.getId());
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        BrowserConnection connection = connections.remove(session.getId());
+        if (connection != null) {
+            connection.onClosed();
+        }
+    }
+
+    private static int weigh(WebSocketMessage<?> message) {
+        // Text length in chars is close enough and avoids encoding the payload just to measure it
+        if (message instanceof TextMessage text) {
+            return text.getPayload().length();
+        }
+        return message.getPayloadLength();
+    }
+
+    private class BrowserConnection implements ClientConnection {
+        private final WebSocketSession session;
+        private final String sessionId;
+        private final boolean binary;
+        private final OutboundQueue<WebSocketMessage<?>> outbound;
+        private final AtomicBoolean writerScheduled = new AtomicBoolean(false);
+        private final AtomicBoolean active = new AtomicBoolean(true);
+
+        BrowserConnection(WebSocketSession session) {
+            this.session = session;
+            this.sessionId = SESSION_PREFIX + session.getId();
+            this.binary = PROTOCOL_BINARY.equals(session.getAcceptedProtocol());
+            this.outbound = new OutboundQueue<>(
+                gameConfig.getServer().getOutboundMaxBytes(),
+                gameConfig.getServer().getOutboundMaxAgeMs(),
+                BrowserWebSocketHandler::weigh);
+        }
+
+        @Override
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        @Override
+        public void sendFrame(OutboundFrame frame) {
+            if (!active.get()) {
+                return;
+            }
+
+            WebSocketMessage<?> message = null;
+            if (binary) {
+                byte[] bytes = frame.webSocketBinaryFrame();
+                if (bytes != null) {
+                    message = new BinaryMessage(bytes);
+                }
+            }
+            if (message == null) {
+                message = new TextMessage(frame.getJson());
+            }
+
+            OutboundQueue.Overflow overflow = outbound.offer(message);
+            if (overflow != OutboundQueue.Overflow.NONE) {
+                log.warn("WebSocket client {} is not keeping up ({} limit, {} bytes queued) - disconnecting",
+                    sessionId, overflow, outbound.getQueuedBytes());
+                gameWebSocketHandler.recordEviction(overflow);
+                writers.execute(() -> closeWith(CloseStatus.SESSION_NOT_RELIABLE));
+                return;
+            }
+            if (writerScheduled.compareAndSet(false, true)) {
+                writers.execute(this::drainOutbound);
+            }
+        }
+
+        private void drainOutbound() {
+            try {
+                while (active.get()) {
+                    WebSocketMessage<?> next;
+                    while ((next = outbound.poll()) != null) {
+                        session.sendMessage(next);
+                    }
+                    writerScheduled.set(false);
+
+                    // A sender may have enqueued after the drain but before the flag cleared
+                    if (outbound.isEmpty() || !writerScheduled.compareAndSet(false, true)) {
+                        return;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                if (active.get()) {
+                    log.error("Error sending message to WebSocket client {}", sessionId, e);
+                }
+                close();
+            }
+        }
+
+        @Override
+        public void close() {
+            closeWith(CloseStatus.NORMAL);
+        }
+
+        private void closeWith(CloseStatus status) {
+            if (!active.get()) {
+                return;
+            }
+            try {
+                session.close(status);
+            } catch (IOException e) {
+                log.debug("Error closing WebSocket session {}", sessionId, e);
+            }
+            // afterConnectionClosed normally follows; make sure cleanup happens even if it does not
+            onClosed();
+        }
+
+        void onClosed() {
+            if (!active.compareAndSet(true, false)) {
+                return;
+            }
+            connections.remove(session.getId());
+            log.info("WebSocket connection closed: {}", sessionId);
+            gameWebSocketHandler.unregisterConnection(sessionId);
+            outbound.clear();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.wordbrain2.controller.websocket;
+
+/**
+ * A single client socket as seen by the rest of the server,
+ * independent of the transport that owns it.
+ */
+public interface ClientConnection {
+
+    String getSessionId();
+
+    /**
+     * Send a pre-encoded frame; the same frame may be handed to many connections
+     */
+    void sendFrame(OutboundFrame frame);
+
+    default void sendMessage(String message) {
+        sendFrame(OutboundFrame.ofJson(null, message));
+    }
+
+    void close();
+}
@@ -1,6 +1,7 @@
 package com.wordbrain2.controller.websocket;
 
-import com.google.gson.Gson;
+import com.wordbrain2.websocket.codec.BinaryMessageCodec;
+import com.wordbrain2.websocket.codec.JsonMessageCodec;
 import com.wordbrain2.websocket.message.BaseMessage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -24,31 +25,48 @@ public class ConnectionManager {
     @Autowired
     private GameWebSocketHandler gameWebSocketHandler;
     
+    @Autowired
+    private JsonMessageCodec jsonCodec;
+    
+    @Autowired
+    private BinaryMessageCodec binaryCodec;
+    
     private final Map<String, Object> sessions = new ConcurrentHashMap<>();
-    private final Map<String, String> sessionToPlayer = new ConcurrentHashMap<>();
+    private final Map<String, SessionContext> contexts = new ConcurrentHashMap<>();
     private final Map<String, String> playerToSession = new ConcurrentHashMap<>();
-    private final Gson gson = new Gson();
     
     // Basic session management
     public void addSession(String sessionId, Object session) {
         sessions.put(sessionId, session);
+        contexts.put(sessionId, new SessionContext(sessionId));
         log.info("Session added: {}", sessionId);
     }
     
     public void addTcpSession(String sessionId, Object tcpHandler) {
         sessions.put(sessionId, tcpHandler);
+        contexts.put(sessionId, new SessionContext(sessionId));
         log.info("TCP Session added: {}", sessionId);
     }
     
     public void removeSession(String sessionId) {
-        String playerId = sessionToPlayer.remove(sessionId);
-        if (playerId != null) {
-            playerToSession.remove(playerId);
+        SessionContext context = contexts.remove(sessionId);
+        if (context != null) {
+            String playerId = context.clear();
+            if (playerId != null) {
+                playerToSession.remove(playerId, sessionId);
+            }
         }
         sessions.remove(sessionId);
         log.info("Session removed: {}", sessionId);
     }
     
+    /**
+     * Routing state for a session, or null once the session is gone
+     */
+    public SessionContext getContext(String sessionId) {
+        return sessionId != null ? contexts.get(sessionId) : null;
+    }
+    
     public Object getSession(String sessionId) {
         return sessions.get(sessionId);
     }
@@ -61,28 +79,50 @@ public class ConnectionManager {
         return sessionId != null ? sessions.get(sessionId) : null;
     }
     
+    /**
+     * Routing state of the player's current session, or null when they are not connected
+     */
+    public SessionContext getContextByPlayerId(String playerId) {
+        return playerId != null ? getContext(playerToSession.get(playerId)) : null;
+    }
+    
     // Player management
     public void registerPlayer(String sessionId, String playerId) {
-        sessionToPlayer.put(sessionId, playerId);
+        registerPlayer(sessionId, playerId, null);
+    }
+    
+    public void registerPlayer(String sessionId, String playerId, String roomCode) {
+        SessionContext context = contexts.computeIfAbsent(sessionId, SessionContext::new);
+        context.bind(playerId, roomCode);
         playerToSession.put(playerId, sessionId);
-        log.debug("Player {} registered for session {}", playerId, sessionId);
+        log.debug("Player {} registered for session {} in room {}", playerId, sessionId, roomCode);
     }
     
     public String getPlayerId(String sessionId) {
-        if (sessionId == null) {
-            return null;
-        }
-        return sessionToPlayer.get(sessionId);
+        SessionContext context = getContext(sessionId);
+        return context != null ? context.getPlayerId() : null;
     }
     
     public void unregisterPlayer(String sessionId) {
-        String playerId = sessionToPlayer.remove(sessionId);
+        SessionContext context = contexts.get(sessionId);
+        String playerId = context != null ? context.clear() : null;
         if (playerId != null) {
-            playerToSession.remove(playerId);
+            playerToSession.remove(playerId, sessionId);
             log.debug("Player {} unregistered from session {}", playerId, sessionId);
         }
     }
     
+    /**
+     * Clear the routing state of whichever session the player is bound to, e.g. when their room is reaped
+     */
+    public void releasePlayer(String playerId) {
+        String sessionId = playerToSession.remove(playerId);
+        SessionContext context = sessionId != null ? contexts.get(sessionId) : null;
+        if (context != null && playerId.equals(context.getPlayerId())) {
+            context.clear();
+        }
+    }
+    
     // Room management removed - use RoomService instead
     
     // Message sending
@@ -92,9 +132,25 @@ public class ConnectionManager {
             return;
         }
         
-        String jsonMessage = gson.toJson(message);
-        gameWebSocketHandler.sendMessage(sessionId, jsonMessage);
-        log.debug("Message sent to session {}: {}", sessionId, message.getType());
+        sendFrame(sessionId, encode(message));
+    }
+    
+    /**
+     * Serialize a message once so it can be sent to many sessions;
+     * the binary form is only produced if a recipient negotiated it
+     */
+    public OutboundFrame encode(BaseMessage message) {
+        return OutboundFrame.of(message, jsonCodec, binaryCodec);
+    }
+    
+    public void sendFrame(String sessionId, OutboundFrame frame) {
+        if (sessionId == null) {
+            log.warn("Cannot send message - sessionId is null");
+            return;
+        }
+        
+        gameWebSocketHandler.sendFrame(sessionId, frame);
+        log.debug("Message sent to session {}: {}", sessionId, frame.getType());
     }
     
     public void sendMessageToPlayer(String playerId, BaseMessage message) {
@@ -107,14 +163,21 @@ public class ConnectionManager {
     }
     
     public void sendMessageToPlayers(List<String> playerIds, BaseMessage message) {
-        playerIds.forEach(playerId -> sendMessageToPlayer(playerId, message));
+        OutboundFrame frame = encode(message);
+        playerIds.forEach(playerId -> {
+            String sessionId = playerToSession.get(playerId);
+            if (sessionId != null) {
+                sendFrame(sessionId, frame);
+            } else {
+                log.warn("Cannot send message to player {} - no active session", playerId);
+            }
+        });
     }
     
     // Broadcast methods removed - use MessageRouter with RoomService instead
     
     public void broadcastToAll(BaseMessage message) {
-        String jsonMessage = gson.toJson(message);
-        gameWebSocketHandler.broadcastMessage(jsonMessage);
+        gameWebSocketHandler.broadcastFrame(encode(message));
         log.debug("Broadcast message to all sessions: {}", message.getType());
     }
     
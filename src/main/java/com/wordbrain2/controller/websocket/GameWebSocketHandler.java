@@ -1,8 +1,13 @@
 package com.wordbrain2.controller.websocket;
 
 import com.google.gson.Gson;
+import com.wordbrain2.config.GameConfig;
 import com.wordbrain2.model.enums.MessageType;
+import com.wordbrain2.service.messaging.ClockSyncService;
 import com.wordbrain2.websocket.message.BaseMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -16,6 +21,8 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Component
@@ -27,31 +34,109 @@ public class GameWebSocketHandler {
     @Autowired
     private ConnectionManager connectionManager;
     
+    @Autowired
+    private GameConfig gameConfig;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private ClockSyncService clockSyncService;
+    
+    // Thread group of the virtual-thread scheduler's ForkJoinPool workers
+    private static final String CARRIER_THREAD_GROUP = "CarrierThreads";
+    
     private final Gson gson = new Gson();
+    private final AtomicInteger liveVirtualThreads = new AtomicInteger();
     private ServerSocket serverSocket;
     private ExecutorService executorService;
-    private final Map<String, ClientHandler> clientHandlers = new ConcurrentHashMap<>();
+    private NioTcpServer nioServer;
+    private final Map<String, ClientConnection> clientHandlers = new ConcurrentHashMap<>();
     private volatile boolean running = false;
+    private boolean virtualThreads = false;
     private Thread serverThread;
     
     @PostConstruct
     public void init() {
-        startTcpServer();
+        registerThreadMetrics();
+        
+        if (gameConfig.getServer().getTransport() == GameConfig.ServerConfig.Transport.NIO) {
+            startNioServer();
+        } else {
+            startTcpServer();
+        }
     }
     
     @PreDestroy
     public void destroy() {
-        stopTcpServer();
+        if (nioServer != null) {
+            nioServer.stop();
+            clientHandlers.clear();
+        } else {
+            stopTcpServer();
+        }
+    }
+    
+    private void startNioServer() {
+        GameConfig.ServerConfig config = gameConfig.getServer();
+        int loops = config.getEventLoopThreads() > 0
+            ? config.getEventLoopThreads()
+            : Runtime.getRuntime().availableProcessors();
+        
+        nioServer = new NioTcpServer(config, loops,
+            new NioTcpServer.Listener() {
+                @Override
+                public void onOpen(ClientConnection connection) {
+                    clientHandlers.put(connection.getSessionId(), connection);
+                    onConnectionOpened(connection);
+                }
+                
+                @Override
+                public void onMessage(ClientConnection connection, MessageType type, String message) {
+                    messageRouter.routeTcpMessage(connection.getSessionId(), type, message);
+                }
+                
+                @Override
+                public void onBinaryMessage(ClientConnection connection, MessageType type, byte[] body) {
+                    messageRouter.routeBinaryMessage(connection.getSessionId(), type, body);
+                }
+                
+                @Override
+                public void onUpgrade(ClientConnection connection, int capabilities) {
+                    onProtocolUpgraded(connection, capabilities);
+                }
+                
+                @Override
+                public void onClose(ClientConnection connection) {
+                    onConnectionClosed(connection.getSessionId());
+                }
+                
+                @Override
+                public void onSlowConsumer(ClientConnection connection, OutboundQueue.Overflow reason) {
+                    recordEviction(reason);
+                }
+            });
+        
+        try {
+            nioServer.start();
+        } catch (IOException e) {
+            log.error("Failed to start NIO TCP server", e);
+        }
     }
     
     private void startTcpServer() {
-        executorService = Executors.newCachedThreadPool();
+        boolean virtual = gameConfig.getServer().isVirtualThreads();
+        virtualThreads = virtual;
+        executorService = virtual
+            ? Executors.newVirtualThreadPerTaskExecutor()
+            : Executors.newCachedThreadPool();
         running = true;
+        int port = gameConfig.getServer().getPort();
         
-        serverThread = new Thread(() -> {
+        Runnable acceptLoop = () -> {
             try {
-                serverSocket = new ServerSocket(5555);
-                log.info("TCP Server started on port 5555");
+                serverSocket = new ServerSocket(port);
+                log.info("TCP Server started on port {}", port);
                 
                 while (running) {
                     try {
@@ -60,7 +145,7 @@ public class GameWebSocketHandler {
                         
                         ClientHandler clientHandler = new ClientHandler(clientSocket, sessionId);
                         clientHandlers.put(sessionId, clientHandler);
-                        executorService.execute(clientHandler);
+                        runAsync(clientHandler);
                         
                     } catch (IOException e) {
                         if (running) {
@@ -71,8 +156,65 @@ public class GameWebSocketHandler {
             } catch (IOException e) {
                 log.error("Failed to start TCP server", e);
             }
-        });
-        serverThread.start();
+        };
+        
+        serverThread = virtual
+            ? Thread.ofVirtual().name("wb-tcp-accept").start(trackVirtual(acceptLoop))
+            : Thread.ofPlatform().name("wb-tcp-accept").start(acceptLoop);
+    }
+    
+    private void runAsync(Runnable task) {
+        executorService.execute(virtualThreads ? trackVirtual(task) : task);
+    }
+    
+    void recordEviction(OutboundQueue.Overflow reason) {
+        Counter.builder("wordbrain.tcp.slow_consumer.evictions")
+            .description("Clients disconnected because their outbound queue fell too far behind")
+            .tag("reason", reason.name().toLowerCase())
+            .register(meterRegistry)
+            .increment();
+    }
+    
+    private Runnable trackVirtual(Runnable task) {
+        return () -> {
+            liveVirtualThreads.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                liveVirtualThreads.decrementAndGet();
+            }
+        };
+    }
+    
+    private void registerThreadMetrics() {
+        // JVM-wide platform threads are already reported as jvm.threads.live
+        Gauge.builder("wordbrain.tcp.threads.carrier", GameWebSocketHandler::countCarrierThreads)
+            .description("Platform threads of the virtual-thread scheduler that carry the virtual threads")
+            .register(meterRegistry);
+        Gauge.builder("wordbrain.tcp.threads.virtual", liveVirtualThreads, AtomicInteger::get)
+            .description("Live virtual threads running the TCP accept loop and client handlers")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Carrier threads currently alive. The JDK starts them in their own thread
+     * group; walking the groups does not capture stacks the way getAllStackTraces does.
+     */
+    private static int countCarrierThreads() {
+        ThreadGroup root = Thread.currentThread().getThreadGroup();
+        while (root.getParent() != null) {
+            root = root.getParent();
+        }
+        Thread[] threads = new Thread[root.activeCount() + 16];
+        int count = root.enumerate(threads, true);
+        int carriers = 0;
+        for (int i = 0; i < count; i++) {
+            ThreadGroup group = threads[i].getThreadGroup();
+            if (group != null && CARRIER_THREAD_GROUP.equals(group.getName())) {
+                carriers++;
+            }
+        }
+        return carriers;
     }
     
     private void stopTcpServer() {
@@ -86,7 +228,7 @@ public class GameWebSocketHandler {
             log.error("Error closing server socket", e);
         }
         
-        clientHandlers.values().forEach(ClientHandler::close);
+        clientHandlers.values().forEach(ClientConnection::close);
         clientHandlers.clear();
         
         if (executorService != null) {
@@ -103,30 +245,109 @@ public class GameWebSocketHandler {
     }
     
     public void sendMessage(String sessionId, String message) {
-        ClientHandler handler = clientHandlers.get(sessionId);
+        ClientConnection handler = clientHandlers.get(sessionId);
         if (handler != null) {
             handler.sendMessage(message);
         }
     }
     
+    public void sendFrame(String sessionId, OutboundFrame frame) {
+        ClientConnection handler = clientHandlers.get(sessionId);
+        if (handler != null) {
+            handler.sendFrame(frame);
+        }
+    }
+    
     public void broadcastMessage(String message) {
-        clientHandlers.values().forEach(handler -> handler.sendMessage(message));
+        broadcastFrame(OutboundFrame.ofJson(null, message));
+    }
+    
+    public void broadcastFrame(OutboundFrame frame) {
+        clientHandlers.values().forEach(handler -> handler.sendFrame(frame));
+    }
+    
+    /**
+     * Attach a connection owned by another transport (the browser WebSocket endpoint)
+     * so it shares the session model and routing with TCP clients
+     */
+    void registerConnection(ClientConnection connection) {
+        clientHandlers.put(connection.getSessionId(), connection);
+        onConnectionOpened(connection);
+    }
+    
+    void unregisterConnection(String sessionId) {
+        onConnectionClosed(sessionId);
+    }
+    
+    private void onConnectionOpened(ClientConnection connection) {
+        // Register session with connection manager
+        connectionManager.addTcpSession(connection.getSessionId(), connection);
+        
+        // Send connection success message
+        BaseMessage welcomeMessage = new BaseMessage();
+        welcomeMessage.setMessageType(MessageType.CONNECTION_SUCCESS);
+        Map<String, Object> welcomeData = new HashMap<>();
+        welcomeData.put("sessionId", connection.getSessionId());
+        welcomeData.put("message", "Connected to game server");
+        // Clients that understand v2 answer with the WB2 preamble
+        welcomeData.put("protocols", new int[]{1, 2});
+        welcomeData.put("compression", new String[]{"deflate"});
+        welcomeData.put("codecs", new String[]{"json", "binary"});
+        welcomeMessage.setData(welcomeData);
+        
+        connection.sendMessage(gson.toJson(welcomeMessage));
+        clockSyncService.start(connection.getSessionId());
+    }
+    
+    private void onProtocolUpgraded(ClientConnection connection, int capabilities) {
+        // Acknowledge in v2 framing so the client knows the switch took effect
+        BaseMessage ack = new BaseMessage();
+        ack.setMessageType(MessageType.CONNECTION_SUCCESS);
+        Map<String, Object> ackData = new HashMap<>();
+        ackData.put("sessionId", connection.getSessionId());
+        ackData.put("protocol", 2);
+        ackData.put("compression", (capabilities & TcpFraming.CAP_DEFLATE) != 0);
+        ackData.put("binary", (capabilities & TcpFraming.CAP_BINARY) != 0);
+        ack.setData(ackData);
+        
+        connection.sendFrame(OutboundFrame.of(ack, gson));
+    }
+    
+    private void onConnectionClosed(String sessionId) {
+        // Notify router about disconnect
+        messageRouter.handleDisconnect(sessionId);
+        
+        // Remove from connection manager
+        connectionManager.removeSession(sessionId);
+        clientHandlers.remove(sessionId);
     }
     
-    private class ClientHandler implements Runnable {
+    private class ClientHandler implements Runnable, ClientConnection {
         private final Socket socket;
         private final String sessionId;
         private DataInputStream input;
         private DataOutputStream output;
-        private volatile boolean active = true;
+        private final OutboundQueue<byte[]> outbound;
+        private final int maxFrameBytes;
+        private final int compressionThreshold;
+        private volatile int protocol = 1;
+        private volatile int capabilities = 0;
+        private final AtomicBoolean writerScheduled = new AtomicBoolean(false);
+        private final AtomicBoolean active = new AtomicBoolean(true);
         
         public ClientHandler(Socket socket, String sessionId) {
             this.socket = socket;
             this.sessionId = sessionId;
+            this.outbound = OutboundQueue.forFrames(
+                gameConfig.getServer().getOutboundMaxBytes(),
+                gameConfig.getServer().getOutboundMaxAgeMs());
+            this.maxFrameBytes = gameConfig.getServer().getMaxFrameBytes();
+            this.compressionThreshold = gameConfig.getServer().getCompressionThreshold();
             
             try {
-                this.input = new DataInputStream(socket.getInputStream());
-                this.output = new DataOutputStream(socket.getOutputStream());
+                // Buffered so the protocol preamble can be peeked and pushed back
+                this.input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                this.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 16384));
             } catch (IOException e) {
                 log.error("Error setting up client streams", e);
                 close();
@@ -137,27 +358,41 @@ public class GameWebSocketHandler {
         public void run() {
             try {
                 log.info("TCP connection established: {}", sessionId);
+                onConnectionOpened(this);
                 
-                // Register session with connection manager
-                connectionManager.addTcpSession(sessionId, this);
-                
-                // Send connection success message
-                BaseMessage welcomeMessage = new BaseMessage();
-                welcomeMessage.setMessageType(MessageType.CONNECTION_SUCCESS);
-                Map<String, Object> welcomeData = new HashMap<>();
-                welcomeData.put("sessionId", sessionId);
-                welcomeData.put("message", "Connected to game server");
-                welcomeMessage.setData(welcomeData);
-                
-                sendMessage(gson.toJson(welcomeMessage));
+                try {
+                    negotiateProtocol();
+                } catch (EOFException e) {
+                    return;
+                }
                 
                 // Read messages from client
-                while (active && !socket.isClosed()) {
+                while (active.get() && !socket.isClosed()) {
                     try {
-                        String message = input.readUTF();
+                        MessageType type = null;
+                        String message = null;
+                        if (protocol == 2) {
+                            int length = input.readInt();
+                            if (length < 0 || length > maxFrameBytes) {
+                                log.warn("Client {} sent a {} byte frame, limit is {}", sessionId, length, maxFrameBytes);
+                                break;
+                            }
+                            type = MessageType.fromWireId(input.readUnsignedByte());
+                            int flags = input.readUnsignedByte();
+                            byte[] body = new byte[length];
+                            input.readFully(body);
+                            if ((flags & TcpFraming.FLAG_BINARY) != 0) {
+                                messageRouter.routeBinaryMessage(sessionId,
+                                    type, TcpFraming.unwrapV2Body(flags, body, maxFrameBytes));
+                                continue;
+                            }
+                            message = TcpFraming.decodeV2Body(flags, body, maxFrameBytes);
+                        } else {
+                            message = input.readUTF();
+                        }
                         if (message != null && !message.isEmpty()) {
                             // Route message to MessageRouter
-                            messageRouter.routeTcpMessage(sessionId, message);
+                            messageRouter.routeTcpMessage(sessionId, type, message);
                         }
                     } catch (EOFException e) {
                         // Client disconnected normally
@@ -165,7 +400,7 @@ public class GameWebSocketHandler {
                     } catch (SocketTimeoutException e) {
                         // Timeout, continue loop
                     } catch (IOException e) {
-                        if (active) {
+                        if (active.get()) {
                             log.error("Error reading from client {}", sessionId, e);
                         }
                         break;
@@ -178,30 +413,86 @@ public class GameWebSocketHandler {
             }
         }
         
-        public void sendMessage(String message) {
-            if (active && output != null) {
-                try {
-                    output.writeUTF(message);
+        /**
+         * v2 clients open with the WB2 preamble; anything else is the first v1 frame
+         */
+        private void negotiateProtocol() throws IOException {
+            input.mark(TcpFraming.V2_PREAMBLE_LENGTH);
+            byte[] magic = new byte[3];
+            input.readFully(magic);
+            if (!TcpFraming.isV2Magic(magic[0], magic[1], magic[2])) {
+                input.reset();
+                return;
+            }
+            
+            capabilities = input.readUnsignedByte();
+            protocol = 2;
+            log.info("Client {} upgraded to v2 framing (capabilities 0x{})", sessionId, Integer.toHexString(capabilities));
+            onProtocolUpgraded(this, capabilities);
+        }
+        
+        @Override
+        public String getSessionId() {
+            return sessionId;
+        }
+        
+        @Override
+        public void sendFrame(OutboundFrame frame) {
+            if (active.get() && output != null) {
+                byte[] bytes = frame.encodeFor(protocol, capabilities, compressionThreshold);
+                if (bytes == null) {
+                    log.error("Message {} too large for v1 framing, dropped for client {}", frame.getType(), sessionId);
+                    return;
+                }
+                
+                // Callers (router, timer and booster threads) only enqueue; the socket
+                // write happens on this connection's own writer task
+                OutboundQueue.Overflow overflow = outbound.offer(bytes);
+                if (overflow != OutboundQueue.Overflow.NONE) {
+                    log.warn("Client {} is not keeping up ({} limit, {} bytes queued) - disconnecting",
+                        sessionId, overflow, outbound.getQueuedBytes());
+                    recordEviction(overflow);
+                    runAsync(this::close);
+                    return;
+                }
+                if (writerScheduled.compareAndSet(false, true)) {
+                    runAsync(this::drainOutbound);
+                }
+            }
+        }
+        
+        private void drainOutbound() {
+            try {
+                while (active.get()) {
+                    // Coalesce everything pending into the buffered stream, then flush once
+                    byte[] next;
+                    while ((next = outbound.poll()) != null) {
+                        output.write(next);
+                    }
                     output.flush();
-                } catch (IOException e) {
+                    writerScheduled.set(false);
+                    
+                    // A sender may have enqueued after the drain but before the flag cleared
+                    if (outbound.isEmpty() || !writerScheduled.compareAndSet(false, true)) {
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                if (active.get()) {
                     log.error("Error sending message to client {}", sessionId, e);
-                    close();
                 }
+                close();
             }
         }
         
+        @Override
         public void close() {
-            if (!active) return;
-            active = false;
+            // The reader, the writer and a slow-consumer eviction can all get here; only the first closes
+            if (!active.compareAndSet(true, false)) return;
             
             log.info("TCP connection closed: {}", sessionId);
-            
-            // Notify router about disconnect
-            messageRouter.handleDisconnect(sessionId);
-            
-            // Remove from connection manager
-            connectionManager.removeSession(sessionId);
-            clientHandlers.remove(sessionId);
+            onConnectionClosed(sessionId);
+            outbound.clear();
             
             try {
                 if (input != null) input.close();
@@ -1,18 +1,33 @@
 package com.wordbrain2.controller.websocket;
 
-import com.google.gson.Gson;
 import com.wordbrain2.model.enums.MessageType;
 import com.wordbrain2.service.core.GameEngine;
+import com.wordbrain2.service.core.RoomExecutor;
+import com.wordbrain2.service.core.RoomLifecycleService;
 import com.wordbrain2.service.core.RoomService;
+import com.wordbrain2.service.game.TimerService;
+import com.wordbrain2.service.messaging.ClockSyncService;
+import com.wordbrain2.service.messaging.LeaderboardBroadcastService;
 import com.wordbrain2.service.messaging.MessageBroadcastService;
+import com.wordbrain2.websocket.codec.BinaryMessageCodec;
+import com.wordbrain2.websocket.codec.JsonMessageCodec;
 import com.wordbrain2.websocket.handler.RoomMessageHandler;
 import com.wordbrain2.websocket.handler.GameMessageHandler;
 import com.wordbrain2.websocket.handler.BoosterMessageHandler;
 import com.wordbrain2.websocket.message.BaseMessage;
+import com.wordbrain2.websocket.message.ErrorPayload;
+import com.wordbrain2.websocket.message.OpponentScoredPayload;
+import com.wordbrain2.websocket.message.SubmitWordPayload;
+import com.wordbrain2.websocket.message.TimeSyncPayload;
+import com.wordbrain2.websocket.message.WordAcceptedPayload;
+import com.wordbrain2.websocket.message.WordResultPayload;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.util.EnumSet;
 import java.util.Map;
+import java.util.Set;
 
 @Slf4j
 @Component
@@ -39,13 +54,141 @@ public class MessageRouter {
     @Autowired
     private MessageBroadcastService broadcastService;
     
-    private final Gson gson = new Gson();
+    @Autowired
+    private TimerService timerService;
+    
+    @Autowired
+    private RoomExecutor roomExecutor;
+    
+    @Autowired
+    private ClockSyncService clockSyncService;
+    
+    @Autowired
+    private LeaderboardBroadcastService leaderboardBroadcaster;
+    
+    @Autowired
+    private RoomLifecycleService roomLifecycle;
+    
+    @Autowired
+    private JsonMessageCodec jsonCodec;
+    
+    @Autowired
+    private BinaryMessageCodec binaryCodec;
+    
+    // Message types a client may send; anything else is rejected before parsing
+    private static final Set<MessageType> CLIENT_COMMANDS = EnumSet.of(
+        MessageType.CREATE_ROOM, MessageType.JOIN_ROOM, MessageType.LEAVE_ROOM,
+        MessageType.PLAYER_READY, MessageType.START_GAME, MessageType.SUBMIT_WORD,
+        MessageType.USE_BOOSTER, MessageType.REQUEST_HINT, MessageType.REQUEST_GRID_UPDATE,
+        MessageType.LEVEL_COMPLETE, MessageType.TIME_SYNC
+    );
     
     public void routeTcpMessage(String sessionId, String messageContent) {
+        routeTcpMessage(sessionId, null, messageContent);
+    }
+    
+    /**
+     * @param headerType type carried in the v2 frame header, or null for v1 frames
+     */
+    public void routeTcpMessage(String sessionId, MessageType headerType, String messageContent) {
+        if (headerType != null && !CLIENT_COMMANDS.contains(headerType)) {
+            log.warn("Rejected {} frame from session {}", headerType, sessionId);
+            sendError(sessionId, "Unknown message type: " + headerType);
+            return;
+        }
+        
+        log.debug("Routing TCP message from session {}: {}", sessionId, messageContent);
+        
+        BaseMessage gameMessage;
+        try {
+            gameMessage = jsonCodec.fromJson(messageContent);
+        } catch (Exception e) {
+            log.error("Error parsing message", e);
+            sendError(sessionId, "Error processing message: " + e.getMessage());
+            return;
+        }
+        if (gameMessage == null) {
+            return;
+        }
+        if (headerType != null && gameMessage.getType() == null) {
+            gameMessage.setMessageType(headerType);
+        }
+        routeMessage(sessionId, gameMessage);
+    }
+    
+    /**
+     * Route a compact binary frame; the header type selects the decoder
+     */
+    public void routeBinaryMessage(String sessionId, MessageType type, byte[] body) {
+        if (type == null || !CLIENT_COMMANDS.contains(type) || !binaryCodec.supports(type)) {
+            log.warn("Rejected binary {} frame from session {}", type, sessionId);
+            sendError(sessionId, "Unknown message type: " + type);
+            return;
+        }
+        
+        BaseMessage gameMessage;
+        try {
+            gameMessage = binaryCodec.decode(type, body);
+        } catch (IOException e) {
+            log.error("Error decoding binary {} from session {}", type, sessionId, e);
+            sendError(sessionId, "Error processing message: " + e.getMessage());
+            return;
+        }
+        routeMessage(sessionId, gameMessage);
+    }
+    
+    /**
+     * Hand a command to its room's mailbox so all mutations of a room are serialized;
+     * commands that are not yet tied to a room run on the calling thread
+     */
+    private void routeMessage(String sessionId, BaseMessage gameMessage) {
+        long receivedAt = System.currentTimeMillis();
+        MessageType messageType = gameMessage.getMessageType();
+        
+        // Clock samples and submit times are taken on arrival, before any mailbox wait
+        if (messageType == MessageType.TIME_SYNC) {
+            try {
+                clockSyncService.onPong(sessionId, TimeSyncPayload.from(gameMessage.getData()), receivedAt);
+            } catch (IllegalArgumentException e) {
+                log.warn("Malformed TIME_SYNC from session {}: {}", sessionId, e.getMessage());
+            }
+            return;
+        }
+        if (messageType == MessageType.SUBMIT_WORD) {
+            try {
+                SubmitWordPayload submission = SubmitWordPayload.from(gameMessage.getData());
+                gameMessage.setData(submission);
+                gameMessage.setEffectiveTime(
+                    clockSyncService.compensatedTime(sessionId, submission.clientTime(), receivedAt));
+            } catch (IllegalArgumentException | ClassCastException e) {
+                sendError(sessionId, "Error processing message: " + e.getMessage());
+                return;
+            }
+        }
+        
+        String roomCode = commandRoom(sessionId, gameMessage);
+        roomExecutor.execute(roomCode, () -> {
+            roomLifecycle.touch(roomCode);
+            handleMessage(sessionId, gameMessage);
+        });
+    }
+    
+    private String commandRoom(String sessionId, BaseMessage gameMessage) {
+        MessageType messageType = gameMessage.getMessageType();
+        if (messageType == MessageType.CREATE_ROOM) {
+            return null;
+        }
+        if (messageType == MessageType.JOIN_ROOM) {
+            // Only created rooms have a mailbox; a join naming any other code runs inline and is refused
+            return gameMessage.getData() instanceof Map<?, ?> data && data.get("roomCode") != null
+                ? String.valueOf(data.get("roomCode"))
+                : null;
+        }
+        return roomMessageHandler.getRoomForSession(sessionId);
+    }
+    
+    private void handleMessage(String sessionId, BaseMessage gameMessage) {
         try {
-            log.debug("Routing TCP message from session {}: {}", sessionId, messageContent);
-            
-            BaseMessage gameMessage = gson.fromJson(messageContent, BaseMessage.class);
             Map<String, Object> result = null;
             MessageType responseType = null;
             
@@ -63,6 +206,7 @@ public class MessageRouter {
                     responseType = result != null ? MessageType.ROOM_CREATED : null;
                     if (result != null) {
                         String roomCode = (String) result.get("roomCode");
+                        roomLifecycle.touch(roomCode);
                         broadcastRoomState(roomCode);
                     }
                     break;
@@ -89,6 +233,7 @@ public class MessageRouter {
                     if (result != null && Boolean.TRUE.equals(result.get("success"))) {
                         String roomCode = (String) result.get("roomCode");
                         String playerId = (String) result.get("playerId");
+                        roomLifecycle.onPlayerLeft(roomCode, playerId);
                         
                         broadcastToRoom(roomCode, MessageType.PLAYER_LEFT, Map.of(
                             "playerId", playerId
@@ -101,7 +246,7 @@ public class MessageRouter {
                     result = roomMessageHandler.handlePlayerReady(sessionId, gameMessage);
                     if (result != null && Boolean.TRUE.equals(result.get("success"))) {
                         String playerId = (String) result.get("playerId");
-                        String roomCode = roomMessageHandler.getRoomForPlayer(playerId);
+                        String roomCode = roomMessageHandler.getRoomForSession(sessionId);
                         boolean ready = (boolean) result.get("ready");
                         
                         broadcastToRoom(roomCode, MessageType.PLAYER_READY, Map.of(
@@ -115,8 +260,7 @@ public class MessageRouter {
                 case START_GAME:
                     result = gameMessageHandler.handleStartGame(sessionId, gameMessage);
                     if (result != null && Boolean.TRUE.equals(result.get("success"))) {
-                        String playerId = roomMessageHandler.getPlayerIdForSession(sessionId);
-                        String roomCode = roomMessageHandler.getRoomForPlayer(playerId);
+                        String roomCode = roomMessageHandler.getRoomForSession(sessionId);
                         
                         broadcastToRoom(roomCode, MessageType.GAME_STARTING, Map.of(
                             "countdown", result.get("countdown"),
@@ -131,47 +275,41 @@ public class MessageRouter {
                     }
                     break;
                     
-                case SUBMIT_WORD:
-                    result = gameMessageHandler.handleSubmitWord(sessionId, gameMessage);
-                    if (result != null) {
-                        boolean correct = Boolean.TRUE.equals(result.get("correct"));
+                case SUBMIT_WORD: {
+                        WordResultPayload wordResult = gameMessageHandler.handleSubmitWord(sessionId, gameMessage);
+                        if (wordResult instanceof ErrorPayload error) {
+                            sendError(sessionId, error.error());
+                            return;
+                        }
+                        
                         String playerId = roomMessageHandler.getPlayerIdForSession(sessionId);
-                        String roomCode = roomMessageHandler.getRoomForPlayer(playerId);
+                        String roomCode = roomMessageHandler.getRoomForSession(sessionId);
                         
-                        if (correct) {
-                            sendMessage(sessionId, MessageType.WORD_ACCEPTED, result);
+                        if (wordResult instanceof WordAcceptedPayload accepted) {
+                            sendMessage(sessionId, MessageType.WORD_ACCEPTED, accepted);
                             
                             // Broadcast grid update to all players if grid was updated
-                            if (Boolean.TRUE.equals(result.get("gridUpdated"))) {
-                                var gridUpdate = gameEngine.getUpdatedGrid(roomCode);
-                                if (gridUpdate != null) {
-                                    broadcastToRoom(roomCode, MessageType.GRID_UPDATE, gridUpdate);
-                                }
+                            if (accepted.gridUpdated()) {
+                                broadcastGridChange(roomCode, accepted.gridVersion());
                             }
                             
                             // Broadcast score update
-                            broadcastToRoom(roomCode, MessageType.OPPONENT_SCORED, Map.of(
-                                "playerId", playerId,
-                                "points", result.get("points"),
-                                "word", result.get("word")
-                            ), sessionId);
+                            broadcastToRoom(roomCode, MessageType.OPPONENT_SCORED,
+                                new OpponentScoredPayload(playerId, accepted.points(), accepted.word()), sessionId);
                             
                             // Check if level is complete
-                            if (Boolean.TRUE.equals(result.get("levelComplete"))) {
-                                broadcastToRoom(roomCode, MessageType.LEVEL_END, Map.of(
-                                    "message", "Level completed by " + playerId,
-                                    "nextLevel", true
-                                ));
+                            if (accepted.levelComplete()) {
+                                endLevel(roomCode, "Level completed by " + playerId);
+                                break;
                             }
                         } else {
-                            sendMessage(sessionId, MessageType.WORD_REJECTED, result);
+                            sendMessage(sessionId, MessageType.WORD_REJECTED, wordResult);
                         }
                         
-                        // Update leaderboard
-                        var leaderboard = gameEngine.getLeaderboard(roomCode);
-                        broadcastToRoom(roomCode, MessageType.LEADERBOARD_UPDATE, leaderboard);
-                    }
-                    break;
+                        // Scores or streaks moved; coalesced into the room's next leaderboard tick
+                        leaderboardBroadcaster.markDirty(roomCode);
+                        break;
+                }
                     
                 case USE_BOOSTER:
                     result = boosterMessageHandler.handleUseBooster(sessionId, gameMessage);
@@ -180,8 +318,7 @@ public class MessageRouter {
                         
                         // If booster affects others, notify them
                         if (Boolean.TRUE.equals(result.get("affectsOthers"))) {
-                            String playerId = roomMessageHandler.getPlayerIdForSession(sessionId);
-                            String roomCode = roomMessageHandler.getRoomForPlayer(playerId);
+                            String roomCode = roomMessageHandler.getRoomForSession(sessionId);
                             
                             broadcastToRoom(roomCode, MessageType.EFFECT_RECEIVED, Map.of(
                                 "effect", result.get("effectType"),
@@ -200,8 +337,16 @@ public class MessageRouter {
                     break;
                     
                 case REQUEST_GRID_UPDATE:
-                    String playerId2 = roomMessageHandler.getPlayerIdForSession(sessionId);
-                    String roomCode2 = roomMessageHandler.getRoomForPlayer(playerId2);
+                    String roomCode2 = roomMessageHandler.getRoomForSession(sessionId);
+                    
+                    // A client that reports its version gets only the deltas it missed
+                    Long knownVersion = getKnownVersion(gameMessage.getData());
+                    var missed = knownVersion != null ? gameEngine.getGridDeltas(roomCode2, knownVersion) : null;
+                    if (missed != null) {
+                        missed.forEach(delta -> sendMessage(sessionId, MessageType.GRID_DELTA, delta));
+                        break;
+                    }
+                    
                     var gridUpdate = gameEngine.getUpdatedGrid(roomCode2);
                     if (gridUpdate != null) {
                         sendMessage(sessionId, MessageType.GRID_UPDATE, gridUpdate);
@@ -210,12 +355,8 @@ public class MessageRouter {
                     
                 case LEVEL_COMPLETE:
                     // Handle level completion
-                    String playerId3 = roomMessageHandler.getPlayerIdForSession(sessionId);
-                    String roomCode3 = roomMessageHandler.getRoomForPlayer(playerId3);
-                    broadcastToRoom(roomCode3, MessageType.LEVEL_END, Map.of(
-                        "message", "Level completed!",
-                        "nextLevel", true
-                    ));
+                    String roomCode3 = roomMessageHandler.getRoomForSession(sessionId);
+                    endLevel(roomCode3, "Level completed!");
                     break;
                     
             }
@@ -236,21 +377,24 @@ public class MessageRouter {
     public void handleDisconnect(String sessionId) {
         // Get player info before cleanup
         String playerId = roomMessageHandler.getPlayerIdForSession(sessionId);
-        String roomCode = playerId != null ? roomMessageHandler.getRoomForPlayer(playerId) : null;
+        String roomCode = playerId != null ? roomMessageHandler.getRoomForSession(sessionId) : null;
         
         // IMPORTANT: Remove player from room when disconnected
         if (playerId != null && roomCode != null) {
             log.info("Player {} disconnected from room {} - removing from room", playerId, roomCode);
             
-            // Remove player from room
-            roomService.removePlayer(roomCode, playerId);
-            
-            // Notify other players
-            broadcastToRoom(roomCode, MessageType.PLAYER_LEFT, Map.of(
-                "playerId", playerId,
-                "message", "Player disconnected"
-            ));
-            broadcastRoomState(roomCode);
+            roomExecutor.execute(roomCode, () -> {
+                // Remove player from room
+                roomService.removePlayer(roomCode, playerId);
+                roomLifecycle.onPlayerLeft(roomCode, playerId);
+                
+                // Notify other players
+                broadcastToRoom(roomCode, MessageType.PLAYER_LEFT, Map.of(
+                    "playerId", playerId,
+                    "message", "Player disconnected"
+                ));
+                broadcastRoomState(roomCode);
+            });
         }
         
         // Clean up connection manager state
@@ -258,19 +402,54 @@ public class MessageRouter {
     }
     
     private void scheduleGameStart(String roomCode) {
-        new Thread(() -> {
+        // Countdown runs on the shared timer scheduler instead of a sleeping thread per room
+        timerService.startCountdown(roomCode, 5, () -> {
             try {
-                Thread.sleep(5000);
-                var levelData = gameEngine.startLevel(roomCode, 1);
+                var levelData = gameEngine.startLevel(roomCode, 1, () -> endLevel(roomCode, "Time's up!"));
                 broadcastToRoom(roomCode, MessageType.LEVEL_START, levelData);
-            } catch (InterruptedException e) {
-                log.error("Game start interrupted", e);
             } catch (Exception ex) {
                 log.error("Failed to start level", ex);
-                broadcastToRoom(roomCode, MessageType.ERROR, 
-                    Map.of("error", "Không thể bắt đầu level: " + ex.getMessage()));
+                broadcastToRoom(roomCode, MessageType.ERROR,
+                    new ErrorPayload("Không thể bắt đầu level: " + ex.getMessage()));
             }
-        }).start();
+        });
+    }
+    
+    /**
+     * Close the current level on the room's mailbox: stop its clock so it cannot end
+     * the level a second time, then send the final standings ahead of LEVEL_END
+     */
+    private void endLevel(String roomCode, String message) {
+        timerService.stopTimer(roomCode);
+        leaderboardBroadcaster.flush(roomCode);
+        broadcastToRoom(roomCode, MessageType.LEVEL_END, Map.of(
+            "message", message,
+            "nextLevel", true
+        ));
+    }
+    
+    /**
+     * Send the delta that produced gridVersion, or the full grid if it is no longer held
+     */
+    private void broadcastGridChange(String roomCode, long gridVersion) {
+        var deltas = gameEngine.getGridDeltas(roomCode, gridVersion - 1);
+        if (deltas != null && !deltas.isEmpty()) {
+            // Later deltas, if any, are broadcast by the submits that made them
+            broadcastToRoom(roomCode, MessageType.GRID_DELTA, deltas.get(0));
+            return;
+        }
+        
+        var gridUpdate = gameEngine.getUpdatedGrid(roomCode);
+        if (gridUpdate != null) {
+            broadcastToRoom(roomCode, MessageType.GRID_UPDATE, gridUpdate);
+        }
+    }
+    
+    private Long getKnownVersion(Object data) {
+        if (data instanceof Map<?, ?> map && map.get("knownVersion") instanceof Number version) {
+            return version.longValue();
+        }
+        return null;
     }
     
     private void sendMessage(String sessionId, MessageType type, Object data) {
@@ -0,0 +1,489 @@
+package com.wordbrain2.controller.websocket;
+
+import com.wordbrain2.config.GameConfig;
+import com.wordbrain2.model.enums.MessageType;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Selector based TCP transport. A single acceptor thread hands new sockets
+ * round-robin to a small, fixed set of event loops; each loop owns the
+ * read buffer and write queue of its connections.
+ *
+ * Inbound frames are routed on the event-loop thread that read them, so the
+ * listener must not block. Outbound sends from any thread only enqueue; the
+ * loop drains each connection's queue with gathering writes.
+ */
+@Slf4j
+public class NioTcpServer {
+
+    public interface Listener {
+        void onOpen(ClientConnection connection);
+
+        /**
+         * @param type the message type from the v2 header, or null on v1
+         */
+        void onMessage(ClientConnection connection, MessageType type, String message);
+
+        /**
+         * A v2 frame flagged as compact binary; the body is already inflated
+         */
+        void onBinaryMessage(ClientConnection connection, MessageType type, byte[] body);
+
+        /**
+         * The client sent the v2 preamble; later frames use v2 framing
+         */
+        void onUpgrade(ClientConnection connection, int capabilities);
+
+        void onClose(ClientConnection connection);
+
+        void onSlowConsumer(ClientConnection connection, OutboundQueue.Overflow reason);
+    }
+
+    private static final int MAX_GATHER = 64;
+
+    private final int port;
+    private final int readBufferSize;
+    private final int maxFrameBytes;
+    private final int compressionThreshold;
+    private final long outboundMaxBytes;
+    private final long outboundMaxAgeMs;
+    private final Listener listener;
+    private final EventLoop[] loops;
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private ServerSocketChannel serverChannel;
+    private Thread acceptThread;
+    private volatile boolean running = false;
+
+    public NioTcpServer(GameConfig.ServerConfig config, int loopCount, Listener listener) {
+        this.port = config.getPort();
+        this.readBufferSize = config.getReadBufferSize();
+        this.maxFrameBytes = config.getMaxFrameBytes();
+        this.compressionThreshold = config.getCompressionThreshold();
+        this.outboundMaxBytes = config.getOutboundMaxBytes();
+        this.outboundMaxAgeMs = config.getOutboundMaxAgeMs();
+        this.listener = listener;
+        this.loops = new EventLoop[Math.max(1, loopCount)];
+    }
+
+    public void start() throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        running = true;
+
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop(i);
+            loops[i].thread.start();
+        }
+
+        acceptThread = new Thread(this::acceptLoop, "wb-nio-accept");
+        acceptThread.start();
+        log.info("NIO TCP Server started on port {} with {} event loops", port, loops.length);
+    }
+
+    public void stop() {
+        running = false;
+
+        try {
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+        } catch (IOException e) {
+            log.error("Error closing server channel", e);
+        }
+
+        for (EventLoop loop : loops) {
+            if (loop != null) {
+                loop.selector.wakeup();
+            }
+        }
+
+        join(acceptThread);
+        for (EventLoop loop : loops) {
+            if (loop != null) {
+                join(loop.thread);
+            }
+        }
+    }
+
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    private void acceptLoop() {
+        int next = 0;
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+                int remotePort = ((InetSocketAddress) channel.getRemoteAddress()).getPort();
+                String sessionId = "tcp_" + System.currentTimeMillis() + "_" + remotePort;
+
+                EventLoop loop = loops[next];
+                next = (next + 1) % loops.length;
+                loop.execute(() -> loop.register(channel, sessionId));
+            } catch (ClosedChannelException e) {
+                break;
+            } catch (IOException e) {
+                if (running) {
+                    log.error("Error accepting client connection", e);
+                }
+            }
+        }
+    }
+
+    private void join(Thread thread) {
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private final class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Thread thread;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+        EventLoop(int index) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this, "wb-nio-loop-" + index);
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        void register(SocketChannel channel, String sessionId) {
+            NioConnection connection = new NioConnection(channel, sessionId, this);
+            try {
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            } catch (IOException e) {
+                log.error("Error registering client {}", sessionId, e);
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // already failing
+                }
+                return;
+            }
+            connectionCount.incrementAndGet();
+            log.info("TCP connection established: {}", sessionId);
+            listener.onOpen(connection);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    selector.select();
+                    runTasks();
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        NioConnection connection = (NioConnection) key.attachment();
+                        try {
+                            if (key.isValid() && key.isReadable()) {
+                                connection.onReadable();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.flush();
+                            }
+                        } catch (CancelledKeyException e) {
+                            connection.close();
+                        }
+                    }
+                } catch (IOException e) {
+                    log.error("Error in event loop {}", thread.getName(), e);
+                }
+            }
+
+            for (SelectionKey key : new ArrayList<>(selector.keys())) {
+                ((NioConnection) key.attachment()).close();
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                log.error("Error closing selector", e);
+            }
+        }
+
+        private void runTasks() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.error("Error running event loop task", e);
+                }
+            }
+        }
+    }
+
+    private final class NioConnection implements ClientConnection {
+        private final SocketChannel channel;
+        private final String sessionId;
+        private final EventLoop loop;
+        private final OutboundQueue<byte[]> outbound = OutboundQueue.forFrames(outboundMaxBytes, outboundMaxAgeMs);
+        private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+        private int gatherCount = 0;
+        private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+        private ByteBuffer readBuffer;
+        private SelectionKey key;
+        // 0 until the first bytes arrive, then 1 or 2; written by the loop only
+        private volatile int protocol = 0;
+        private volatile int capabilities = 0;
+
+        NioConnection(SocketChannel channel, String sessionId, EventLoop loop) {
+            this.channel = channel;
+            this.sessionId = sessionId;
+            this.loop = loop;
+            this.readBuffer = ByteBuffer.allocate(readBufferSize);
+        }
+
+        @Override
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        @Override
+        public void sendFrame(OutboundFrame frame) {
+            if (closed.get()) {
+                return;
+            }
+
+            byte[] bytes = frame.encodeFor(protocol, capabilities, compressionThreshold);
+            if (bytes == null) {
+                log.error("Message {} too large for v1 framing, dropped for client {}", frame.getType(), sessionId);
+                return;
+            }
+
+            OutboundQueue.Overflow overflow = outbound.offer(bytes);
+            if (overflow != OutboundQueue.Overflow.NONE) {
+                log.warn("Client {} is not keeping up ({} limit, {} bytes queued) - disconnecting",
+                    sessionId, overflow, outbound.getQueuedBytes());
+                listener.onSlowConsumer(this, overflow);
+                loop.execute(this::close);
+                return;
+            }
+            if (flushScheduled.compareAndSet(false, true)) {
+                loop.execute(this::flush);
+            }
+        }
+
+        void onReadable() {
+            int read;
+            try {
+                read = channel.read(readBuffer);
+            } catch (IOException e) {
+                close();
+                return;
+            }
+            if (read < 0) {
+                // Client disconnected normally
+                close();
+                return;
+            }
+
+            readBuffer.flip();
+            if (protocol == 0 && !negotiate()) {
+                readBuffer.compact();
+                return;
+            }
+
+            int needed = 0;
+            while (!closed.get()) {
+                int frameLength = protocol == 2 ? nextV2FrameLength() : nextV1FrameLength();
+                if (frameLength < 0) {
+                    close();
+                    return;
+                }
+                if (frameLength == 0 || readBuffer.remaining() < frameLength) {
+                    needed = frameLength;
+                    break;
+                }
+
+                MessageType type = null;
+                String message = null;
+                byte[] binary = null;
+                int start = readBuffer.position();
+                try {
+                    if (protocol == 2) {
+                        type = MessageType.fromWireId(readBuffer.get(start + 4) & 0xFF);
+                        int flags = readBuffer.get(start + 5) & 0xFF;
+                        byte[] body = new byte[frameLength - TcpFraming.V2_HEADER_LENGTH];
+                        readBuffer.position(start + TcpFraming.V2_HEADER_LENGTH);
+                        readBuffer.get(body);
+                        if ((flags & TcpFraming.FLAG_BINARY) != 0) {
+                            binary = TcpFraming.unwrapV2Body(flags, body, maxFrameBytes);
+                        } else {
+                            message = TcpFraming.decodeV2Body(flags, body, maxFrameBytes);
+                        }
+                    } else {
+                        message = TcpFraming.decodeV1(readBuffer.array(), start, frameLength);
+                    }
+                } catch (IOException e) {
+                    log.error("Malformed frame from client {}", sessionId, e);
+                    close();
+                    return;
+                }
+                readBuffer.position(start + frameLength);
+
+                if (binary != null) {
+                    listener.onBinaryMessage(this, type, binary);
+                } else if (!message.isEmpty()) {
+                    listener.onMessage(this, type, message);
+                }
+            }
+            if (closed.get()) {
+                return;
+            }
+            readBuffer.compact();
+
+            if (needed > readBuffer.capacity()) {
+                ByteBuffer larger = ByteBuffer.allocate(needed);
+                readBuffer.flip();
+                larger.put(readBuffer);
+                readBuffer = larger;
+            }
+        }
+
+        /**
+         * Settle the protocol from the first inbound bytes; false until enough have arrived
+         */
+        private boolean negotiate() {
+            if (readBuffer.remaining() < 3) {
+                return false;
+            }
+            int start = readBuffer.position();
+            if (!TcpFraming.isV2Magic(readBuffer.get(start), readBuffer.get(start + 1), readBuffer.get(start + 2))) {
+                protocol = 1;
+                return true;
+            }
+            if (readBuffer.remaining() < TcpFraming.V2_PREAMBLE_LENGTH) {
+                return false;
+            }
+            capabilities = readBuffer.get(start + 3) & 0xFF;
+            readBuffer.position(start + TcpFraming.V2_PREAMBLE_LENGTH);
+            protocol = 2;
+            log.info("Client {} upgraded to v2 framing (capabilities 0x{})", sessionId, Integer.toHexString(capabilities));
+            listener.onUpgrade(this, capabilities);
+            return true;
+        }
+
+        /**
+         * Length of the next whole frame, 0 if its header is incomplete, -1 if invalid
+         */
+        private int nextV1FrameLength() {
+            if (readBuffer.remaining() < TcpFraming.V1_HEADER_LENGTH) {
+                return 0;
+            }
+            return TcpFraming.V1_HEADER_LENGTH + Short.toUnsignedInt(readBuffer.getShort(readBuffer.position()));
+        }
+
+        private int nextV2FrameLength() {
+            if (readBuffer.remaining() < TcpFraming.V2_HEADER_LENGTH) {
+                return 0;
+            }
+            int bodyLength = readBuffer.getInt(readBuffer.position());
+            if (bodyLength < 0 || bodyLength > maxFrameBytes) {
+                log.warn("Client {} sent a {} byte frame, limit is {}", sessionId, bodyLength, maxFrameBytes);
+                return -1;
+            }
+            return TcpFraming.V2_HEADER_LENGTH + bodyLength;
+        }
+
+        void flush() {
+            if (closed.get()) {
+                return;
+            }
+            try {
+                while (true) {
+                    // Top up the gather batch; wrap() gives this connection its own
+                    // position over the shared, read-only frame bytes
+                    byte[] next;
+                    while (gatherCount < MAX_GATHER && (next = outbound.poll()) != null) {
+                        gather[gatherCount++] = ByteBuffer.wrap(next);
+                    }
+
+                    if (gatherCount == 0) {
+                        key.interestOps(SelectionKey.OP_READ);
+                        flushScheduled.set(false);
+
+                        // A sender may have enqueued after the drain but before the flag cleared
+                        if (outbound.isEmpty() || !flushScheduled.compareAndSet(false, true)) {
+                            return;
+                        }
+                        continue;
+                    }
+
+                    // Coalesce every pending frame into a single write call
+                    channel.write(gather, 0, gatherCount);
+
+                    int written = 0;
+                    while (written < gatherCount && !gather[written].hasRemaining()) {
+                        written++;
+                    }
+                    System.arraycopy(gather, written, gather, 0, gatherCount - written);
+                    for (int i = gatherCount - written; i < gatherCount; i++) {
+                        gather[i] = null;
+                    }
+                    gatherCount -= written;
+
+                    if (gatherCount > 0) {
+                        // Socket buffer full, resume when writable
+                        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                }
+            } catch (IOException | CancelledKeyException e) {
+                close();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+
+            log.info("TCP connection closed: {}", sessionId);
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.error("Error closing client channel", e);
+            }
+            outbound.clear();
+            connectionCount.decrementAndGet();
+            listener.onClose(this);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.wordbrain2.controller.websocket;
+
+import com.google.gson.Gson;
+import com.wordbrain2.model.enums.MessageType;
+import com.wordbrain2.websocket.codec.JsonMessageCodec;
+import com.wordbrain2.websocket.codec.MessageCodec;
+import com.wordbrain2.websocket.message.BaseMessage;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A message serialized once and shared, unchanged, by every recipient.
+ * Wire bytes for each framing variant are produced lazily on first use and
+ * cached; callers must treat the returned arrays as read-only.
+ */
+public final class OutboundFrame {
+
+    private final String type;
+    private final int wireId;
+    private final String json;
+    private final BaseMessage message;
+    private final MessageCodec compactCodec;
+    private volatile byte[] v1Frame;
+    private volatile boolean v1TooLarge;
+    private volatile byte[] v2Frame;
+    private volatile byte[] v2DeflatedFrame;
+    private volatile byte[] binaryBody;
+    private volatile boolean binaryUnsupported;
+    private volatile byte[] v2BinaryFrame;
+    private volatile byte[] webSocketBinaryFrame;
+
+    private OutboundFrame(String type, String json, BaseMessage message, MessageCodec compactCodec) {
+        this.type = type;
+        this.json = json;
+        this.message = message;
+        this.compactCodec = compactCodec;
+        MessageType messageType = resolveType(type);
+        this.wireId = messageType != null ? messageType.getWireId() : 0;
+    }
+
+    public static OutboundFrame of(BaseMessage message, Gson gson) {
+        return new OutboundFrame(message.getType(), gson.toJson(message), null, null);
+    }
+
+    /**
+     * A frame that can also be sent in the compact encoding to clients that negotiated it
+     */
+    public static OutboundFrame of(BaseMessage message, JsonMessageCodec jsonCodec, MessageCodec compactCodec) {
+        return new OutboundFrame(message.getType(), jsonCodec.toJson(message), message, compactCodec);
+    }
+
+    public static OutboundFrame ofJson(String type, String json) {
+        return new OutboundFrame(type, json, null, null);
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    public int getWireId() {
+        return wireId;
+    }
+
+    /**
+     * Frame bytes for a connection's negotiated protocol, or null when the
+     * message cannot be carried (only possible on v1)
+     */
+    public byte[] encodeFor(int protocol, int capabilities, int compressionThreshold) {
+        if (protocol < 2) {
+            return v1Frame();
+        }
+        if ((capabilities & TcpFraming.CAP_BINARY) != 0) {
+            byte[] frame = v2BinaryFrame();
+            if (frame != null) {
+                return frame;
+            }
+        }
+        boolean deflate = (capabilities & TcpFraming.CAP_DEFLATE) != 0;
+        return v2Frame(deflate, compressionThreshold);
+    }
+
+    /**
+     * The complete writeUTF frame, or null when the payload exceeds the v1 limit
+     */
+    public byte[] v1Frame() {
+        byte[] frame = v1Frame;
+        if (frame == null && !v1TooLarge) {
+            try {
+                frame = TcpFraming.encodeV1(json);
+                v1Frame = frame;
+            } catch (UncheckedIOException e) {
+                v1TooLarge = true;
+            }
+        }
+        return frame;
+    }
+
+    public byte[] v2Frame(boolean allowDeflate, int compressionThreshold) {
+        if (allowDeflate && json.length() >= compressionThreshold) {
+            byte[] frame = v2DeflatedFrame;
+            if (frame == null) {
+                byte[] body = TcpFraming.deflate(json.getBytes(StandardCharsets.UTF_8));
+                frame = TcpFraming.encodeV2(wireId, TcpFraming.FLAG_DEFLATE, body);
+                v2DeflatedFrame = frame;
+            }
+            return frame;
+        }
+
+        byte[] frame = v2Frame;
+        if (frame == null) {
+            frame = TcpFraming.encodeV2(wireId, 0, json.getBytes(StandardCharsets.UTF_8));
+            v2Frame = frame;
+        }
+        return frame;
+    }
+
+    /**
+     * The compact-encoded v2 frame, or null when the codec does not cover this message
+     */
+    public byte[] v2BinaryFrame() {
+        byte[] frame = v2BinaryFrame;
+        if (frame == null) {
+            byte[] body = binaryBody();
+            if (body == null) {
+                return null;
+            }
+            frame = TcpFraming.encodeV2(wireId, TcpFraming.FLAG_BINARY, body);
+            v2BinaryFrame = frame;
+        }
+        return frame;
+    }
+
+    /**
+     * The compact body behind a one-byte type id, for WebSocket binary messages;
+     * null when the codec does not cover this message
+     */
+    public byte[] webSocketBinaryFrame() {
+        byte[] frame = webSocketBinaryFrame;
+        if (frame == null) {
+            byte[] body = binaryBody();
+            if (body == null) {
+                return null;
+            }
+            frame = new byte[body.length + 1];
+            frame[0] = (byte) wireId;
+            System.arraycopy(body, 0, frame, 1, body.length);
+            webSocketBinaryFrame = frame;
+        }
+        return frame;
+    }
+
+    private byte[] binaryBody() {
+        if (compactCodec == null || binaryUnsupported) {
+            return null;
+        }
+        byte[] body = binaryBody;
+        if (body == null) {
+            body = compactCodec.encode(message);
+            if (body == null) {
+                binaryUnsupported = true;
+                return null;
+            }
+            binaryBody = body;
+        }
+        return body;
+    }
+
+    private static MessageType resolveType(String type) {
+        if (type == null) {
+            return null;
+        }
+        try {
+            return MessageType.valueOf(type);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
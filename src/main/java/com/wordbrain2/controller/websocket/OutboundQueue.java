@@ -0,0 +1,93 @@
+package com.wordbrain2.controller.websocket;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bounded queue of encoded messages waiting for one connection's writer.
+ * Entries are weighed in bytes; raw TCP frames use their length.
+ * Any thread may offer; only the connection's writer polls. A connection
+ * whose queue grows past the byte limit, or whose oldest frame has waited
+ * longer than the age limit, is a slow consumer and should be dropped.
+ */
+public class OutboundQueue<T> {
+
+    public enum Overflow {
+        NONE,
+        BYTES,
+        AGE
+    }
+
+    private final Queue<Entry<T>> entries = new ConcurrentLinkedQueue<>();
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final long maxBytes;
+    private final long maxAgeNanos;
+    private final ToIntFunction<T> weigher;
+
+    public OutboundQueue(long maxBytes, long maxAgeMillis, ToIntFunction<T> weigher) {
+        this.maxBytes = maxBytes;
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMillis);
+        this.weigher = weigher;
+    }
+
+    public static OutboundQueue<byte[]> forFrames(long maxBytes, long maxAgeMillis) {
+        return new OutboundQueue<>(maxBytes, maxAgeMillis, frame -> frame.length);
+    }
+
+    /**
+     * Queue a frame unless the consumer is already too far behind
+     */
+    public Overflow offer(T frame) {
+        long now = System.nanoTime();
+
+        Entry<T> oldest = entries.peek();
+        if (oldest != null && now - oldest.enqueuedAt > maxAgeNanos) {
+            return Overflow.AGE;
+        }
+        int size = weigher.applyAsInt(frame);
+        if (queuedBytes.addAndGet(size) > maxBytes) {
+            queuedBytes.addAndGet(-size);
+            return Overflow.BYTES;
+        }
+
+        entries.add(new Entry<>(frame, size, now));
+        return Overflow.NONE;
+    }
+
+    public T poll() {
+        Entry<T> entry = entries.poll();
+        if (entry == null) {
+            return null;
+        }
+        queuedBytes.addAndGet(-entry.size);
+        return entry.frame;
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public long getQueuedBytes() {
+        return queuedBytes.get();
+    }
+
+    public void clear() {
+        entries.clear();
+        queuedBytes.set(0);
+    }
+
+    private static final class Entry<T> {
+        private final T frame;
+        private final int size;
+        private final long enqueuedAt;
+
+        Entry(T frame, int size, long enqueuedAt) {
+            this.frame = frame;
+            this.size = size;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.wordbrain2.controller.websocket;
+
+import com.wordbrain2.util.ClockEstimator;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-connection routing state: who the session belongs to and which room
+ * they are in. Set when the player creates or joins a room and cleared when
+ * they leave, so message routing reads it directly instead of searching.
+ */
+public class SessionContext {
+
+    // Pings whose pongs never came are forgotten once this many newer ones are out
+    private static final int MAX_PENDING_PINGS = 4;
+
+    private final String sessionId;
+    private final ClockEstimator clock = new ClockEstimator();
+    private volatile String playerId;
+    private volatile String roomCode;
+    // TIME_SYNC seq -> server time it was sent, oldest first
+    private final Map<Integer, Long> pendingPings = new LinkedHashMap<>();
+
+    public SessionContext(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public String getPlayerId() {
+        return playerId;
+    }
+
+    public String getRoomCode() {
+        return roomCode;
+    }
+
+    /**
+     * Round-trip and clock offset estimate from this session's TIME_SYNC exchanges
+     */
+    public ClockEstimator getClock() {
+        return clock;
+    }
+
+    /**
+     * Remember when a TIME_SYNC ping went out, so its pong is timed by the server's own clock
+     */
+    public synchronized void pingSent(int seq, long sentAt) {
+        pendingPings.put(seq, sentAt);
+        if (pendingPings.size() > MAX_PENDING_PINGS) {
+            Iterator<Long> oldest = pendingPings.values().iterator();
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    /**
+     * Send time of the ping answered by a pong, or -1 when that seq is unknown or already answered
+     */
+    public synchronized long pongReceived(int seq) {
+        Long sentAt = pendingPings.remove(seq);
+        return sentAt != null ? sentAt : -1;
+    }
+
+    synchronized void bind(String playerId, String roomCode) {
+        this.playerId = playerId;
+        this.roomCode = roomCode;
+    }
+
+    synchronized String clear() {
+        String previous = playerId;
+        this.playerId = null;
+        this.roomCode = null;
+        return previous;
+    }
+}
@@ -0,0 +1,146 @@
+package com.wordbrain2.controller.websocket;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Wire framing shared by the TCP transports.
+ *
+ * v1 frames are exactly what DataOutputStream.writeUTF produces:
+ * a 2-byte unsigned length followed by modified UTF-8.
+ *
+ * v2 is opted into by the client: after the v1 CONNECTION_SUCCESS it sends
+ * the preamble "WB2" plus one capability byte as its first bytes, and both
+ * directions then use [u32 body length][u8 message type][u8 flags][body]
+ * with a UTF-8 JSON body, or a compact binary body when FLAG_BINARY is set
+ * and the client advertised CAP_BINARY. A v1 frame can never start with "WB2", since its
+ * third byte is always the opening brace of the JSON object.
+ */
+public final class TcpFraming {
+
+    public static final int V1_HEADER_LENGTH = 2;
+    public static final int V1_MAX_PAYLOAD = 0xFFFF;
+
+    public static final int V2_PREAMBLE_LENGTH = 4;
+    public static final int V2_HEADER_LENGTH = 6;
+
+    // Capability bits in the preamble
+    public static final int CAP_DEFLATE = 0x01;
+    public static final int CAP_BINARY = 0x02;
+
+    // Frame flag bits
+    public static final int FLAG_DEFLATE = 0x01;
+    public static final int FLAG_BINARY = 0x02;
+
+    private TcpFraming() {
+    }
+
+    /**
+     * Encode a message as a complete v1 frame (length prefix included)
+     */
+    public static byte[] encodeV1(String message) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(message.length() + V1_HEADER_LENGTH);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(message);
+        } catch (IOException e) {
+            // UTFDataFormatException when the message exceeds 65535 encoded bytes
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode a v1 frame; the array must hold the length prefix and the whole payload
+     */
+    public static String decodeV1(byte[] frame, int offset, int length) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame, offset, length))) {
+            return in.readUTF();
+        }
+    }
+
+    /**
+     * True when the first three inbound bytes are the v2 preamble magic
+     */
+    public static boolean isV2Magic(byte b0, byte b1, byte b2) {
+        return b0 == 'W' && b1 == 'B' && b2 == '2';
+    }
+
+    /**
+     * Encode a complete v2 frame (header included)
+     */
+    public static byte[] encodeV2(int typeId, int flags, byte[] body) {
+        ByteBuffer frame = ByteBuffer.allocate(V2_HEADER_LENGTH + body.length);
+        frame.putInt(body.length);
+        frame.put((byte) typeId);
+        frame.put((byte) flags);
+        frame.put(body);
+        return frame.array();
+    }
+
+    /**
+     * Undo the transport-level compression of a v2 body
+     */
+    public static byte[] unwrapV2Body(int flags, byte[] body, int maxLength) throws IOException {
+        return (flags & FLAG_DEFLATE) != 0 ? inflate(body, maxLength) : body;
+    }
+
+    /**
+     * Decode a v2 JSON body to its text, inflating it when flagged
+     */
+    public static String decodeV2Body(int flags, byte[] body, int maxLength) throws IOException {
+        return new String(unwrapV2Body(flags, body, maxLength), StandardCharsets.UTF_8);
+    }
+
+    public static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Inflate a compressed body, refusing to expand past maxLength bytes
+     */
+    public static byte[] inflate(byte[] data, int maxLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 2);
+            byte[] chunk = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(chunk);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated compressed frame");
+                }
+                out.write(chunk, 0, n);
+                if (out.size() > maxLength) {
+                    throw new IOException("Compressed frame expands beyond " + maxLength + " bytes");
+                }
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Malformed compressed frame", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
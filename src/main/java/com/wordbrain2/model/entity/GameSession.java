@@ -22,6 +22,7 @@ public class GameSession {
     private Map<String, Integer> playerScores;
     private Map<String, Integer> playerWordIndexes; // Track each player's progress
     private Map<String, List<String>> playerCompletedWords; // Track completed words per player
+    private Map<String, Integer> playerHintCounts; // Hints taken on each player's current word
     private LocalDateTime startTime;
     private LocalDateTime endTime;
     private long levelStartTime;
@@ -35,6 +36,7 @@ public class GameSession {
         this.playerScores = new ConcurrentHashMap<>();
         this.playerWordIndexes = new ConcurrentHashMap<>();
         this.playerCompletedWords = new ConcurrentHashMap<>();
+        this.playerHintCounts = new ConcurrentHashMap<>();
         
         // Initialize levels
         for (int i = 0; i < levelCount; i++) {
@@ -55,6 +57,7 @@ public class GameSession {
             // Reset all players' progress for new level
             playerWordIndexes.clear();
             playerCompletedWords.clear();
+            playerHintCounts.clear();
         } else {
             endGame();
         }
@@ -98,6 +101,14 @@ public class GameSession {
     
     public void incrementPlayerWordIndex(String playerId) {
         playerWordIndexes.put(playerId, playerWordIndexes.getOrDefault(playerId, 0) + 1);
+        playerHintCounts.remove(playerId);
+    }
+    
+    /**
+     * Count one more hint on the player's current word and return the total so far
+     */
+    public int takeHint(String playerId) {
+        return playerHintCounts.merge(playerId, 1, Integer::sum);
     }
     
     public void addCompletedWord(String playerId, String word) {
@@ -0,0 +1,57 @@
+package com.wordbrain2.model.enums;
+
+/**
+ * Periods a global leaderboard covers. Timed windows are calendar aligned in UTC
+ * and start over at each boundary; weeks start on Monday.
+ */
+public enum LeaderboardWindow {
+    HOURLY,
+    DAILY,
+    WEEKLY,
+    ALL_TIME;
+    
+    private static final long HOUR_MS = 3_600_000L;
+    private static final long DAY_MS = 24 * HOUR_MS;
+    
+    /**
+     * Start of the period holding the instant, in epoch millis
+     */
+    public long periodStart(long epochMillis) {
+        switch (this) {
+            case HOURLY:
+                return Math.floorDiv(epochMillis, HOUR_MS) * HOUR_MS;
+            case DAILY:
+                return Math.floorDiv(epochMillis, DAY_MS) * DAY_MS;
+            case WEEKLY:
+                // Epoch day 0 was a Thursday, three days after a Monday
+                long day = Math.floorDiv(epochMillis, DAY_MS);
+                return (day - Math.floorMod(day + 3, 7)) * DAY_MS;
+            default:
+                return Long.MIN_VALUE;
+        }
+    }
+    
+    /**
+     * End, exclusive, of the period starting at periodStart
+     */
+    public long periodEnd(long periodStart) {
+        switch (this) {
+            case HOURLY:
+                return periodStart + HOUR_MS;
+            case DAILY:
+                return periodStart + DAY_MS;
+            case WEEKLY:
+                return periodStart + 7 * DAY_MS;
+            default:
+                return Long.MAX_VALUE;
+        }
+    }
+    
+    /**
+     * Parse a request parameter: hourly, daily, weekly or all (also all-time), any case
+     */
+    public static LeaderboardWindow fromParam(String value) {
+        String normalized = value.trim().toUpperCase().replace('-', '_');
+        return "ALL".equals(normalized) ? ALL_TIME : valueOf(normalized);
+    }
+}
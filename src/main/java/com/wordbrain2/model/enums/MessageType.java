@@ -2,60 +2,87 @@ package com.wordbrain2.model.enums;
 
 public enum MessageType {
     // Room Management
-    CREATE_ROOM,
-    JOIN_ROOM,
-    LEAVE_ROOM,
-    PLAYER_READY,
-    START_GAME,
+    CREATE_ROOM(1),
+    JOIN_ROOM(2),
+    LEAVE_ROOM(3),
+    PLAYER_READY(4),
+    START_GAME(5),
     
     // Game Flow
-    GAME_STARTING,
-    LEVEL_START,
-    LEVEL_END,
-    GAME_END,
+    GAME_STARTING(6),
+    LEVEL_START(7),
+    LEVEL_END(8),
+    GAME_END(9),
     
     // Player Actions
-    SUBMIT_WORD,
-    USE_BOOSTER,
-    REQUEST_HINT,
-    REQUEST_GRID_UPDATE,
-    LEVEL_COMPLETE,
+    SUBMIT_WORD(10),
+    USE_BOOSTER(11),
+    REQUEST_HINT(12),
+    REQUEST_GRID_UPDATE(13),
+    LEVEL_COMPLETE(14),
     
     // Booster Effects
-    BOOSTER_USED,
-    BOOSTER_ACTIVATED,
-    FREEZE_EFFECT,
-    REVEAL_REQUESTED,
-    TIME_ADDED,
-    SHIELD_ACTIVATED,
-    STREAK_SAVED,
-    LEVEL_SKIP_REQUESTED,
+    BOOSTER_USED(15),
+    BOOSTER_ACTIVATED(16),
+    FREEZE_EFFECT(17),
+    REVEAL_REQUESTED(18),
+    TIME_ADDED(19),
+    SHIELD_ACTIVATED(20),
+    STREAK_SAVED(21),
+    LEVEL_SKIP_REQUESTED(22),
     
     // Server Responses
-    CONNECTION_SUCCESS,
-    ROOM_CREATED,
-    ROOM_JOINED,
-    PLAYER_JOINED,
-    PLAYER_LEFT,
-    WORD_ACCEPTED,
-    WORD_REJECTED,
-    BOOSTER_APPLIED,
-    EFFECT_RECEIVED,
-    HINT_RESPONSE,
-    GRID_UPDATE,
+    CONNECTION_SUCCESS(23),
+    ROOM_CREATED(24),
+    ROOM_JOINED(25),
+    PLAYER_JOINED(26),
+    PLAYER_LEFT(27),
+    WORD_ACCEPTED(28),
+    WORD_REJECTED(29),
+    BOOSTER_APPLIED(30),
+    EFFECT_RECEIVED(31),
+    HINT_RESPONSE(32),
+    GRID_UPDATE(33),
+    GRID_DELTA(45),
     
     // Real-time Updates
-    LEADERBOARD_UPDATE,
-    OPPONENT_SCORED,
-    TIMER_UPDATE,
-    PLAYER_DISCONNECTED,
-    PLAYER_RECONNECTED,
-    LEVEL_RESULTS,
-    NEXT_LEVEL_STARTING,
-    ROOM_STATE,
+    LEADERBOARD_UPDATE(34),
+    OPPONENT_SCORED(35),
+    TIMER_UPDATE(36),
+    PLAYER_DISCONNECTED(37),
+    PLAYER_RECONNECTED(38),
+    LEVEL_RESULTS(39),
+    NEXT_LEVEL_STARTING(40),
+    ROOM_STATE(41),
     
     // Error Messages
-    ERROR,
-    INVALID_ACTION,
-    TIMEOUT
+    ERROR(42),
+    INVALID_ACTION(43),
+    TIMEOUT(44),
+    
+    // Clock sync ping (server) and pong (client)
+    TIME_SYNC(46);
+    
+    // Fixed ids used in the v2 frame header; never renumber, only add
+    private static final MessageType[] BY_WIRE_ID = new MessageType[256];
+    
+    static {
+        for (MessageType type : values()) {
+            BY_WIRE_ID[type.wireId] = type;
+        }
+    }
+    
+    private final int wireId;
+    
+    MessageType(int wireId) {
+        this.wireId = wireId;
+    }
+    
+    public int getWireId() {
+        return wireId;
+    }
+    
+    public static MessageType fromWireId(int wireId) {
+        return wireId > 0 && wireId < BY_WIRE_ID.length ? BY_WIRE_ID[wireId] : null;
+    }
 }
\ No newline at end of file
@@ -1,24 +1,68 @@
 package com.wordbrain2.model.game;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.wordbrain2.util.Alphabet;
+import com.wordbrain2.util.CellMasks;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Random;
 
+/**
+ * A level's board. The letters live in a packed form, one byte per cell indexed
+ * row * cols + col, with long masks of the cells in the shape, the active cells
+ * and the cells holding a letter; the Cell objects are kept in step as a view for
+ * callers that work cell by cell. Boards are limited to 64 cells so each mask
+ * fits a long. Each byte is the letter's index in the grid's Alphabet, normally
+ * its dictionary's, so the board can hold letters beyond Latin-1.
+ */
 @Data
 public class Grid {
     private int rows;
     private int cols;
     private Cell[][] cells;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private byte[] letters;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Alphabet alphabet;
+    @Setter(AccessLevel.NONE)
+    private long shapeMask;
+    @Setter(AccessLevel.NONE)
+    private long activeMask;
+    // Active cells with a letter; cleared cells hold '\0'
+    @Setter(AccessLevel.NONE)
+    private long occupiedMask;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long[] neighbours;
     private Shape shape;
     private List<Word> solutions;
     private int totalCells;
+    private long version;
+    
+    // Recent deltas, oldest first, so a client that fell behind can catch up
+    private static final int DELTA_HISTORY = 16;
+    private final transient Deque<GridDelta> recentDeltas = new ArrayDeque<>();
     
     public Grid(int rows, int cols) {
+        this(rows, cols, new Alphabet());
+    }
+    
+    public Grid(int rows, int cols, Alphabet alphabet) {
         this.rows = rows;
         this.cols = cols;
+        this.alphabet = alphabet;
         this.cells = new Cell[rows][cols];
+        this.neighbours = CellMasks.neighbours(rows, cols);
+        this.letters = new byte[rows * cols];
         this.solutions = new ArrayList<>();
         initializeCells();
     }
@@ -27,21 +71,26 @@ public class Grid {
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < cols; j++) {
                 cells[i][j] = new Cell(i, j);
+                letters[index(i, j)] = (byte) alphabet.indexOf(cells[i][j].getCharacter());
             }
         }
+        shapeMask = CellMasks.all(rows * cols);
+        activeMask = shapeMask;
+        occupiedMask = shapeMask;
     }
     
     public void applyShape(Shape shape) {
         this.shape = shape;
         this.totalCells = 0;
+        this.shapeMask = 0;
         
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < cols; j++) {
-                if (shape.isActive(i, j)) {
-                    cells[i][j].setActive(true);
+                boolean inShape = shape.isActive(i, j);
+                setCell(i, j, cells[i][j].getCharacter(), inShape);
+                if (inShape) {
+                    shapeMask |= bit(index(i, j));
                     totalCells++;
-                } else {
-                    cells[i][j].setActive(false);
                 }
             }
         }
@@ -70,7 +119,7 @@ public class Grid {
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < cols; j++) {
                 if (cells[i][j].isActive() && letterIndex < letterList.size()) {
-                    cells[i][j].setCharacter(letterList.get(letterIndex));
+                    setCell(i, j, letterList.get(letterIndex), true);
                     letterIndex++;
                 }
             }
@@ -83,7 +132,21 @@ public class Grid {
         }
     }
     
-    
+    /**
+     * Load a generated layout: letters[row][col] for every active cell, '\0' where
+     * the cell starts empty, along with the solution path of each target word
+     */
+    public void fillWithSolution(char[][] letters, List<Word> solutions) {
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (cells[i][j].isActive()) {
+                    setCell(i, j, letters[i][j], true);
+                }
+            }
+        }
+        this.solutions = new ArrayList<>(solutions);
+    }
+
     public Cell getCell(int row, int col) {
         if (row >= 0 && row < rows && col >= 0 && col < cols) {
             return cells[row][col];
@@ -91,94 +154,154 @@ public class Grid {
         return null;
     }
     
+    /**
+     * Index of a cell in the packed letters and in the masks
+     */
+    public int index(int row, int col) {
+        return row * cols + col;
+    }
+    
+    public char letterAt(int index) {
+        return alphabet.letterAt(letters[index] & 0xFF);
+    }
+    
+    /**
+     * The letters the packed bytes index into
+     */
+    @JsonIgnore
+    public Alphabet getAlphabet() {
+        return alphabet;
+    }
+    
     public boolean isValidPath(List<Cell> path) {
-        if (path.isEmpty()) return false;
-        
-        // Check if all cells are active and adjacent
-        for (int i = 0; i < path.size() - 1; i++) {
-            Cell current = path.get(i);
-            Cell next = path.get(i + 1);
-            
-            if (!current.isActive() || !next.isActive()) {
-                return false;
-            }
-            
-            if (!areAdjacent(current, next)) {
-                return false;
+        return pathMask(path, activeMask) != 0;
+    }
+    
+    /**
+     * The path's cells as a mask, or 0 unless it is a non-empty chain of distinct,
+     * adjacent cells that all lie within allowed; checked on the masks alone
+     */
+    public long pathMask(List<Cell> path, long allowed) {
+        long used = 0;
+        int previous = -1;
+        for (int i = 0, n = path.size(); i < n; i++) {
+            Cell cell = path.get(i);
+            if (cell == null || cell.getRow() < 0 || cell.getRow() >= rows
+                || cell.getCol() < 0 || cell.getCol() >= cols) {
+                return 0;
             }
-        }
-        
-        // Check if path doesn't repeat cells
-        for (int i = 0; i < path.size(); i++) {
-            for (int j = i + 1; j < path.size(); j++) {
-                if (path.get(i).equals(path.get(j))) {
-                    return false;
-                }
+            int index = index(cell.getRow(), cell.getCol());
+            long bit = bit(index);
+            if ((allowed & bit) == 0 || (used & bit) != 0
+                || (previous >= 0 && (neighbours[previous] & bit) == 0)) {
+                return 0;
             }
+            used |= bit;
+            previous = index;
         }
-        
-        return true;
-    }
-    
-    private boolean areAdjacent(Cell c1, Cell c2) {
-        int rowDiff = Math.abs(c1.getRow() - c2.getRow());
-        int colDiff = Math.abs(c1.getCol() - c2.getCol());
-        return rowDiff <= 1 && colDiff <= 1 && (rowDiff + colDiff) > 0;
+        return used;
     }
     
-    // Remove word and apply gravity effect
-    public void removeWordAndApplyGravity(List<Cell> path) {
+    // Remove word and apply gravity effect; returns what changed
+    public synchronized GridDelta removeWordAndApplyGravity(List<Cell> path) {
         // First, clear the cells in the path
+        List<GridDelta.Position> cleared = new ArrayList<>(path.size());
         for (Cell cell : path) {
-            cells[cell.getRow()][cell.getCol()].setCharacter('\0');
-            cells[cell.getRow()][cell.getCol()].setActive(false);
+            setCell(cell.getRow(), cell.getCol(), '\0', false);
+            cleared.add(new GridDelta.Position(cell.getRow(), cell.getCol()));
         }
         
         // Apply gravity effect - cells fall down to fill empty spaces
-        applyGravity();
+        List<GridDelta.Move> moves = new ArrayList<>();
+        applyGravity(moves);
+        
+        GridDelta delta = new GridDelta(version, version + 1, cleared, moves);
+        version++;
+        recentDeltas.addLast(delta);
+        if (recentDeltas.size() > DELTA_HISTORY) {
+            recentDeltas.removeFirst();
+        }
+        return delta;
     }
     
-    private void applyGravity() {
-        // Process each column from bottom to top
+    /**
+     * Deltas that bring a grid at knownVersion up to date, in order; null when
+     * they are no longer held and the client needs a full snapshot
+     */
+    public synchronized List<GridDelta> deltasSince(long knownVersion) {
+        if (knownVersion == version) {
+            return List.of();
+        }
+        if (knownVersion > version || recentDeltas.isEmpty()
+            || recentDeltas.peekFirst().baseVersion() > knownVersion) {
+            return null;
+        }
+        
+        List<GridDelta> deltas = new ArrayList<>();
+        for (GridDelta delta : recentDeltas) {
+            if (delta.baseVersion() >= knownVersion) {
+                deltas.add(delta);
+            }
+        }
+        return deltas;
+    }
+    
+    private void applyGravity(List<GridDelta.Move> moves) {
+        // Process each column from bottom to top, settling letters onto the lowest free shape cells
         for (int col = 0; col < cols; col++) {
-            // Find all non-empty cells in this column
-            List<Character> activeCells = new ArrayList<>();
-            
+            int write = rows - 1;
             for (int row = rows - 1; row >= 0; row--) {
-                if (cells[row][col].isActive() && cells[row][col].getCharacter() != '\0') {
-                    activeCells.add(cells[row][col].getCharacter());
+                int from = index(row, col);
+                if ((occupiedMask & bit(from)) == 0) {
+                    continue;
                 }
-            }
-            
-            // Clear the column
-            for (int row = 0; row < rows; row++) {
-                if (shape.isActive(row, col)) {
-                    cells[row][col].setCharacter('\0');
-                    cells[row][col].setActive(false);
+                while ((shapeMask & bit(index(write, col))) == 0) {
+                    write--;
                 }
+                if (write != row) {
+                    setCell(write, col, letterAt(from), true);
+                    moves.add(new GridDelta.Move(col, row, write));
+                }
+                write--;
             }
             
-            // Place cells back from bottom
-            int activeIndex = 0;
-            for (int row = rows - 1; row >= 0 && activeIndex < activeCells.size(); row--) {
-                if (shape.isActive(row, col)) {
-                    cells[row][col].setCharacter(activeCells.get(activeIndex));
-                    cells[row][col].setActive(true);
-                    activeIndex++;
+            // Shape cells above the settled letters, including the ones letters fell from, are empty
+            for (; write >= 0; write--) {
+                if ((shapeMask & bit(index(write, col))) != 0) {
+                    setCell(write, col, '\0', false);
                 }
             }
         }
     }
     
-    // Get grid state as 2D character array for frontend
-    public Character[][] getGridState() {
-        Character[][] state = new Character[rows][cols];
+    /**
+     * Write one cell to both the packed letters and the Cell view
+     */
+    private void setCell(int row, int col, char character, boolean active) {
+        byte letter = (byte) alphabet.indexOf(character);
+        Cell cell = cells[row][col];
+        cell.setCharacter(character);
+        cell.setActive(active);
+        
+        int index = index(row, col);
+        long bit = bit(index);
+        letters[index] = letter;
+        activeMask = active ? activeMask | bit : activeMask & ~bit;
+        occupiedMask = active && character != '\0' ? occupiedMask | bit : occupiedMask & ~bit;
+    }
+    
+    private static long bit(int index) {
+        return 1L << index;
+    }
+    
+    // Get grid state as 2D character array for frontend; '\0' marks an empty cell
+    public char[][] getGridState() {
+        char[][] state = new char[rows][cols];
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < cols; j++) {
-                if (cells[i][j].isActive() && cells[i][j].getCharacter() != '\0') {
-                    state[i][j] = cells[i][j].getCharacter();
-                } else {
-                    state[i][j] = null;
+                int index = index(i, j);
+                if ((occupiedMask & bit(index)) != 0) {
+                    state[i][j] = letterAt(index);
                 }
             }
         }
@@ -187,13 +310,6 @@ public class Grid {
     
     // Check if grid is empty (level complete)
     public boolean isEmpty() {
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                if (cells[i][j].isActive() && cells[i][j].getCharacter() != '\0') {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return occupiedMask == 0;
     }
-}
\ No newline at end of file
+}
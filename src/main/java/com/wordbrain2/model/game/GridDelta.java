@@ -0,0 +1,19 @@
+package com.wordbrain2.model.game;
+
+import java.util.List;
+
+/**
+ * The change made by one removeWordAndApplyGravity call.
+ *
+ * Replaying it on the grid at baseVersion gives the grid at version: empty
+ * every cleared cell, then apply the moves in order, each moving a letter
+ * down its column from fromRow to toRow and leaving fromRow empty.
+ */
+public record GridDelta(long baseVersion, long version, List<Position> cleared, List<Move> moves) {
+
+    public record Position(int row, int col) {
+    }
+
+    public record Move(int col, int fromRow, int toRow) {
+    }
+}
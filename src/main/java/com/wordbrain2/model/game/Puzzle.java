@@ -0,0 +1,12 @@
+package com.wordbrain2.model.game;
+
+import java.util.List;
+
+/**
+ * A level's board ready to play: the filled grid, the word lengths shown to
+ * players and the words themselves in the order they must be found.
+ *
+ * The grid is handed to exactly one level, which then mutates it.
+ */
+public record Puzzle(Grid grid, List<Integer> wordTargets, List<String> targetWords, boolean solvable) {
+}
@@ -1,55 +1,81 @@
 package com.wordbrain2.model.scoring;
 
+import com.wordbrain2.util.RankIndex;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
-import lombok.AllArgsConstructor;
-import lombok.Builder;
 import java.util.List;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.stream.Collectors;
 
+/**
+ * Scores ranked by total points in a RankIndex, so an update, a player's rank and
+ * the top of the board each cost O(log n) however many players it holds.
+ * Points are read when a score is submitted; ties go to whoever reached the
+ * score first.
+ */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
-@Builder
 public class Leaderboard {
     private String roomCode;
-    private List<Score> scores;
     private long lastUpdated;
     private int currentLevel;
     private int totalLevels;
+    @Getter(AccessLevel.NONE)
+    private final RankIndex<Score> index = new RankIndex<>();
     
     public Leaderboard(String roomCode) {
         this.roomCode = roomCode;
-        this.scores = new ArrayList<>();
         this.lastUpdated = System.currentTimeMillis();
     }
     
     public void updateScore(Score score) {
-        scores.removeIf(s -> s.getPlayerId().equals(score.getPlayerId()));
-        scores.add(score);
-        sortAndRank();
+        index.put(score.getPlayerId(), score.getTotalPoints(), score);
         this.lastUpdated = System.currentTimeMillis();
     }
     
-    public void sortAndRank() {
-        scores.sort(Comparator.comparing(Score::getTotalPoints).reversed());
-        for (int i = 0; i < scores.size(); i++) {
-            scores.get(i).setRank(i + 1);
-        }
+    /**
+     * Every score, best first, with ranks filled in
+     */
+    public List<Score> getScores() {
+        return getScores(1, Integer.MAX_VALUE);
     }
     
     public List<Score> getTopScores(int limit) {
-        return scores.stream()
-            .limit(limit)
-            .collect(Collectors.toList());
+        return getScores(1, limit);
+    }
+    
+    /**
+     * Up to limit scores from the 1-based rank down, with ranks filled in
+     */
+    public List<Score> getScores(int fromRank, int limit) {
+        List<Score> scores = index.range(fromRank, limit);
+        for (int i = 0; i < scores.size(); i++) {
+            scores.get(i).setRank(fromRank + i);
+        }
+        return scores;
     }
     
     public Score getPlayerScore(String playerId) {
-        return scores.stream()
-            .filter(s -> s.getPlayerId().equals(playerId))
-            .findFirst()
-            .orElse(null);
+        Score score = index.get(playerId);
+        if (score != null) {
+            score.setRank(index.rankOf(playerId));
+        }
+        return score;
+    }
+    
+    /**
+     * 1-based rank of the player, or -1 when they have no score here
+     */
+    public int getRank(String playerId) {
+        return index.rankOf(playerId);
+    }
+    
+    public int size() {
+        return index.size();
+    }
+    
+    public void clear() {
+        index.clear();
+        this.lastUpdated = System.currentTimeMillis();
     }
-}
\ No newline at end of file
+}
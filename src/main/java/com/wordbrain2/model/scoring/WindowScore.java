@@ -0,0 +1,7 @@
+package com.wordbrain2.model.scoring;
+
+/**
+ * One player's standing on a windowed leaderboard
+ */
+public record WindowScore(int rank, String playerId, long points) {
+}
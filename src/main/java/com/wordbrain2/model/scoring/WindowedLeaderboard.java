@@ -0,0 +1,89 @@
+package com.wordbrain2.model.scoring;
+
+import com.wordbrain2.model.enums.LeaderboardWindow;
+import com.wordbrain2.util.RankIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Points earned during the current period of a leaderboard window, ranked.
+ *
+ * Each period has its own RankIndex updated as points come in, so queries never
+ * merge or sort. Rollover is lazy: the first call past the period's end swaps
+ * in an empty index with one compare-and-set, and the old period is simply
+ * dropped. A point scored exactly at the boundary may still land in the old
+ * period. A period holds at most capacity players; beyond that the lowest
+ * ranked is evicted, and if they score again they restart from those points.
+ */
+public class WindowedLeaderboard {
+    private final LeaderboardWindow window;
+    private final int capacity;
+    private final AtomicReference<Period> current;
+    
+    public WindowedLeaderboard(LeaderboardWindow window, int capacity, long now) {
+        this.window = window;
+        this.capacity = capacity;
+        this.current = new AtomicReference<>(newPeriod(now));
+    }
+    
+    public LeaderboardWindow getWindow() {
+        return window;
+    }
+    
+    /**
+     * Credit the player with points in the period holding now; returns their period total
+     */
+    public long addPoints(String playerId, int points, long now) {
+        RankIndex<String> index = period(now).index();
+        long total = index.add(playerId, points, playerId);
+        if (capacity > 0 && index.size() > capacity) {
+            index.trimTo(capacity);
+        }
+        return total;
+    }
+    
+    public List<WindowScore> getTopScores(int limit, long now) {
+        List<RankIndex.Entry<String>> entries = period(now).index().entries(1, limit);
+        List<WindowScore> scores = new ArrayList<>(entries.size());
+        for (RankIndex.Entry<String> entry : entries) {
+            scores.add(new WindowScore(entry.rank(), entry.id(), entry.score()));
+        }
+        return scores;
+    }
+    
+    /**
+     * The player's standing this period, or null when they have not scored in it
+     */
+    public WindowScore getPlayerScore(String playerId, long now) {
+        RankIndex.Entry<String> entry = period(now).index().entry(playerId);
+        return entry != null ? new WindowScore(entry.rank(), entry.id(), entry.score()) : null;
+    }
+    
+    public long getPeriodStart(long now) {
+        return period(now).start();
+    }
+    
+    public long getPeriodEnd(long now) {
+        return period(now).end();
+    }
+    
+    private Period period(long now) {
+        Period period = current.get();
+        if (now < period.end()) {
+            return period;
+        }
+        Period next = newPeriod(now);
+        // Whoever loses the race uses the winner's period
+        return current.compareAndSet(period, next) ? next : current.get();
+    }
+    
+    private Period newPeriod(long now) {
+        long start = window.periodStart(now);
+        return new Period(start, window.periodEnd(start), new RankIndex<>());
+    }
+    
+    private record Period(long start, long end, RankIndex<String> index) {
+    }
+}
@@ -10,6 +10,8 @@ import com.wordbrain2.service.game.TimerService;
 import com.wordbrain2.service.scoring.StreakManager;
 import com.wordbrain2.service.messaging.MessageBroadcastService;
 import com.wordbrain2.model.enums.MessageType;
+import com.wordbrain2.websocket.message.TimeAddedPayload;
+import com.wordbrain2.websocket.message.TimerUpdatePayload;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.util.List;
@@ -113,11 +115,10 @@ public class BoosterEffectApplier {
         // Add 5 seconds to the timer
         timerService.addTime(roomCode, 5);
         
-        Map<String, Object> timeData = new HashMap<>();
-        timeData.put("playerId", playerId);
-        timeData.put("seconds", 5);
-        timeData.put("message", "+5 seconds!");
-        messageBroadcastService.broadcastToRoom(roomCode, MessageType.TIME_ADDED, timeData);
+        // Carries the moved deadline so clients correct their local countdown
+        TimerUpdatePayload clock = timerService.snapshot(roomCode);
+        messageBroadcastService.broadcastToRoom(roomCode, MessageType.TIME_ADDED, new TimeAddedPayload(
+            playerId, 5, "+5 seconds!", clock.timeRemaining(), clock.serverTime(), clock.deadline()));
     }
     
     private void applyShield(String playerId, String roomCode) {
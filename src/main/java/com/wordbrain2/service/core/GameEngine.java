@@ -8,12 +8,24 @@ import com.wordbrain2.model.enums.GamePhase;
 import com.wordbrain2.model.enums.SubmissionResult;
 import com.wordbrain2.model.game.*;
 import com.wordbrain2.service.game.DictionaryService;
-import com.wordbrain2.service.game.GridGeneratorService;
+import com.wordbrain2.service.game.GridSolverService;
 import com.wordbrain2.service.game.PathValidatorService;
+import com.wordbrain2.service.game.PuzzlePoolService;
 import com.wordbrain2.service.game.TimerService;
 import com.wordbrain2.service.game.WordValidationService;
+import com.wordbrain2.service.scoring.LeaderboardService;
 import com.wordbrain2.service.scoring.ScoreCalculator;
 import com.wordbrain2.service.scoring.StatisticsService;
+import com.wordbrain2.websocket.message.GridDeltaPayload;
+import com.wordbrain2.websocket.message.GridSnapshotPayload;
+import com.wordbrain2.websocket.message.GridUpdatePayload;
+import com.wordbrain2.websocket.message.LeaderboardPayload;
+import com.wordbrain2.websocket.message.LevelStartPayload;
+import com.wordbrain2.websocket.message.SubmitWordPayload;
+import com.wordbrain2.websocket.message.TimerUpdatePayload;
+import com.wordbrain2.websocket.message.WordAcceptedPayload;
+import com.wordbrain2.websocket.message.WordRejectedPayload;
+import com.wordbrain2.websocket.message.WordResultPayload;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -25,31 +37,37 @@ import java.util.stream.Collectors;
 public class GameEngine {
     
     private final RoomService roomService;
-    private final GridGeneratorService gridGenerator;
+    private final PuzzlePoolService puzzlePool;
+    private final GridSolverService gridSolver;
     private final WordValidationService wordValidator;
     private final DictionaryService dictionaryService;
     private final ScoreCalculator scoreCalculator;
     private final PathValidatorService pathValidator;
     private final StatisticsService statisticsService;
+    private final LeaderboardService leaderboardService;
     private final GameConfig gameConfig;
     private final TimerService timerService;
     
     public GameEngine(RoomService roomService, 
-                      GridGeneratorService gridGenerator,
+                      PuzzlePoolService puzzlePool,
+                      GridSolverService gridSolver,
                       WordValidationService wordValidator,
                       DictionaryService dictionaryService,
                       ScoreCalculator scoreCalculator,
                       PathValidatorService pathValidator,
                       StatisticsService statisticsService,
+                      LeaderboardService leaderboardService,
                       GameConfig gameConfig,
                       TimerService timerService) {
         this.roomService = roomService;
-        this.gridGenerator = gridGenerator;
+        this.puzzlePool = puzzlePool;
+        this.gridSolver = gridSolver;
         this.wordValidator = wordValidator;
         this.dictionaryService = dictionaryService;
         this.scoreCalculator = scoreCalculator;
         this.pathValidator = pathValidator;
         this.statisticsService = statisticsService;
+        this.leaderboardService = leaderboardService;
         this.gameConfig = gameConfig;
         this.timerService = timerService;
     }
@@ -70,6 +88,11 @@ public class GameEngine {
             session.updatePlayerScore(player.getId(), 0);
         });
         
+        // Have the pools warm up the puzzles this game will ask for
+        for (int levelNumber = 1; levelNumber <= room.getLevelCount(); levelNumber++) {
+            puzzlePool.prefetch(room.getTopic(), levelNumber);
+        }
+        
         log.info("Game started for room: {}", roomCode);
         
         Map<String, Object> result = new HashMap<>();
@@ -80,7 +103,10 @@ public class GameEngine {
         return result;
     }
     
-    public Map<String, Object> startLevel(String roomCode, int levelNumber) {
+    /**
+     * @param onTimeUp run on the room's mailbox when the level clock runs out
+     */
+    public LevelStartPayload startLevel(String roomCode, int levelNumber, Runnable onTimeUp) {
         Room room = roomService.getRoom(roomCode);
         if (room == null || room.getGameSession() == null) {
             return null;
@@ -93,49 +119,38 @@ public class GameEngine {
             return null;
         }
         
-        // Generate grid for this level
-        int gridSize = calculateGridSize(levelNumber);
-        Grid grid = gridGenerator.generateGrid(gridSize, gridSize, levelNumber);
+        // Take a ready puzzle for this level; the pool only generates inline when it has run dry
+        Puzzle puzzle = puzzlePool.take(room.getTopic(), levelNumber);
+        Grid grid = puzzle.grid();
+        List<Integer> wordTargets = puzzle.wordTargets();
+        List<String> targetWords = puzzle.targetWords();
         level.setGrid(grid);
-        
-        // Generate word targets first (what words player needs to find)
-        List<Integer> wordTargets = generateWordTargets(levelNumber, grid.getTotalCells());
         level.setWordTargets(wordTargets);
-        
-        // Get words matching the target lengths from dictionary
-        List<String> targetWords = new ArrayList<>();
-        for (Integer targetLength : wordTargets) {
-            String word = dictionaryService.getRandomWordByLength(room.getTopic(), targetLength);
-            if (word != null) {
-                targetWords.add(word.toUpperCase());
-            }
-        }
-        
-        // Fill grid with scrambled letters from target words
-        grid.fillWithLetters(targetWords);
         level.setTargetWords(targetWords);
         
         // Create word slots info for UI
-        List<Map<String, Object>> wordSlots = new ArrayList<>();
+        List<LevelStartPayload.WordSlot> wordSlots = new ArrayList<>(targetWords.size());
         for (int i = 0; i < targetWords.size(); i++) {
-            Map<String, Object> slot = new HashMap<>();
-            slot.put("index", i);
-            slot.put("length", targetWords.get(i).length());
-            slot.put("word", targetWords.get(i)); // For debugging, remove in production
-            slot.put("completed", false);
-            slot.put("active", i == 0); // Only first word is active initially
-            wordSlots.add(slot);
+            String target = targetWords.get(i);
+            // word is for debugging, remove in production; only the first slot starts active
+            wordSlots.add(new LevelStartPayload.WordSlot(i, target.length(), target, false, i == 0));
         }
         
-        Map<String, Object> result = new HashMap<>();
-        result.put("level", levelNumber);
-        result.put("grid", convertGridToMap(grid));
-        result.put("duration", level.getDuration());
-        result.put("serverTime", System.currentTimeMillis());
-        result.put("wordTargets", wordTargets); // Legacy support
-        result.put("wordSlots", wordSlots); // New ordered word slots
-        result.put("currentWordIndex", 0); // Track which word should be found
-        return result;
+        // The level clock is server-authoritative; clients count down to its deadline
+        // locally and only hear from the server again when it moves
+        timerService.startTimer(roomCode, level.getDuration(), null, onTimeUp);
+        TimerUpdatePayload clock = timerService.snapshot(roomCode);
+        
+        return new LevelStartPayload(
+            levelNumber,
+            GridSnapshotPayload.of(grid),
+            level.getDuration(),
+            clock.serverTime(),
+            clock.deadline(),
+            wordTargets, // Legacy support
+            wordSlots,   // New ordered word slots
+            0            // Track which word should be found
+        );
     }
     
     // Overloaded method for WebSocket handler
@@ -166,10 +181,11 @@ public class GameEngine {
             isCorrectOrder = expectedWord.equalsIgnoreCase(word);
         }
         
+        long submittedAt = System.currentTimeMillis();
         if (isValid && inDictionary && isCorrectOrder) {
             // Calculate score
-            long timeRemaining = calculateTimeRemaining(session);
-            double speedFactor = calculateSpeedFactor(timeRemaining, level.getDuration());
+            double speedFactor = scoreCalculator.calculateSpeedFactor(
+                submittedAt, session.getLevelStartTime(), level.getDuration());
             int basePoints = gameConfig.getScore().getBasePoints();
             // Find player in room
             Player player = room.getPlayers().stream()
@@ -188,10 +204,13 @@ public class GameEngine {
             // Update player score
             player.addScore(points);
             player.incrementStreak();
+            leaderboardService.updateScore(roomCode, playerId, points);
             
             // Move to next word for this player
             session.incrementPlayerWordIndex(playerId);
             session.addCompletedWord(playerId, word);
+            statisticsService.recordWordSubmission(roomCode, playerId, true, points,
+                submittedAt - session.getLevelStartTime());
             
             result.put("result", SubmissionResult.CORRECT);
             result.put("points", points);
@@ -226,32 +245,31 @@ public class GameEngine {
                            "Wrong order - find word #" + (currentIndex + 1) + " first";
             result.put("reason", reason);
             result.put("currentWordIndex", currentIndex);
+            statisticsService.recordWordSubmission(roomCode, playerId, false, 0,
+                submittedAt - session.getLevelStartTime());
         }
         
         return result;
     }
     
-    public Map<String, Object> submitWord(String roomCode, String playerId, Object data) {
+    /**
+     * @param submittedAt server time the player submitted at, compensated for their latency
+     */
+    public WordResultPayload submitWord(String roomCode, String playerId, SubmitWordPayload submission, long submittedAt) {
         Room room = roomService.getRoom(roomCode);
         if (room == null || room.getGameSession() == null) {
             return null;
         }
         
-        Map<String, Object> submission = (Map<String, Object>) data;
-        List<Map<String, Object>> pathData = (List<Map<String, Object>>) submission.get("path");
-        String word = (String) submission.get("word");
+        String word = submission.word();
         
         // Convert path data to Cell objects
         GameSession session = room.getGameSession();
         Level level = session.getCurrentLevel();
         Grid grid = level.getGrid();
         
-        List<Cell> path = pathData.stream()
-            .map(cellData -> {
-                int row = ((Number) cellData.get("row")).intValue();
-                int col = ((Number) cellData.get("col")).intValue();
-                return grid.getCell(row, col);
-            })
+        List<Cell> path = submission.path().stream()
+            .map(position -> grid.getCell(position.row(), position.col()))
             .collect(Collectors.toList());
         
         // Check if word length matches any target
@@ -263,12 +281,10 @@ public class GameEngine {
         boolean isValid = wordValidator.validateWord(word, path, grid, topic);
         boolean inDictionary = dictionaryService.isValidWord(word, topic);
         
-        Map<String, Object> result = new HashMap<>();
-        
         if (isValid && inDictionary && matchesTarget) {
             // Calculate score
-            long timeRemaining = calculateTimeRemaining(session);
-            double speedFactor = calculateSpeedFactor(timeRemaining, level.getDuration());
+            double speedFactor = scoreCalculator.calculateSpeedFactor(
+                submittedAt, session.getLevelStartTime(), level.getDuration());
             int basePoints = gameConfig.getScore().getBasePoints();
             // Find player in room
             Player player = room.getPlayers().stream()
@@ -277,9 +293,7 @@ public class GameEngine {
                 .orElse(null);
             
             if (player == null) {
-                result.put("result", SubmissionResult.INCORRECT);
-                result.put("reason", "Player not found");
-                return result;
+                return WordRejectedPayload.of(word, "Player not found");
             }
             
             int points = scoreCalculator.calculateScore(basePoints, speedFactor, player);
@@ -288,26 +302,18 @@ public class GameEngine {
             player.addScore(points);
             player.incrementStreak();
             session.updatePlayerScore(playerId, points);
+            // Room, all-time and windowed boards; this runs on the room's mailbox
+            leaderboardService.updateScore(roomCode, playerId, points);
             
             // Remove word from grid and apply gravity
-            grid.removeWordAndApplyGravity(path);
+            GridDelta delta = grid.removeWordAndApplyGravity(path);
             
             // Mark word as completed
             level.addCompletedWord(word);
+            statisticsService.recordWordSubmission(roomCode, playerId, true, points,
+                submittedAt - session.getLevelStartTime());
             
-            result.put("correct", true);
-            result.put("valid", true);
-            result.put("word", word);
-            result.put("points", points);
-            result.put("streak", player.getCurrentStreak());
-            result.put("gridUpdated", true);
-            
-            // Check if level is complete
-            if (level.isComplete()) {
-                result.put("levelComplete", true);
-            }
-            
-            return result;
+            return WordAcceptedPayload.of(word, points, player.getCurrentStreak(), level.isComplete(), delta.version());
         } else {
             // Wrong answer
             // Find and update player
@@ -322,17 +328,14 @@ public class GameEngine {
             String reason = !inDictionary ? "Not in dictionary" : 
                            !isValid ? "Invalid path" : 
                            !matchesTarget ? "Word length doesn't match target" : "Unknown error";
+            statisticsService.recordWordSubmission(roomCode, playerId, false, 0,
+                submittedAt - session.getLevelStartTime());
             
-            return Map.of(
-                "correct", false,
-                "valid", false,
-                "word", word,
-                "reason", reason
-            );
+            return WordRejectedPayload.of(word, reason);
         }
     }
     
-    public Map<String, Object> getUpdatedGrid(String roomCode) {
+    public GridUpdatePayload getUpdatedGrid(String roomCode) {
         Room room = roomService.getRoom(roomCode);
         if (room == null || room.getGameSession() == null) {
             return null;
@@ -346,12 +349,7 @@ public class GameEngine {
         
         Grid grid = level.getGrid();
         
-        Map<String, Object> result = new HashMap<>();
-        result.put("grid", convertGridToMap(grid));
-        result.put("isEmpty", grid.isEmpty());
-        result.put("remainingTargets", level.getRemainingTargets());
-        
-        return result;
+        return new GridUpdatePayload(GridSnapshotPayload.of(grid), grid.isEmpty(), level.getRemainingTargets());
     }
     
     public Map<String, Object> useBooster(String roomCode, String playerId, Object data) {
@@ -381,6 +379,7 @@ public class GameEngine {
         if (session != null) {
             session.setPhase(GamePhase.LEVEL_END);
         }
+        timerService.pauseTimer(roomCode);
         
         Map<String, Object> result = new HashMap<>();
         result.put("status", "PAUSED");
@@ -398,6 +397,7 @@ public class GameEngine {
         if (session != null) {
             session.setPhase(GamePhase.PLAYING);
         }
+        timerService.resumeTimer(roomCode);
         
         Map<String, Object> result = new HashMap<>();
         result.put("status", "RESUMED");
@@ -422,6 +422,7 @@ public class GameEngine {
         if (session != null) {
             session.endGame();
         }
+        timerService.stopTimer(roomCode);
         
         Map<String, Object> result = new HashMap<>();
         result.put("status", "ENDED");
@@ -429,50 +430,6 @@ public class GameEngine {
         return result;
     }
     
-    private List<Integer> generateWordTargets(int levelNumber, int totalCells) {
-        List<Integer> targets = new ArrayList<>();
-        
-        // Level 1: 1 word (3-4 letters)
-        if (levelNumber == 1) {
-            targets.add(Math.min(4, totalCells));
-        }
-        // Level 2-3: 2 words
-        else if (levelNumber <= 3) {
-            targets.add(3);
-            targets.add(4);
-        }
-        // Level 4-6: 3 words with increasing length
-        else if (levelNumber <= 6) {
-            targets.add(3);
-            targets.add(4);
-            targets.add(5);
-        }
-        // Level 7-9: 4 words
-        else if (levelNumber <= 9) {
-            targets.add(3);
-            targets.add(4);
-            targets.add(5);
-            targets.add(6);
-        }
-        // Level 10+: 5+ words with varied lengths
-        else {
-            targets.add(4);
-            targets.add(5);
-            targets.add(5);
-            targets.add(6);
-            targets.add(7);
-        }
-        
-        // Ensure total letters don't exceed grid capacity
-        int totalLetters = targets.stream().mapToInt(Integer::intValue).sum();
-        while (totalLetters > totalCells && !targets.isEmpty()) {
-            targets.remove(targets.size() - 1);
-            totalLetters = targets.stream().mapToInt(Integer::intValue).sum();
-        }
-        
-        return targets;
-    }
-    
     public Map<String, Object> getHint(String roomCode, String playerId) {
         Room room = roomService.getRoom(roomCode);
         if (room == null) {
@@ -486,86 +443,100 @@ public class GameEngine {
         
         Level level = session.getCurrentLevel();
         List<String> targetWords = level.getTargetWords();
+        int wordIndex = session.getPlayerWordIndex(playerId);
         
         Map<String, Object> result = new HashMap<>();
-        if (!targetWords.isEmpty()) {
-            String hint = targetWords.get(0).substring(0, Math.min(3, targetWords.get(0).length()));
-            result.put("hint", hint);
+        if (wordIndex >= targetWords.size()) {
+            return result;
+        }
+        
+        // Reveal the player's current word one cell per hint, along a path that keeps the
+        // rest of their words findable once gravity has run
+        List<String> remaining = targetWords.subList(wordIndex, targetWords.size());
+        Grid grid = level.getGrid();
+        List<Cell> path = gridSolver.findSolvablePath(grid, remaining);
+        if (path == null) {
+            path = gridSolver.findPath(grid, remaining.get(0));
+        }
+        
+        if (path != null) {
+            int revealed = Math.min(session.takeHint(playerId), path.size());
+            List<Map<String, Object>> cells = new ArrayList<>(revealed);
+            StringBuilder letters = new StringBuilder(revealed);
+            for (Cell cell : path.subList(0, revealed)) {
+                cells.add(Map.of("row", cell.getRow(), "col", cell.getCol()));
+                letters.append(cell.getCharacter());
+            }
+            result.put("hint", letters.toString());
+            result.put("cells", cells);
+            result.put("cell", cells.get(revealed - 1));
+            result.put("wordIndex", wordIndex);
+            result.put("length", path.size());
+            result.put("message", "Next cell of the current word");
+        } else {
+            String target = remaining.get(0);
+            result.put("hint", target.substring(0, Math.min(3, target.length())));
             result.put("message", "First 3 letters of a word");
         }
         return result;
     }
     
-    public Map<String, Object> getLeaderboard(String roomCode) {
+    /**
+     * Deltas bringing a client from knownVersion to the current grid, or null
+     * when it is too far behind and needs a full GRID_UPDATE
+     */
+    public List<GridDeltaPayload> getGridDeltas(String roomCode, long knownVersion) {
         Room room = roomService.getRoom(roomCode);
         if (room == null || room.getGameSession() == null) {
             return null;
         }
         
-        GameSession session = room.getGameSession();
-        
-        List<Map<String, Object>> leaderboard = room.getPlayers().stream()
-            .sorted((p1, p2) -> Integer.compare(p2.getTotalScore(), p1.getTotalScore()))
-            .map(player -> {
-                Map<String, Object> playerData = new HashMap<>();
-                playerData.put("rank", 0);
-                playerData.put("playerId", player.getId());
-                playerData.put("name", player.getName());
-                playerData.put("score", player.getTotalScore());
-                playerData.put("streak", player.getCurrentStreak());
-                return playerData;
-            })
-            .collect(Collectors.toList());
-        
-        // Set ranks
-        for (int i = 0; i < leaderboard.size(); i++) {
-            ((Map<String, Object>) leaderboard.get(i)).put("rank", i + 1);
+        Level level = room.getGameSession().getCurrentLevel();
+        if (level == null || level.getGrid() == null) {
+            return null;
         }
         
-        Level currentLevel = session.getCurrentLevel();
-        
-        Map<String, Object> levelProgress = new HashMap<>();
-        levelProgress.put("current", session.getCurrentLevelIndex() + 1);
-        levelProgress.put("total", session.getLevels().size());
-        levelProgress.put("timeRemaining", calculateTimeRemaining(session) / 1000);
+        Grid grid = level.getGrid();
+        List<GridDelta> deltas = grid.deltasSince(knownVersion);
+        if (deltas == null) {
+            return null;
+        }
         
-        Map<String, Object> leaderboardResult = new HashMap<>();
-        leaderboardResult.put("leaderboard", leaderboard);
-        leaderboardResult.put("levelProgress", levelProgress);
-        return leaderboardResult;
+        // Every delta carries the current emptiness and targets; a client applies them all
+        boolean isEmpty = grid.isEmpty();
+        List<Integer> remainingTargets = level.getRemainingTargets();
+        List<GridDeltaPayload> payloads = new ArrayList<>(deltas.size());
+        for (GridDelta delta : deltas) {
+            payloads.add(GridDeltaPayload.of(delta, isEmpty, remainingTargets));
+        }
+        return payloads;
     }
     
-    private int calculateGridSize(int levelNumber) {
-        // Increase grid size with level
-        int minSize = gameConfig.getGrid().getMinSize();
-        int maxSize = gameConfig.getGrid().getMaxSize();
+    public LeaderboardPayload getLeaderboard(String roomCode) {
+        Room room = roomService.getRoom(roomCode);
+        if (room == null || room.getGameSession() == null) {
+            return null;
+        }
         
-        int size = minSize + (levelNumber - 1) / 3;
-        return Math.min(size, maxSize);
-    }
-    
-    private Map<String, Object> convertGridToMap(Grid grid) {
-        char[][] cells = new char[grid.getRows()][grid.getCols()];
-        boolean[][] mask = new boolean[grid.getRows()][grid.getCols()];
-        
-        for (int i = 0; i < grid.getRows(); i++) {
-            for (int j = 0; j < grid.getCols(); j++) {
-                Cell cell = grid.getCell(i, j);
-                cells[i][j] = cell.getCharacter();
-                mask[i][j] = cell.isActive();
-            }
+        GameSession session = room.getGameSession();
+        
+        List<Player> ranked = room.getPlayers().stream()
+            .sorted((p1, p2) -> Integer.compare(p2.getTotalScore(), p1.getTotalScore()))
+            .collect(Collectors.toList());
+        
+        List<LeaderboardPayload.Entry> leaderboard = new ArrayList<>(ranked.size());
+        for (int i = 0; i < ranked.size(); i++) {
+            Player player = ranked.get(i);
+            leaderboard.add(new LeaderboardPayload.Entry(
+                i + 1, player.getId(), player.getName(), player.getTotalScore(), player.getCurrentStreak()));
         }
         
-        Map<String, Object> shape = new HashMap<>();
-        shape.put("mask", mask);
-        shape.put("cellCount", grid.getTotalCells());
+        LeaderboardPayload.LevelProgress levelProgress = new LeaderboardPayload.LevelProgress(
+            session.getCurrentLevelIndex() + 1,
+            session.getLevels().size(),
+            calculateTimeRemaining(session) / 1000);
         
-        Map<String, Object> gridMap = new HashMap<>();
-        gridMap.put("rows", grid.getRows());
-        gridMap.put("cols", grid.getCols());
-        gridMap.put("cells", cells);
-        gridMap.put("shape", shape);
-        return gridMap;
+        return new LeaderboardPayload(leaderboard, levelProgress);
     }
     
     private long calculateTimeRemaining(GameSession session) {
@@ -577,12 +548,5 @@ public class GameEngine {
         
         return Math.max(0, duration - elapsed);
     }
-    
-    private double calculateSpeedFactor(long timeRemaining, int totalDuration) {
-        double percentRemaining = (double) timeRemaining / (totalDuration * 1000);
-        double minMultiplier = gameConfig.getScore().getSpeedMultiplierMin();
-        double maxMultiplier = gameConfig.getScore().getSpeedMultiplierMax();
-        
-        return minMultiplier + (maxMultiplier - minMultiplier) * percentRemaining;
-    }
+
 }
\ No newline at end of file
@@ -0,0 +1,229 @@
+package com.wordbrain2.service.core;
+
+import com.wordbrain2.config.GameConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs each room's commands one at a time, in arrival order, on a mailbox
+ * multiplexed over a fixed worker pool. Game state belonging to a room is
+ * only mutated from its mailbox, so it needs no locking of its own; different
+ * rooms run in parallel on different workers.
+ *
+ * A mailbox exists from open() when the room is created until the room is
+ * released and its last queued command has run. Commands for a room without
+ * one, such as a join naming an unknown code, run on the caller: there is no
+ * room state for them to race on.
+ */
+@Slf4j
+@Component
+public class RoomExecutor {
+
+    // Commands drained per turn before a busy room yields its worker to other rooms
+    private static final int BATCH_SIZE = 64;
+
+    private static final ThreadLocal<String> CURRENT_ROOM = new ThreadLocal<>();
+
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final ExecutorService workers;
+    private final MeterRegistry meterRegistry;
+
+    public RoomExecutor(GameConfig gameConfig, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        int threads = gameConfig.getServer().getRoomWorkerThreads();
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "wb-room-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Give a new room its mailbox; call before the room becomes visible to other threads
+     */
+    public void open(String roomCode) {
+        mailboxes.compute(roomCode, (code, mailbox) -> mailbox == null || mailbox.closed ? new Mailbox(code) : mailbox);
+    }
+
+    /**
+     * Queue a command on the room's mailbox. Commands for rooms without a mailbox run
+     * on the caller, as do commands issued from the room's own mailbox, which already
+     * hold its turn.
+     */
+    public void execute(String roomCode, Runnable command) {
+        if (roomCode == null || roomCode.equals(CURRENT_ROOM.get())) {
+            command.run();
+            return;
+        }
+        Mailbox mailbox = mailboxes.get(roomCode);
+        if (mailbox == null || !mailbox.enqueue(command)) {
+            command.run();
+        }
+    }
+
+    /**
+     * Run a command on the room's mailbox and hand back its result
+     */
+    public <T> CompletableFuture<T> submit(String roomCode, Supplier<T> command) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        execute(roomCode, () -> {
+            try {
+                result.complete(command.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Close a room's mailbox and drop its meters. Commands already queued, and any that
+     * arrive before it drains, still run on it; it is forgotten once empty, so a late
+     * command never starts a second mailbox beside one that is still running.
+     */
+    public void release(String roomCode) {
+        Mailbox mailbox = mailboxes.get(roomCode);
+        if (mailbox != null && !mailbox.closed) {
+            mailbox.closed = true;
+            mailbox.meters.forEach(meterRegistry::remove);
+            // A turn is needed to retire the mailbox even if nothing is queued
+            mailbox.schedule();
+        }
+    }
+
+    public int getMailboxDepth(String roomCode) {
+        Mailbox mailbox = mailboxes.get(roomCode);
+        return mailbox != null ? mailbox.depth.get() : 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private final class Mailbox implements Runnable {
+        private final String roomCode;
+        private final Queue<Command> commands = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private final Timer latency;
+        private final List<Meter> meters;
+        private volatile boolean closed;
+        // Set, under the mailbox lock, once closed and drained; no command is accepted after
+        private boolean retired;
+
+        Mailbox(String roomCode) {
+            this.roomCode = roomCode;
+            Gauge depthGauge = Gauge.builder("wordbrain.room.mailbox.depth", depth, AtomicInteger::get)
+                .description("Commands waiting in a room's mailbox")
+                .tag("room", roomCode)
+                .register(meterRegistry);
+            this.latency = Timer.builder("wordbrain.room.command.latency")
+                .description("Time from enqueue to completion of a room command")
+                .tag("room", roomCode)
+                .register(meterRegistry);
+            this.meters = List.of(depthGauge, latency);
+        }
+
+        boolean enqueue(Runnable command) {
+            synchronized (this) {
+                if (retired) {
+                    return false;
+                }
+                commands.add(new Command(command, System.nanoTime()));
+            }
+            depth.incrementAndGet();
+            schedule();
+            return true;
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    workers.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    log.warn("Room executor is shut down, dropping commands for room {}", roomCode);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            CURRENT_ROOM.set(roomCode);
+            try {
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    Command next = commands.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    depth.decrementAndGet();
+                    try {
+                        next.task.run();
+                    } catch (Exception e) {
+                        log.error("Command failed in room {}", roomCode, e);
+                    } finally {
+                        latency.record(System.nanoTime() - next.enqueuedAt, TimeUnit.NANOSECONDS);
+                    }
+                }
+                if (closed) {
+                    retireIfDrained();
+                }
+            } finally {
+                CURRENT_ROOM.remove();
+                scheduled.set(false);
+            }
+
+            // Reschedule if work remains or arrived after the last poll
+            if (!commands.isEmpty()) {
+                schedule();
+            }
+        }
+
+        /**
+         * Called while holding the turn, so no command of this room is running elsewhere
+         */
+        private void retireIfDrained() {
+            synchronized (this) {
+                if (commands.isEmpty() && !retired) {
+                    retired = true;
+                    mailboxes.remove(roomCode, this);
+                }
+            }
+        }
+    }
+
+    private record Command(Runnable task, long enqueuedAt) {
+    }
+}
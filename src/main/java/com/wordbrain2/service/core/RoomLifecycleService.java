@@ -0,0 +1,199 @@
+package com.wordbrain2.service.core;
+
+import com.wordbrain2.config.GameConfig;
+import com.wordbrain2.controller.websocket.ConnectionManager;
+import com.wordbrain2.model.entity.GameSession;
+import com.wordbrain2.model.entity.Room;
+import com.wordbrain2.model.enums.MessageType;
+import com.wordbrain2.model.game.Level;
+import com.wordbrain2.service.booster.BoosterService;
+import com.wordbrain2.service.game.LevelProgressionService;
+import com.wordbrain2.service.game.TimerService;
+import com.wordbrain2.service.messaging.LeaderboardBroadcastService;
+import com.wordbrain2.service.messaging.MessageBroadcastService;
+import com.wordbrain2.service.scoring.LeaderboardService;
+import com.wordbrain2.service.scoring.StatisticsService;
+import com.wordbrain2.service.scoring.StreakManager;
+import com.wordbrain2.util.HashedWheelTimer;
+import com.wordbrain2.websocket.message.ErrorPayload;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closes rooms that sat idle for game.room.idle-timeout and drops the per-room
+ * and per-player state the other services keep for them.
+ *
+ * Activity only stamps Room.lastActivityAt. Each room has one idle check armed
+ * on the timer wheel; when it comes due it runs on the room's mailbox, and
+ * either re-arms for whatever is left of the timeout or reaps the room. Checks
+ * that fall due together are fired by the same wheel tick, so there is no scan
+ * over every room and nothing is added to the command path but a timestamp.
+ */
+@Slf4j
+@Service
+public class RoomLifecycleService {
+
+    // Rough heap held per room, per player and per grid cell, for the reaped-heap estimate
+    private static final long ROOM_BYTES = 4 * 1024;
+    private static final long PLAYER_BYTES = 8 * 1024; // dominated by the response-time histogram
+    private static final long CELL_BYTES = 64;
+
+    private final RoomService roomService;
+    private final PlayerService playerService;
+    private final TimerService timerService;
+    private final LevelProgressionService levelProgressionService;
+    private final LeaderboardService leaderboardService;
+    private final LeaderboardBroadcastService leaderboardBroadcaster;
+    private final StreakManager streakManager;
+    private final BoosterService boosterService;
+    private final StatisticsService statisticsService;
+    private final MessageBroadcastService broadcastService;
+    private final ConnectionManager connectionManager;
+    private final long idleTimeoutMs;
+    private final Map<String, HashedWheelTimer.Timeout> idleChecks = new ConcurrentHashMap<>();
+    private final Counter reapedRooms;
+    private final Counter releasedPlayers;
+    private final DistributionSummary reclaimedBytes;
+
+    public RoomLifecycleService(RoomService roomService, PlayerService playerService, TimerService timerService,
+                                LevelProgressionService levelProgressionService, LeaderboardService leaderboardService,
+                                LeaderboardBroadcastService leaderboardBroadcaster, StreakManager streakManager,
+                                BoosterService boosterService, StatisticsService statisticsService,
+                                MessageBroadcastService broadcastService, ConnectionManager connectionManager,
+                                GameConfig gameConfig, MeterRegistry meterRegistry) {
+        this.roomService = roomService;
+        this.playerService = playerService;
+        this.timerService = timerService;
+        this.levelProgressionService = levelProgressionService;
+        this.leaderboardService = leaderboardService;
+        this.leaderboardBroadcaster = leaderboardBroadcaster;
+        this.streakManager = streakManager;
+        this.boosterService = boosterService;
+        this.statisticsService = statisticsService;
+        this.broadcastService = broadcastService;
+        this.connectionManager = connectionManager;
+        this.idleTimeoutMs = gameConfig.getRoom().getIdleTimeout();
+        this.reapedRooms = Counter.builder("wordbrain.rooms.reaped")
+            .description("Rooms closed after idling past the idle timeout")
+            .register(meterRegistry);
+        this.releasedPlayers = Counter.builder("wordbrain.players.released")
+            .description("Players whose per-player state was dropped on leaving or reaping")
+            .register(meterRegistry);
+        this.reclaimedBytes = DistributionSummary.builder("wordbrain.rooms.reaped.bytes")
+            .description("Estimated heap released per reaped room")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Note activity in a room, arming its idle check if it has none; call on the room's mailbox
+     */
+    public void touch(String roomCode) {
+        Room room = roomCode != null ? roomService.getRoom(roomCode) : null;
+        if (room == null) {
+            return;
+        }
+        room.updateActivity();
+        if (idleTimeoutMs > 0 && !idleChecks.containsKey(roomCode)) {
+            arm(roomCode, idleTimeoutMs);
+        }
+    }
+
+    /**
+     * Drop the state of a player who left; if that closed the room, drop the room's too.
+     * Call on the room's mailbox, after RoomService.removePlayer
+     */
+    public void onPlayerLeft(String roomCode, String playerId) {
+        releasePlayer(playerId);
+        if (!roomService.roomExists(roomCode)) {
+            HashedWheelTimer.Timeout check = idleChecks.remove(roomCode);
+            if (check != null) {
+                check.cancel();
+            }
+            releaseRoom(roomCode);
+        }
+    }
+
+    private void arm(String roomCode, long delayMs) {
+        idleChecks.put(roomCode, timerService.schedule(roomCode, delayMs, TimeUnit.MILLISECONDS,
+            () -> checkIdle(roomCode)));
+    }
+
+    private void checkIdle(String roomCode) {
+        idleChecks.remove(roomCode);
+        Room room = roomService.getRoom(roomCode);
+        if (room == null) {
+            releaseRoom(roomCode);
+            return;
+        }
+
+        long idleMs = Duration.between(room.getLastActivityAt(), LocalDateTime.now()).toMillis();
+        if (idleMs < idleTimeoutMs) {
+            arm(roomCode, idleTimeoutMs - idleMs);
+        } else if (timerService.isTimerActive(roomCode)) {
+            // A level is still counting down, so the room is not abandoned yet
+            arm(roomCode, idleTimeoutMs);
+        } else {
+            reap(room);
+        }
+    }
+
+    private void reap(Room room) {
+        String roomCode = room.getRoomCode();
+        List<String> playerIds = room.getPlayerIds();
+        long bytes = estimateBytes(room);
+
+        broadcastService.broadcastToRoom(roomCode, MessageType.ERROR,
+            new ErrorPayload("Room closed after " + (idleTimeoutMs / 1000) + "s of inactivity"));
+        roomService.closeRoom(roomCode);
+        for (String playerId : playerIds) {
+            connectionManager.releasePlayer(playerId);
+            releasePlayer(playerId);
+        }
+        releaseRoom(roomCode);
+
+        reapedRooms.increment();
+        reclaimedBytes.record(bytes);
+        log.info("Reaped idle room {} with {} players (~{} KB)", roomCode, playerIds.size(), bytes / 1024);
+    }
+
+    private void releasePlayer(String playerId) {
+        streakManager.clearPlayerStreak(playerId);
+        boosterService.clearPlayerBoosters(playerId);
+        statisticsService.removePlayerStatistics(playerId);
+        playerService.removePlayer(playerId);
+        releasedPlayers.increment();
+    }
+
+    private void releaseRoom(String roomCode) {
+        timerService.stopTimer(roomCode);
+        leaderboardBroadcaster.forget(roomCode);
+        leaderboardService.removeRoomLeaderboard(roomCode);
+        levelProgressionService.clearRoomLevels(roomCode);
+        boosterService.clearRoomBoosters(roomCode);
+        statisticsService.removeRoomStatistics(roomCode);
+    }
+
+    private static long estimateBytes(Room room) {
+        long bytes = ROOM_BYTES + room.getPlayerCount() * PLAYER_BYTES;
+        GameSession session = room.getGameSession();
+        if (session != null && session.getLevels() != null) {
+            for (Level level : session.getLevels()) {
+                if (level.getGrid() != null) {
+                    bytes += (long) level.getGrid().getRows() * level.getGrid().getCols() * CELL_BYTES;
+                }
+            }
+        }
+        return bytes;
+    }
+}
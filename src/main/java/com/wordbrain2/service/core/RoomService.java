@@ -21,17 +21,25 @@ import java.util.concurrent.ConcurrentHashMap;
 public class RoomService {
     
     private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+    // playerId -> roomCode, kept in step with room membership under the room's lock
+    private final Map<String, String> playerRooms = new ConcurrentHashMap<>();
     private final GameConfig gameConfig;
+    private final RoomExecutor roomExecutor;
     
-    public RoomService(GameConfig gameConfig) {
+    public RoomService(GameConfig gameConfig, RoomExecutor roomExecutor) {
         this.gameConfig = gameConfig;
+        this.roomExecutor = roomExecutor;
     }
     
     public Map<String, Object> createRoom(String playerName, String topic, String sessionId) {
         Player host = new Player(playerName, sessionId);
         Room room = new Room(host.getId(), topic);
         
-        room.addPlayer(host);
+        synchronized (room) {
+            room.addPlayer(host);
+            playerRooms.put(host.getId(), room.getRoomCode());
+        }
+        roomExecutor.open(room.getRoomCode());
         rooms.put(room.getRoomCode(), room);
         
         log.info("Room created: {} by player: {}", room.getRoomCode(), playerName);
@@ -52,43 +60,68 @@ public class RoomService {
             return null;
         }
         
-        if (room.isFull()) {
-            log.warn("Room is full: {}", roomCode);
-            return null;
-        }
-        
-        if (room.getStatus() != RoomStatus.WAITING) {
-            log.warn("Room is not accepting players: {}", roomCode);
-            return null;
-        }
-        
         Player player = new Player(playerName, sessionId);
-        if (room.addPlayer(player)) {
-            log.info("Player {} joined room {}", playerName, roomCode);
+        int playerCount;
+        synchronized (room) {
+            if (room.isFull()) {
+                log.warn("Room is full: {}", roomCode);
+                return null;
+            }
             
-            return Map.of(
-                "roomCode", roomCode,
-                "playerId", player.getId(),
-                "playerName", playerName,
-                "topic", room.getTopic(),
-                "isHost", false,
-                "players", room.getPlayerCount()
-            );
+            if (room.getStatus() != RoomStatus.WAITING) {
+                log.warn("Room is not accepting players: {}", roomCode);
+                return null;
+            }
+            
+            if (!room.addPlayer(player)) {
+                return null;
+            }
+            playerRooms.put(player.getId(), roomCode);
+            playerCount = room.getPlayerCount();
         }
         
-        return null;
+        log.info("Player {} joined room {}", playerName, roomCode);
+        
+        return Map.of(
+            "roomCode", roomCode,
+            "playerId", player.getId(),
+            "playerName", playerName,
+            "topic", room.getTopic(),
+            "isHost", false,
+            "players", playerCount
+        );
     }
     
     public void removePlayer(String roomCode, String playerId) {
         Room room = rooms.get(roomCode);
         if (room != null) {
-            room.removePlayer(playerId);
-            
-            if (room.getStatus() == RoomStatus.CLOSED) {
-                rooms.remove(roomCode);
-                log.info("Room {} closed - no players remaining", roomCode);
+            synchronized (room) {
+                room.removePlayer(playerId);
+                playerRooms.remove(playerId, roomCode);
+                
+                if (room.getStatus() == RoomStatus.CLOSED) {
+                    closeRoom(roomCode);
+                    log.info("Room {} closed - no players remaining", roomCode);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Drop a room and release every player still indexed to it
+     */
+    public void closeRoom(String roomCode) {
+        Room room = rooms.remove(roomCode);
+        if (room == null) {
+            return;
+        }
+        synchronized (room) {
+            room.setStatus(RoomStatus.CLOSED);
+            for (String playerId : room.getPlayerIds()) {
+                playerRooms.remove(playerId, roomCode);
             }
         }
+        roomExecutor.release(roomCode);
     }
     
     public void setPlayerReady(String roomCode, String playerId, boolean ready) {
@@ -193,13 +226,7 @@ public class RoomService {
             return null;
         }
         
-        for (Room room : rooms.values()) {
-            if (room.getPlayers().stream().anyMatch(p -> p.getId().equals(playerId))) {
-                return room.getRoomCode();
-            }
-        }
-        
-        return null;
+        return playerRooms.get(playerId);
     }
     
     /**
@@ -1,6 +1,8 @@
 package com.wordbrain2.service.core;
 
 import com.wordbrain2.model.entity.Topic;
+import com.wordbrain2.util.Alphabet;
+import com.wordbrain2.util.WordTrie;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
@@ -20,13 +22,17 @@ import java.util.stream.Collectors;
 public class TopicService {
     
     private final Map<String, Topic> topics = new ConcurrentHashMap<>();
-    private final Map<String, List<String>> topicWords = new ConcurrentHashMap<>();
+    private final Map<String, WordTrie> topicWords = new ConcurrentHashMap<>();
+    private final Map<String, Alphabet> topicAlphabets = new ConcurrentHashMap<>();
+    private volatile WordTrie allWords = WordTrie.EMPTY;
+    private volatile Alphabet allLetters = new Alphabet();
     
     @PostConstruct
     public void loadTopics() {
         try {
             PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
             Resource[] resources = resolver.getResources("classpath:topics/*.txt");
+            List<String> everyWord = new ArrayList<>();
             
             for (Resource resource : resources) {
                 String filename = resource.getFilename();
@@ -35,15 +41,23 @@ public class TopicService {
                     List<String> words = loadWordsFromResource(resource);
                     
                     if (!words.isEmpty()) {
-                        topicWords.put(topicId, words);
+                        // The trie is the only copy of the words kept once loading is done
+                        WordTrie trie = WordTrie.build(words);
+                        topicWords.put(topicId, trie);
+                        topicAlphabets.put(topicId, Alphabet.of(words));
+                        everyWord.addAll(words);
                         Topic topic = createTopicFromFile(topicId, words);
                         topics.put(topicId, topic);
-                        log.info("Loaded topic '{}' with {} words", topicId, words.size());
+                        log.info("Loaded topic '{}' with {} words ({} trie nodes, {} KB)",
+                            topicId, trie.size(), trie.nodeCount(), trie.estimatedBytes() / 1024);
                     }
                 }
             }
             
-            log.info("Successfully loaded {} topics", topics.size());
+            allWords = WordTrie.build(everyWord);
+            allLetters = Alphabet.of(everyWord);
+            log.info("Successfully loaded {} topics, {} distinct words ({} KB indexed)",
+                topics.size(), allWords.size(), allWords.estimatedBytes() / 1024);
         } catch (IOException e) {
             log.error("Error loading topics from files", e);
             initializeDefaultTopics();
@@ -128,10 +142,12 @@ public class TopicService {
             Arrays.asList("word", "game", "play", "fun", "brain", "puzzle"), 
             "easy"));
         
-        topicWords.put("general", Arrays.asList(
+        topicWords.put("general", WordTrie.build(Arrays.asList(
             "word", "game", "play", "fun", "brain", "puzzle", "quiz", 
             "test", "learn", "study", "think", "solve", "answer"
-        ));
+        )));
+        allWords = topicWords.get("general");
+        allLetters = Alphabet.of(allWords.words());
     }
     
     public List<Topic> getAllTopics() {
@@ -174,16 +190,40 @@ public class TopicService {
         return activeTopics.get(randomIndex);
     }
     
+    /**
+     * Upper-case word index for a topic; empty for an unknown topic
+     */
+    public WordTrie getTrie(String topicId) {
+        return topicId != null ? topicWords.getOrDefault(topicId, WordTrie.EMPTY) : WordTrie.EMPTY;
+    }
+    
+    /**
+     * The letters a topic's grids are packed in; for an unknown topic, the letters of every topic
+     */
+    public Alphabet getAlphabet(String topicId) {
+        Alphabet alphabet = topicId != null ? topicAlphabets.get(topicId) : null;
+        return alphabet != null ? alphabet : allLetters;
+    }
+    
+    /**
+     * Word index across every topic
+     */
+    public WordTrie getAllWordsTrie() {
+        return allWords;
+    }
+    
+    /**
+     * A topic's words in lower case, listed out of its trie on every call
+     */
     public List<String> getWordsForTopic(String topicId) {
-        return topicWords.getOrDefault(topicId, Collections.emptyList());
+        return getTrie(topicId).words().stream()
+            .map(String::toLowerCase)
+            .collect(Collectors.toList());
     }
     
     public Set<String> getAllWords() {
         // Return all words from all topics combined
-        return topicWords.values().stream()
-            .flatMap(List::stream)
-            .map(String::toUpperCase)
-            .collect(Collectors.toSet());
+        return new HashSet<>(allWords.words());
     }
     
     public Map<String, Object> getStatistics() {
@@ -194,7 +234,7 @@ public class TopicService {
                 Collectors.counting()));
         
         long totalWords = topicWords.values().stream()
-            .mapToLong(List::size)
+            .mapToLong(WordTrie::size)
             .sum();
         
         return Map.of(
@@ -213,6 +253,9 @@ public class TopicService {
     public void reloadTopics() {
         topics.clear();
         topicWords.clear();
+        // Grids already built keep the alphabet they were packed with
+        topicAlphabets.clear();
+        allWords = WordTrie.EMPTY;
         loadTopics();
     }
 }
\ No newline at end of file
@@ -2,10 +2,13 @@ package com.wordbrain2.service.game;
 
 import com.wordbrain2.config.GameConfig;
 import com.wordbrain2.service.core.TopicService;
+import com.wordbrain2.util.Alphabet;
+import com.wordbrain2.util.WordTrie;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -28,27 +31,28 @@ public class DictionaryService {
         String upperWord = word.toUpperCase();
         
         // Check only in the specific topic words
-        Set<String> topicWords = getWordsByTopic(topic);
-        return topicWords.contains(upperWord);
+        return topicService.getTrie(topic).contains(upperWord);
     }
     
     public List<String> getRandomWords(String topic, int count, int maxLength) {
         // Get words from TopicService
-        List<String> topicWords = topicService.getWordsForTopic(topic);
+        WordTrie topicWords = topicService.getTrie(topic);
         
         if (topicWords.isEmpty()) {
             log.warn("No words found for topic: {}, using random topic", topic);
             var randomTopic = topicService.getRandomTopic();
             if (randomTopic != null) {
-                topicWords = topicService.getWordsForTopic(randomTopic.getId());
+                topicWords = topicService.getTrie(randomTopic.getId());
             }
         }
         
-        // Filter by max length and convert to uppercase
-        List<String> validWords = topicWords.stream()
-            .map(String::toUpperCase)
-            .filter(word -> word.length() <= maxLength)
-            .collect(Collectors.toList());
+        // Filter by max length
+        List<String> validWords = new ArrayList<>();
+        for (int length = 1; length <= maxLength; length++) {
+            for (int i = 0; i < topicWords.countOfLength(length); i++) {
+                validWords.add(topicWords.wordOfLength(length, i));
+            }
+        }
         
         Collections.shuffle(validWords);
         
@@ -58,44 +62,54 @@ public class DictionaryService {
     }
     
     public Set<String> getWordsByTopic(String topic) {
-        List<String> words = topicService.getWordsForTopic(topic);
+        WordTrie words = topicService.getTrie(topic);
         
         if (words.isEmpty()) {
             log.warn("No words found for topic: {}", topic);
             return Collections.emptySet();
         }
         
-        return words.stream()
-            .map(String::toUpperCase)
-            .collect(Collectors.toSet());
+        return new HashSet<>(words.words());
+    }
+    
+    /**
+     * The alphabet a topic's grids are packed in
+     */
+    public Alphabet getAlphabet(String topic) {
+        return topicService.getAlphabet(topic);
+    }
+    
+    public boolean hasWords(String topic) {
+        return !topicService.getTrie(topic).isEmpty();
     }
     
     public String getRandomWordByLength(String topic, int length) {
-        List<String> topicWords = topicService.getWordsForTopic(topic);
+        WordTrie words = topicService.getTrie(topic);
         
-        if (topicWords.isEmpty()) {
+        if (words.isEmpty()) {
             log.warn("No words found for topic: {}, using all topics", topic);
-            topicWords = new ArrayList<>(topicService.getAllWords());
+            words = topicService.getAllWordsTrie();
         }
         
-        // Filter by exact length
-        List<String> wordsOfLength = topicWords.stream()
-            .map(String::toUpperCase)
-            .filter(word -> word.length() == length)
-            .collect(Collectors.toList());
+        // Exact length first
+        Random random = ThreadLocalRandom.current();
+        String word = words.randomWord(length, random);
         
-        if (wordsOfLength.isEmpty()) {
+        if (word == null) {
             log.warn("No words of length {} found for topic: {}", length, topic);
             // Try to find any word close to the target length
-            wordsOfLength = topicWords.stream()
-                .map(String::toUpperCase)
-                .filter(word -> Math.abs(word.length() - length) <= 1)
-                .collect(Collectors.toList());
+            int shorter = words.countOfLength(length - 1);
+            int longer = words.countOfLength(length + 1);
+            if (shorter + longer > 0) {
+                int pick = random.nextInt(shorter + longer);
+                word = pick < shorter
+                    ? words.wordOfLength(length - 1, pick)
+                    : words.wordOfLength(length + 1, pick - shorter);
+            }
         }
         
-        if (!wordsOfLength.isEmpty()) {
-            Random random = new Random();
-            return wordsOfLength.get(random.nextInt(wordsOfLength.size()));
+        if (word != null) {
+            return word;
         }
         
         // Fallback: return a simple word
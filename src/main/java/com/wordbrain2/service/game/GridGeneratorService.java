@@ -1,30 +1,86 @@
 package com.wordbrain2.service.game;
 
+import com.wordbrain2.model.game.Cell;
 import com.wordbrain2.model.game.Grid;
 import com.wordbrain2.model.game.Shape;
+import com.wordbrain2.model.game.Word;
+import com.wordbrain2.util.Alphabet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
+@Slf4j
 @Service
 public class GridGeneratorService {
-    
+
+    // Give up on a search after this long and fall back to scrambling, keeping startLevel well under 5 ms
+    private static final long GENERATION_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(3);
+    // Nodes explored before a stuck search restarts from a fresh random layout
+    private static final int NODES_PER_ATTEMPT = 4000;
+
     private final Random random = new Random();
-    
-    public Grid generateGrid(int rows, int cols, int levelNumber) {
-        Grid grid = new Grid(rows, cols);
-        
+    private final Timer generationTimer;
+    private final Counter fallbackCounter;
+
+    public GridGeneratorService(MeterRegistry meterRegistry) {
+        this.generationTimer = Timer.builder("wordbrain.grid.generation")
+            .description("Time to lay out a level's target words")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+        this.fallbackCounter = Counter.builder("wordbrain.grid.generation.fallback")
+            .description("Levels filled with scrambled letters because no solvable layout was found in time")
+            .register(meterRegistry);
+    }
+
+    public Grid generateGrid(int rows, int cols, int levelNumber, Alphabet alphabet) {
+        Grid grid = new Grid(rows, cols, alphabet);
+
         // Select shape based on level
         Shape.ShapeType shapeType = selectShapeType(levelNumber);
         Shape shape = new Shape(rows, cols, shapeType);
         grid.applyShape(shape);
-        
+
         return grid;
     }
-    
+
+    /**
+     * Lay the words out so they can be found in order: each word is a connected
+     * path in the grid as it stands once the words before it were removed and
+     * gravity settled. Falls back to Grid.fillWithLetters when the shape cannot
+     * hold the words or no layout turns up within the time budget.
+     *
+     * @return true when the layout is guaranteed solvable
+     */
+    public boolean fillSolvable(Grid grid, List<String> words) {
+        long start = System.nanoTime();
+        try {
+            Layout layout = new Layout(grid, words);
+            if (layout.totalLetters <= layout.capacity && layout.search(start + GENERATION_BUDGET_NANOS)) {
+                grid.fillWithSolution(layout.letters(), layout.solutions);
+                return true;
+            }
+
+            log.debug("No solvable layout for {} in a {}x{} {} grid, scrambling instead",
+                words, grid.getRows(), grid.getCols(), grid.getShape().getType());
+            fallbackCounter.increment();
+            grid.fillWithLetters(words);
+            return false;
+        } finally {
+            generationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
     private Shape.ShapeType selectShapeType(int level) {
         Shape.ShapeType[] types = Shape.ShapeType.values();
-        
+
         // Early levels use simpler shapes
         if (level <= 2) {
             return Shape.ShapeType.SQUARE;
@@ -35,4 +91,236 @@ public class GridGeneratorService {
             return types[random.nextInt(types.length - 1)]; // Exclude CUSTOM
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Builds the level backwards from the empty grid. Every state is gravity-settled,
+     * so a column is just a stack of letters on its active cells, bottom up. Words are
+     * inserted last-to-first: inserting a letter at a stack position lifts the letters
+     * above it, which is exactly what removing it and letting gravity run undoes.
+     */
+    private static final class Layout {
+        private final int rows;
+        private final int cols;
+        private final List<String> words;
+        // slotRows[col][k] is the row of the k-th active cell from the bottom
+        private final int[][] slotRows;
+        private final char[][] stacks;
+        private final int[] heights;
+        private final int capacity;
+        private final int totalLetters;
+        private final Word[] placed;
+        private final List<Word> solutions = new ArrayList<>();
+
+        // The word being inserted: its path as (column, stack position) pairs
+        private int[] pathCols;
+        private int[] pathSlots;
+        private long deadline;
+        private int nodes;
+
+        Layout(Grid grid, List<String> words) {
+            this.rows = grid.getRows();
+            this.cols = grid.getCols();
+            this.words = words;
+            this.slotRows = new int[cols][];
+            this.stacks = new char[cols][];
+            this.heights = new int[cols];
+            this.placed = new Word[words.size()];
+
+            boolean[][] mask = grid.getShape().getMask();
+            int cells = 0;
+            for (int col = 0; col < cols; col++) {
+                int count = 0;
+                for (int row = 0; row < rows; row++) {
+                    if (mask[row][col]) {
+                        count++;
+                    }
+                }
+                slotRows[col] = new int[count];
+                stacks[col] = new char[count];
+                int k = 0;
+                for (int row = rows - 1; row >= 0; row--) {
+                    if (mask[row][col]) {
+                        slotRows[col][k++] = row;
+                    }
+                }
+                cells += count;
+            }
+            this.capacity = cells;
+
+            int letters = 0;
+            for (String word : words) {
+                letters += word.length();
+            }
+            this.totalLetters = letters;
+        }
+
+        boolean search(long deadline) {
+            this.deadline = deadline;
+            while (System.nanoTime() < deadline) {
+                nodes = 0;
+                if (placeWord(words.size() - 1)) {
+                    for (Word word : placed) {
+                        solutions.add(word);
+                    }
+                    return true;
+                }
+                if (nodes < NODES_PER_ATTEMPT) {
+                    // Search space exhausted rather than cut short; retrying will not help
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        private boolean placeWord(int index) {
+            if (index < 0) {
+                return true;
+            }
+            String word = words.get(index).toUpperCase();
+            pathCols = new int[word.length()];
+            pathSlots = new int[word.length()];
+            return placeLetter(word, index, 0);
+        }
+
+        private boolean placeLetter(String word, int index, int position) {
+            if (++nodes > NODES_PER_ATTEMPT || ((nodes & 63) == 0 && System.nanoTime() >= deadline)) {
+                return false;
+            }
+
+            int[] candidates = candidates(position);
+            char letter = word.charAt(position);
+            for (int i = 0; i < candidates.length; i++) {
+                int col = candidates[i] >>> 8;
+                int slot = candidates[i] & 0xFF;
+                if (heights[col] == stacks[col].length || slot > heights[col]) {
+                    continue;
+                }
+
+                insert(col, slot, letter, position);
+                if (pathConnected(position)) {
+                    boolean done;
+                    if (position == word.length() - 1) {
+                        placed[index] = snapshot(word);
+                        int[] cols = pathCols;
+                        int[] slots = pathSlots;
+                        done = placeWord(index - 1);
+                        pathCols = cols;
+                        pathSlots = slots;
+                    } else {
+                        done = placeLetter(word, index, position + 1);
+                    }
+                    if (done) {
+                        return true;
+                    }
+                }
+                remove(col, slot, position);
+
+                if (nodes > NODES_PER_ATTEMPT) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Stack positions worth trying for the next letter, shuffled: anywhere for the
+         * first letter, otherwise the columns next to the previous one
+         */
+        private int[] candidates(int position) {
+            int fromCol = 0;
+            int toCol = cols - 1;
+            if (position > 0) {
+                fromCol = Math.max(0, pathCols[position - 1] - 1);
+                toCol = Math.min(cols - 1, pathCols[position - 1] + 1);
+            }
+
+            int count = 0;
+            for (int col = fromCol; col <= toCol; col++) {
+                count += heights[col] < stacks[col].length ? heights[col] + 1 : 0;
+            }
+            int[] candidates = new int[count];
+            int n = 0;
+            for (int col = fromCol; col <= toCol; col++) {
+                if (heights[col] < stacks[col].length) {
+                    for (int slot = 0; slot <= heights[col]; slot++) {
+                        candidates[n++] = col << 8 | slot;
+                    }
+                }
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = count - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int tmp = candidates[i];
+                candidates[i] = candidates[j];
+                candidates[j] = tmp;
+            }
+            return candidates;
+        }
+
+        private void insert(int col, int slot, char letter, int position) {
+            char[] stack = stacks[col];
+            System.arraycopy(stack, slot, stack, slot + 1, heights[col] - slot);
+            stack[slot] = letter;
+            heights[col]++;
+            // Letters of this word already above the insertion point are lifted with the rest
+            for (int i = 0; i < position; i++) {
+                if (pathCols[i] == col && pathSlots[i] >= slot) {
+                    pathSlots[i]++;
+                }
+            }
+            pathCols[position] = col;
+            pathSlots[position] = slot;
+        }
+
+        private void remove(int col, int slot, int position) {
+            char[] stack = stacks[col];
+            System.arraycopy(stack, slot + 1, stack, slot, heights[col] - slot - 1);
+            heights[col]--;
+            stack[heights[col]] = '\0';
+            for (int i = 0; i < position; i++) {
+                if (pathCols[i] == col && pathSlots[i] > slot) {
+                    pathSlots[i]--;
+                }
+            }
+        }
+
+        private boolean pathConnected(int position) {
+            // An insertion can lift earlier letters of the word, so recheck the whole prefix
+            for (int i = 1; i <= position; i++) {
+                int rowDiff = Math.abs(row(i) - row(i - 1));
+                int colDiff = Math.abs(pathCols[i] - pathCols[i - 1]);
+                if (rowDiff > 1 || colDiff > 1) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int row(int position) {
+            return slotRows[pathCols[position]][pathSlots[position]];
+        }
+
+        /**
+         * The word's path in the grid as it stands when the word is due, which is
+         * the current state: words inserted later sit before it in play order
+         */
+        private Word snapshot(String word) {
+            List<Cell> path = new ArrayList<>(word.length());
+            for (int i = 0; i < word.length(); i++) {
+                path.add(new Cell(row(i), pathCols[i], word.charAt(i)));
+            }
+            return new Word(word, path);
+        }
+
+        char[][] letters() {
+            char[][] letters = new char[rows][cols];
+            for (int col = 0; col < cols; col++) {
+                for (int k = 0; k < heights[col]; k++) {
+                    letters[slotRows[col][k]][col] = stacks[col][k];
+                }
+            }
+            return letters;
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.wordbrain2.service.game;
+
+import com.wordbrain2.model.game.Cell;
+import com.wordbrain2.model.game.Grid;
+import com.wordbrain2.model.game.Word;
+import com.wordbrain2.util.CellMasks;
+import com.wordbrain2.util.WordTrie;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Finds words in a grid by depth-first search over its cells, for hints,
+ * solvability checks and bots.
+ *
+ * The grid is copied into a bitboard (one bit per cell, at most 64 cells) and
+ * the search runs on masks: the cells a path may step to next are the
+ * neighbour mask of its last cell, less the cells it already used. Dictionary
+ * searches walk the trie alongside the path and drop a branch as soon as no
+ * word starts with it. Searches reuse per-thread scratch boards and paths, so
+ * only results are allocated and the solver is cheap enough to run after
+ * every grid change.
+ */
+@Service
+public class GridSolverService {
+
+    public static final int MAX_CELLS = CellMasks.MAX_CELLS;
+
+    // Branches explored before a solvability search gives up and reports unsolvable
+    private static final int NODE_BUDGET = 200_000;
+    // Removal masks remembered per word so equivalent paths are not searched twice
+    private static final int MAX_TRIED_REMOVALS = 256;
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Every dictionary word of at least minLength letters that can be traced in the
+     * grid as it stands, once each, with one path for it
+     */
+    public List<Word> findWords(Grid grid, WordTrie trie, int minLength) {
+        Scratch s = scratch.get();
+        Board board = s.board(0);
+        board.load(grid);
+
+        List<Word> found = new ArrayList<>();
+        BitSet seen = new BitSet(trie.nodeCount());
+        long cells = board.occupied;
+        while (cells != 0) {
+            int cell = Long.numberOfTrailingZeros(cells);
+            cells &= cells - 1;
+            int node = trie.child(trie.root(), board.letters[cell]);
+            if (node >= 0) {
+                collectWords(board, trie, node, cell, 0L, 0, s.path(0), minLength, seen, found);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * A path tracing the word in the grid as it stands, or null
+     */
+    public List<Cell> findPath(Grid grid, String word) {
+        Scratch s = scratch.get();
+        Board board = s.board(0);
+        board.load(grid);
+        String target = word.toUpperCase();
+        int[] path = s.path(0);
+
+        s.nodes = 0;
+        s.depthLimit = 1;
+        s.words = List.of(target);
+        s.board(s.depthLimit);
+        return searchWord(s, board, 0) ? board.cells(path, target.length()) : null;
+    }
+
+    /**
+     * A path for the first word after which every following word can still be found
+     * in order, each on the grid left once gravity settles the one before; null when
+     * there is none or the search ran out of budget
+     */
+    public List<Cell> findSolvablePath(Grid grid, List<String> words) {
+        if (words.isEmpty()) {
+            return null;
+        }
+        Scratch s = scratch.get();
+        Board board = s.board(0);
+        board.load(grid);
+        if (!solve(s, board, words)) {
+            return null;
+        }
+        return board.cells(s.path(0), words.get(0).length());
+    }
+
+    /**
+     * A path for every word, each traced in the grid as it stands once the words
+     * before it are removed and gravity settles; null when the words cannot all be
+     * found in order or the search ran out of budget
+     */
+    public List<List<Cell>> findSolutionPaths(Grid grid, List<String> words) {
+        Scratch s = scratch.get();
+        Board board = s.board(0);
+        board.load(grid);
+        if (!words.isEmpty() && !solve(s, board, words)) {
+            return null;
+        }
+        // The winning branch leaves each word's board and path in its depth's scratch
+        List<List<Cell>> paths = new ArrayList<>(words.size());
+        for (int depth = 0; depth < words.size(); depth++) {
+            paths.add(s.board(depth).cells(s.path(depth), words.get(depth).length()));
+        }
+        return paths;
+    }
+
+    /**
+     * Whether the words can all be found in order, removing each and applying gravity
+     */
+    public boolean isSolvable(Grid grid, List<String> words) {
+        if (words.isEmpty()) {
+            return true;
+        }
+        Scratch s = scratch.get();
+        Board board = s.board(0);
+        board.load(grid);
+        return solve(s, board, words);
+    }
+
+    private boolean solve(Scratch s, Board board, List<String> words) {
+        List<String> upper = new ArrayList<>(words.size());
+        for (String word : words) {
+            upper.add(word.toUpperCase());
+        }
+        s.nodes = 0;
+        s.depthLimit = upper.size();
+        s.words = upper;
+        // Grow the scratch up front so the search itself never allocates
+        s.board(s.depthLimit);
+        return searchWord(s, board, 0);
+    }
+
+    /**
+     * Trace words[depth] on the board from every starting cell; on reaching its end,
+     * hand the board with that path removed to the next word
+     */
+    private boolean searchWord(Scratch s, Board board, int depth) {
+        String word = s.words.get(depth);
+        if (word.isEmpty() || Long.bitCount(board.occupied) < word.length()) {
+            return false;
+        }
+        s.triedCount[depth] = 0;
+        char first = word.charAt(0);
+        long cells = board.occupied;
+        while (cells != 0) {
+            int cell = Long.numberOfTrailingZeros(cells);
+            cells &= cells - 1;
+            if (board.letters[cell] == first && extend(s, board, depth, word, 1, cell, 0L)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean extend(Scratch s, Board board, int depth, String word, int position, int cell, long used) {
+        if (++s.nodes > NODE_BUDGET) {
+            return false;
+        }
+        int[] path = s.path(depth);
+        path[position - 1] = cell;
+        used |= 1L << cell;
+
+        if (position == word.length()) {
+            return completeWord(s, board, depth, used);
+        }
+
+        char letter = word.charAt(position);
+        long next = board.neighbours[cell] & board.occupied & ~used;
+        while (next != 0) {
+            int to = Long.numberOfTrailingZeros(next);
+            next &= next - 1;
+            if (board.letters[to] == letter && extend(s, board, depth, word, position + 1, to, used)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean completeWord(Scratch s, Board board, int depth, long used) {
+        if (depth + 1 == s.depthLimit) {
+            return true;
+        }
+
+        // Paths over the same cells leave the same board behind; search it once
+        long[] tried = s.tried[depth];
+        int count = s.triedCount[depth];
+        for (int i = 0; i < count; i++) {
+            if (tried[i] == used) {
+                return false;
+            }
+        }
+        if (count < MAX_TRIED_REMOVALS) {
+            tried[count] = used;
+            s.triedCount[depth] = count + 1;
+        }
+
+        Board next = s.board(depth + 1);
+        next.copyFrom(board);
+        next.remove(used);
+        return searchWord(s, next, depth + 1);
+    }
+
+    private void collectWords(Board board, WordTrie trie, int node, int cell, long used, int length, int[] path,
+                              int minLength, BitSet seen, List<Word> found) {
+        path[length++] = cell;
+        used |= 1L << cell;
+
+        if (trie.isWord(node) && length >= minLength && !seen.get(node)) {
+            seen.set(node);
+            List<Cell> cells = board.cells(path, length);
+            StringBuilder text = new StringBuilder(length);
+            for (Cell c : cells) {
+                text.append(c.getCharacter());
+            }
+            found.add(new Word(text.toString(), cells));
+        }
+        if (!trie.hasChildren(node)) {
+            return;
+        }
+
+        long next = board.neighbours[cell] & board.occupied & ~used;
+        while (next != 0) {
+            int to = Long.numberOfTrailingZeros(next);
+            next &= next - 1;
+            int child = trie.child(node, board.letters[to]);
+            if (child >= 0) {
+                collectWords(board, trie, child, to, used, length, path, minLength, seen, found);
+            }
+        }
+    }
+
+    /**
+     * A grid's letters as a bitboard: cell index is row * cols + col
+     */
+    private static final class Board {
+        private int rows;
+        private int cols;
+        private long[] neighbours;
+        private final char[] letters = new char[MAX_CELLS];
+        // Cells inside the shape, and the ones holding a letter
+        private long shape;
+        private long occupied;
+
+        void load(Grid grid) {
+            // The grid lock keeps letters and masks from a single version
+            synchronized (grid) {
+                rows = grid.getRows();
+                cols = grid.getCols();
+                neighbours = CellMasks.neighbours(rows, cols);
+                shape = grid.getShapeMask();
+                occupied = grid.getOccupiedMask();
+                for (int i = 0, n = rows * cols; i < n; i++) {
+                    letters[i] = (occupied & (1L << i)) != 0 ? Character.toUpperCase(grid.letterAt(i)) : '\0';
+                }
+            }
+        }
+
+        void copyFrom(Board other) {
+            rows = other.rows;
+            cols = other.cols;
+            neighbours = other.neighbours;
+            shape = other.shape;
+            occupied = other.occupied;
+            System.arraycopy(other.letters, 0, letters, 0, rows * cols);
+        }
+
+        /**
+         * Clear the cells, then let every column settle onto its lowest shape cells,
+         * as Grid.removeWordAndApplyGravity does
+         */
+        void remove(long cells) {
+            occupied &= ~cells;
+            for (int c = 0; c < cols; c++) {
+                int write = rows - 1;
+                for (int r = rows - 1; r >= 0; r--) {
+                    int from = r * cols + c;
+                    if ((occupied & (1L << from)) == 0) {
+                        continue;
+                    }
+                    while ((shape & (1L << (write * cols + c))) == 0) {
+                        write--;
+                    }
+                    int to = write * cols + c;
+                    if (to != from) {
+                        letters[to] = letters[from];
+                        letters[from] = '\0';
+                        occupied = (occupied & ~(1L << from)) | (1L << to);
+                    }
+                    write--;
+                }
+            }
+        }
+
+        List<Cell> cells(int[] path, int length) {
+            List<Cell> cells = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                int index = path[i];
+                cells.add(new Cell(index / cols, index % cols, letters[index]));
+            }
+            return cells;
+        }
+    }
+
+    /**
+     * Per-thread working memory: a board and a path for each word of a search
+     */
+    private static final class Scratch {
+        private Board[] boards = new Board[0];
+        private int[][] paths = new int[0][];
+        private long[][] tried = new long[0][];
+        private int[] triedCount = new int[0];
+        private List<String> words;
+        private int depthLimit;
+        private int nodes;
+
+        Board board(int depth) {
+            ensure(depth);
+            return boards[depth];
+        }
+
+        int[] path(int depth) {
+            ensure(depth);
+            return paths[depth];
+        }
+
+        private void ensure(int depth) {
+            if (depth < boards.length) {
+                return;
+            }
+            int size = Math.max(depth + 1, boards.length * 2);
+            Board[] grownBoards = Arrays.copyOf(boards, size);
+            int[][] grownPaths = Arrays.copyOf(paths, size);
+            long[][] grownTried = Arrays.copyOf(tried, size);
+            for (int i = boards.length; i < size; i++) {
+                grownBoards[i] = new Board();
+                grownPaths[i] = new int[MAX_CELLS];
+                grownTried[i] = new long[MAX_TRIED_REMOVALS];
+            }
+            boards = grownBoards;
+            paths = grownPaths;
+            tried = grownTried;
+            triedCount = Arrays.copyOf(triedCount, size);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.wordbrain2.model.enums.GamePhase;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class LevelProgressionService {
@@ -16,8 +17,8 @@ public class LevelProgressionService {
     @Autowired
     private DictionaryService dictionaryService;
     
-    private final Map<String, List<Level>> roomLevels = new HashMap<>();
-    private final Map<String, Integer> currentLevelIndex = new HashMap<>();
+    private final Map<String, List<Level>> roomLevels = new ConcurrentHashMap<>();
+    private final Map<String, Integer> currentLevelIndex = new ConcurrentHashMap<>();
     
     public List<Level> generateLevels(String roomCode, String topic, int levelCount) {
         List<Level> levels = new ArrayList<>();
@@ -74,7 +75,8 @@ public class LevelProgressionService {
         int duration = calculateDuration(levelNumber);
         
         // Generate grid for this level
-        Grid grid = gridGeneratorService.generateGrid(gridSize, gridSize, levelNumber);
+        Grid grid = gridGeneratorService.generateGrid(gridSize, gridSize, levelNumber,
+            dictionaryService.getAlphabet(topic));
         Shape shape = generateShape(gridSize, levelNumber);
         grid.setShape(shape);
         
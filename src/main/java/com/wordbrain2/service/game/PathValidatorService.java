@@ -11,25 +11,15 @@ import java.util.List;
 public class PathValidatorService {
     
     public boolean isValidPath(Path path, Grid grid) {
-        List<Cell> cells = path.getCells();
-        
-        if (cells.isEmpty()) {
-            return false;
-        }
-        
-        return areAllCellsValid(cells, grid) &&
-               hasNoDuplicates(cells) &&
-               isWithinShape(cells, grid.getShape());
+        return isValidPath(path.getCells(), grid);
     }
     
+    /**
+     * Bounds, adjacency, duplicates and the shape, checked on the grid's cell masks
+     * without allocating
+     */
     public boolean isValidPath(List<Cell> cells, Grid grid) {
-        if (cells.isEmpty()) {
-            return false;
-        }
-        
-        return areAllCellsValid(cells, grid) &&
-               hasNoDuplicates(cells) &&
-               isWithinShape(cells, grid.getShape());
+        return grid.pathMask(cells, grid.getShapeMask()) != 0;
     }
     
     public boolean areAllCellsValid(List<Cell> cells, Grid grid) {
@@ -63,10 +53,19 @@ public class PathValidatorService {
     }
     
     public boolean hasNoDuplicates(List<Cell> cells) {
-        return cells.stream()
-            .map(cell -> cell.getRow() + "," + cell.getCol())
-            .distinct()
-            .count() == cells.size();
+        // Paths are a handful of cells, so comparing pairs beats hashing keys
+        for (int i = 1; i < cells.size(); i++) {
+            for (int j = 0; j < i; j++) {
+                if (samePosition(cells.get(i), cells.get(j))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    private static boolean samePosition(Cell a, Cell b) {
+        return a.getRow() == b.getRow() && a.getCol() == b.getCol();
     }
     
     public boolean isWithinShape(List<Cell> cells, Shape shape) {
@@ -0,0 +1,149 @@
+package com.wordbrain2.service.game;
+
+import com.wordbrain2.config.GameConfig;
+import com.wordbrain2.model.game.Cell;
+import com.wordbrain2.model.game.Grid;
+import com.wordbrain2.model.game.Puzzle;
+import com.wordbrain2.model.game.Word;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds one level's puzzle from scratch: the shaped grid, the word lengths for
+ * the level, words of those lengths from the topic, and a solvable layout.
+ * Shared by the live puzzle pools and the offline pack builder.
+ */
+@Service
+public class PuzzleGenerator {
+
+    private final GridGeneratorService gridGenerator;
+    private final GridSolverService gridSolver;
+    private final DictionaryService dictionaryService;
+    private final GameConfig gameConfig;
+    private final Timer generationTimer;
+
+    public PuzzleGenerator(GridGeneratorService gridGenerator, GridSolverService gridSolver,
+                           DictionaryService dictionaryService, GameConfig gameConfig, MeterRegistry meterRegistry) {
+        this.gridGenerator = gridGenerator;
+        this.gridSolver = gridSolver;
+        this.dictionaryService = dictionaryService;
+        this.gameConfig = gameConfig;
+        this.generationTimer = Timer.builder("wordbrain.puzzle.generation")
+            .description("Time to pick a level's words and lay out its grid")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+    }
+
+    public Puzzle generate(String topic, int levelNumber) {
+        long start = System.nanoTime();
+        try {
+            int gridSize = gridSize(levelNumber);
+            Grid grid = gridGenerator.generateGrid(gridSize, gridSize, levelNumber,
+                dictionaryService.getAlphabet(topic));
+
+            // Generate word targets first (what words player needs to find)
+            List<Integer> wordTargets = generateWordTargets(levelNumber, grid.getTotalCells());
+
+            // Get words matching the target lengths from dictionary
+            List<String> targetWords = new ArrayList<>(wordTargets.size());
+            for (Integer targetLength : wordTargets) {
+                String word = dictionaryService.getRandomWordByLength(topic, targetLength);
+                if (word != null) {
+                    targetWords.add(word.toUpperCase());
+                }
+            }
+
+            // Lay the target words out so they stay findable, in order, as gravity reshapes the grid
+            boolean solvable = gridGenerator.fillSolvable(grid, targetWords);
+            if (!solvable) {
+                // A scrambled fallback is sometimes solvable by chance; it only counts with
+                // the solver's paths as its solutions, since the scramble records none
+                List<List<Cell>> paths = gridSolver.findSolutionPaths(grid, targetWords);
+                if (paths != null) {
+                    List<Word> solutions = new ArrayList<>(targetWords.size());
+                    for (int i = 0; i < targetWords.size(); i++) {
+                        solutions.add(new Word(targetWords.get(i), paths.get(i)));
+                    }
+                    grid.setSolutions(solutions);
+                    solvable = true;
+                }
+            }
+            return new Puzzle(grid, wordTargets, targetWords, solvable);
+        } finally {
+            generationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public int gridSize(int levelNumber) {
+        // Increase grid size with level
+        int minSize = gameConfig.getGrid().getMinSize();
+        int maxSize = gameConfig.getGrid().getMaxSize();
+
+        int size = minSize + (levelNumber - 1) / 3;
+        return Math.min(size, maxSize);
+    }
+
+    /**
+     * Levels in one tier share a shape family and word lengths, so at the same
+     * grid size their puzzles are interchangeable
+     */
+    public static int tier(int levelNumber) {
+        if (levelNumber <= 4) {
+            return Math.max(1, levelNumber);
+        } else if (levelNumber <= 6) {
+            return 5;
+        } else if (levelNumber <= 9) {
+            return 6;
+        }
+        return 7;
+    }
+
+    private List<Integer> generateWordTargets(int levelNumber, int totalCells) {
+        List<Integer> targets = new ArrayList<>();
+
+        // Level 1: 1 word (3-4 letters)
+        if (levelNumber == 1) {
+            targets.add(Math.min(4, totalCells));
+        }
+        // Level 2-3: 2 words
+        else if (levelNumber <= 3) {
+            targets.add(3);
+            targets.add(4);
+        }
+        // Level 4-6: 3 words with increasing length
+        else if (levelNumber <= 6) {
+            targets.add(3);
+            targets.add(4);
+            targets.add(5);
+        }
+        // Level 7-9: 4 words
+        else if (levelNumber <= 9) {
+            targets.add(3);
+            targets.add(4);
+            targets.add(5);
+            targets.add(6);
+        }
+        // Level 10+: 5+ words with varied lengths
+        else {
+            targets.add(4);
+            targets.add(5);
+            targets.add(5);
+            targets.add(6);
+            targets.add(7);
+        }
+
+        // Ensure total letters don't exceed grid capacity
+        int totalLetters = targets.stream().mapToInt(Integer::intValue).sum();
+        while (totalLetters > totalCells && !targets.isEmpty()) {
+            targets.remove(targets.size() - 1);
+            totalLetters = targets.stream().mapToInt(Integer::intValue).sum();
+        }
+
+        return targets;
+    }
+}
@@ -0,0 +1,261 @@
+package com.wordbrain2.service.game;
+
+import com.wordbrain2.config.GameConfig;
+import com.wordbrain2.model.game.Puzzle;
+import com.wordbrain2.util.PuzzlePack;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ready puzzles per (topic, level tier, grid size), so starting a level takes a
+ * board instead of picking words and laying out the grid on the room's mailbox.
+ *
+ * Puzzle packs built offline (see PuzzlePackBuilder) are served first, each
+ * puzzle once, at no generation cost. After that comes a small bounded pool of
+ * live-generated puzzles that a single low-priority thread tops back up after
+ * each draw; a miss generates inline as before.
+ */
+@Slf4j
+@Service
+public class PuzzlePoolService {
+
+    private final PuzzleGenerator puzzleGenerator;
+    private final DictionaryService dictionaryService;
+    private final GameConfig gameConfig;
+    private final int poolSize;
+    private final Map<PoolKey, Pool> pools = new ConcurrentHashMap<>();
+    private final Map<String, PuzzlePack> packs = new ConcurrentHashMap<>();
+    private final ExecutorService refillWorker;
+
+    private final Counter packHits;
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer refillLag;
+
+    public PuzzlePoolService(PuzzleGenerator puzzleGenerator, DictionaryService dictionaryService,
+                             GameConfig gameConfig, MeterRegistry meterRegistry) {
+        this.puzzleGenerator = puzzleGenerator;
+        this.dictionaryService = dictionaryService;
+        this.gameConfig = gameConfig;
+        this.poolSize = Math.max(1, gameConfig.getLevel().getPuzzlePoolSize());
+        this.refillWorker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wb-puzzle-refill");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+
+        this.packHits = requests(meterRegistry, "pack");
+        this.hits = requests(meterRegistry, "hit");
+        this.misses = requests(meterRegistry, "miss");
+        this.refillLag = Timer.builder("wordbrain.puzzle.pool.refill.lag")
+            .description("Time from a pool being drawn from until it is full again")
+            .register(meterRegistry);
+        Gauge.builder("wordbrain.puzzle.pool.size", pools,
+                p -> p.values().stream().mapToInt(pool -> pool.puzzles.size()).sum())
+            .description("Puzzles waiting across all pools")
+            .register(meterRegistry);
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("wordbrain.puzzle.pool.requests")
+            .description("Level starts by where their puzzle came from")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Map every pack in the configured directory; a topic with no pack is generated live
+     */
+    @PostConstruct
+    public void loadPacks() {
+        String dir = gameConfig.getLevel().getPuzzlePackDir();
+        if (dir == null || dir.isBlank()) {
+            return;
+        }
+        Path packDir = Paths.get(dir);
+        if (!Files.isDirectory(packDir)) {
+            log.warn("Puzzle pack directory {} does not exist, generating all puzzles live", packDir);
+            return;
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(packDir, "*" + PuzzlePack.FILE_EXTENSION)) {
+            for (Path file : files) {
+                try {
+                    PuzzlePack pack = PuzzlePack.open(file);
+                    if (packs.putIfAbsent(pack.getTopic(), pack) != null) {
+                        log.warn("Ignoring {}: topic {} already has a pack", file, pack.getTopic());
+                    } else {
+                        log.info("Loaded puzzle pack {} for topic {}", file.getFileName(), pack.getTopic());
+                    }
+                } catch (IOException e) {
+                    log.error("Could not load puzzle pack {}", file, e);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Could not list puzzle packs in {}", packDir, e);
+        }
+    }
+
+    /**
+     * A puzzle for the level: from a pack while it lasts, then from the pool,
+     * otherwise generated on the spot
+     */
+    public Puzzle take(String topic, int levelNumber) {
+        Pool pool = pool(topic, levelNumber);
+        Puzzle puzzle = pool.nextFromPack();
+        if (puzzle != null) {
+            packHits.increment();
+            return puzzle;
+        }
+
+        puzzle = pool.puzzles.poll();
+        if (puzzle != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            puzzle = puzzleGenerator.generate(pool.key.topic(), levelNumber);
+        }
+        pool.markDrawn();
+        refill(pool);
+        return puzzle;
+    }
+
+    /**
+     * Start filling the pool a level will draw from, ahead of the level itself
+     */
+    public void prefetch(String topic, int levelNumber) {
+        Pool pool = pool(topic, levelNumber);
+        if (!pool.hasPackPuzzles()) {
+            refill(pool);
+        }
+    }
+
+    public int getPooledCount(String topic, int levelNumber) {
+        Pool pool = pools.get(key(topic, levelNumber));
+        return pool != null ? pool.puzzles.size() : 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refillWorker.shutdownNow();
+    }
+
+    private Pool pool(String topic, int levelNumber) {
+        return pools.computeIfAbsent(key(topic, levelNumber), k -> new Pool(k, levelNumber));
+    }
+
+    private PoolKey key(String topic, int levelNumber) {
+        // Unknown topics draw from every word, so they share one pool rather than one each
+        String poolTopic = dictionaryService.hasWords(topic) ? topic : null;
+        return new PoolKey(poolTopic, PuzzleGenerator.tier(levelNumber), puzzleGenerator.gridSize(levelNumber));
+    }
+
+    private void refill(Pool pool) {
+        if (pool.puzzles.remainingCapacity() == 0 || !pool.refilling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refillWorker.execute(() -> fill(pool));
+        } catch (RejectedExecutionException e) {
+            pool.refilling.set(false);
+        }
+    }
+
+    private void fill(Pool pool) {
+        boolean filled = false;
+        try {
+            // Bound the attempts so a shape that keeps defeating the generator cannot spin the worker
+            for (int attempts = 0; attempts < poolSize * 2 && pool.puzzles.remainingCapacity() > 0; attempts++) {
+                Puzzle puzzle = puzzleGenerator.generate(pool.key.topic(), pool.levelNumber);
+                // Only pool layouts known to be solvable; an inline miss can still use a fallback
+                if (puzzle.solvable()) {
+                    pool.puzzles.offer(puzzle);
+                }
+            }
+            if (pool.puzzles.remainingCapacity() == 0) {
+                pool.markFull();
+                filled = true;
+            }
+        } catch (Exception e) {
+            log.error("Puzzle refill failed for {}", pool.key, e);
+        } finally {
+            pool.refilling.set(false);
+        }
+
+        // A draw that landed while we were finishing would have found the flag still set
+        if (filled && pool.puzzles.remainingCapacity() > 0) {
+            refill(pool);
+        }
+    }
+
+    private record PoolKey(String topic, int tier, int gridSize) {
+    }
+
+    private final class Pool {
+        private final PoolKey key;
+        // Any level of the tier generates the same kind of puzzle; keep the first one asked for
+        private final int levelNumber;
+        private final BlockingQueue<Puzzle> puzzles = new ArrayBlockingQueue<>(poolSize);
+        private final AtomicBoolean refilling = new AtomicBoolean(false);
+        private final PuzzlePack pack;
+        private final int packSize;
+        private final AtomicInteger packCursor = new AtomicInteger();
+        private volatile long drawnAt;
+
+        Pool(PoolKey key, int levelNumber) {
+            this.key = key;
+            this.levelNumber = levelNumber;
+            this.pack = key.topic() != null ? packs.get(key.topic()) : null;
+            this.packSize = pack != null ? pack.size(key.tier(), key.gridSize()) : 0;
+        }
+
+        boolean hasPackPuzzles() {
+            return packCursor.get() < packSize;
+        }
+
+        Puzzle nextFromPack() {
+            if (!hasPackPuzzles()) {
+                return null;
+            }
+            int index = packCursor.getAndIncrement();
+            return index < packSize ? pack.read(key.tier(), key.gridSize(), index) : null;
+        }
+
+        void markDrawn() {
+            if (drawnAt == 0) {
+                drawnAt = System.nanoTime();
+            }
+        }
+
+        void markFull() {
+            long since = drawnAt;
+            if (since != 0) {
+                refillLag.record(System.nanoTime() - since, TimeUnit.NANOSECONDS);
+                drawnAt = 0;
+            }
+        }
+    }
+}
@@ -1,79 +1,251 @@
 package com.wordbrain2.service.game;
 
+import com.wordbrain2.service.core.RoomExecutor;
+import com.wordbrain2.util.HashedWheelTimer;
+import com.wordbrain2.websocket.message.TimerUpdatePayload;
 import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
 import java.util.Map;
 import java.util.concurrent.*;
 
+/**
+ * Room timers on a single hashed timing wheel. Level timers keep an absolute
+ * deadline and are re-armed once per second (or only at the deadline when they
+ * have no tick callback), so adding time or pausing is exact rather than
+ * counted in whole ticks. The wheel only keeps time;
+ * callbacks run on the room's mailbox so they are serialized with the
+ * room's other commands.
+ */
 @Service
 public class TimerService {
-    private final Map<String, ScheduledFuture<?>> roomTimers = new ConcurrentHashMap<>();
-    private final Map<String, Integer> roomTimeRemaining = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(10);
-    
+    private static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<String, RoomTimer> roomTimers = new ConcurrentHashMap<>();
+    private final HashedWheelTimer wheel = new HashedWheelTimer("wb-timer-wheel", 100, TimeUnit.MILLISECONDS, 512);
+    private final RoomExecutor roomExecutor;
+
+    public TimerService(RoomExecutor roomExecutor) {
+        this.roomExecutor = roomExecutor;
+    }
+
+    /**
+     * @param onTick run every second, or null for a deadline-only timer that just fires onComplete
+     */
     public void startTimer(String roomCode, int duration, Runnable onTick, Runnable onComplete) {
-        stopTimer(roomCode);
-        
-        roomTimeRemaining.put(roomCode, duration);
-        
-        ScheduledFuture<?> future = scheduler.scheduleAtFixedRate(() -> {
-            int remaining = roomTimeRemaining.get(roomCode);
-            if (remaining > 0) {
-                roomTimeRemaining.put(roomCode, remaining - 1);
-                onTick.run();
-            } else {
-                stopTimer(roomCode);
-                onComplete.run();
-            }
-        }, 0, 1, TimeUnit.SECONDS);
-        
-        roomTimers.put(roomCode, future);
+        RoomTimer timer = new RoomTimer(roomCode, onTick, onComplete);
+        RoomTimer previous = roomTimers.put(roomCode, timer);
+        if (previous != null) {
+            previous.cancel();
+        }
+        timer.start(System.nanoTime() + duration * SECOND_NANOS);
     }
-    
+
     public void stopTimer(String roomCode) {
-        ScheduledFuture<?> future = roomTimers.remove(roomCode);
-        if (future != null) {
-            future.cancel(false);
+        RoomTimer timer = roomTimers.remove(roomCode);
+        if (timer != null) {
+            timer.cancel();
         }
-        roomTimeRemaining.remove(roomCode);
     }
-    
+
     public void pauseTimer(String roomCode) {
-        ScheduledFuture<?> future = roomTimers.get(roomCode);
-        if (future != null) {
-            future.cancel(false);
+        RoomTimer timer = roomTimers.get(roomCode);
+        if (timer != null) {
+            timer.pause();
+        }
+    }
+
+    public void resumeTimer(String roomCode) {
+        RoomTimer timer = roomTimers.get(roomCode);
+        if (timer != null) {
+            timer.resume();
         }
     }
-    
+
     public void addTime(String roomCode, int seconds) {
-        Integer current = roomTimeRemaining.get(roomCode);
-        if (current != null) {
-            roomTimeRemaining.put(roomCode, current + seconds);
+        RoomTimer timer = roomTimers.get(roomCode);
+        if (timer != null) {
+            timer.extend(seconds * SECOND_NANOS);
         }
     }
-    
+
     public int getTimeRemaining(String roomCode) {
-        return roomTimeRemaining.getOrDefault(roomCode, 0);
+        RoomTimer timer = roomTimers.get(roomCode);
+        if (timer == null) {
+            return 0;
+        }
+        long remaining = timer.remainingNanos();
+        return (int) ((remaining + SECOND_NANOS - 1) / SECOND_NANOS);
     }
-    
+
+    /**
+     * Absolute level deadline on the System.nanoTime clock, or 0 when no timer is running
+     */
+    public long getDeadlineNanos(String roomCode) {
+        RoomTimer timer = roomTimers.get(roomCode);
+        return timer != null ? timer.deadlineNanos() : 0;
+    }
+
+    /**
+     * The room's level clock as clients see it: remaining seconds and the deadline in server epoch millis
+     */
+    public TimerUpdatePayload snapshot(String roomCode) {
+        long serverTime = System.currentTimeMillis();
+        RoomTimer timer = roomTimers.get(roomCode);
+        if (timer == null) {
+            return new TimerUpdatePayload(0, serverTime, 0, false);
+        }
+        long remaining = timer.remainingNanos();
+        boolean paused = !timer.isRunning();
+        long deadline = paused ? 0 : serverTime + TimeUnit.NANOSECONDS.toMillis(remaining);
+        return new TimerUpdatePayload((remaining + SECOND_NANOS - 1) / SECOND_NANOS, serverTime, deadline, paused);
+    }
+
     public boolean isTimerActive(String roomCode) {
-        ScheduledFuture<?> future = roomTimers.get(roomCode);
-        return future != null && !future.isDone();
+        RoomTimer timer = roomTimers.get(roomCode);
+        return timer != null && timer.isRunning();
     }
-    
+
     public void startCountdown(String roomCode, int seconds, Runnable onComplete) {
-        scheduler.schedule(() -> {
-            onComplete.run();
-        }, seconds, TimeUnit.SECONDS);
+        schedule(roomCode, seconds, TimeUnit.SECONDS, onComplete);
     }
-    
+
+    /**
+     * One-off task that is not tied to a room. It runs on the wheel thread itself,
+     * so it must only hand work off (send a frame, queue a command)
+     */
+    public HashedWheelTimer.Timeout schedule(long delay, TimeUnit unit, Runnable task) {
+        return wheel.schedule(delay, unit, task);
+    }
+
+    /**
+     * One-off task for a room (effect expiry, reaping and the like), run on its mailbox;
+     * cancel the returned handle to drop it
+     */
+    public HashedWheelTimer.Timeout schedule(String roomCode, long delay, TimeUnit unit, Runnable task) {
+        return wheel.schedule(delay, unit, () -> roomExecutor.execute(roomCode, task));
+    }
+
+    @PreDestroy
     public void shutdown() {
-        scheduler.shutdown();
-        try {
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
+        roomTimers.values().forEach(RoomTimer::cancel);
+        roomTimers.clear();
+        wheel.stop();
+    }
+
+    private final class RoomTimer {
+        private final String roomCode;
+        private final Runnable onTick;
+        private final Runnable onComplete;
+        private long deadlineNanos;
+        private long pausedRemainingNanos = -1;
+        private HashedWheelTimer.Timeout next;
+        private boolean cancelled;
+        // Past its deadline with onComplete queued; stays registered so stopTimer can still cancel it
+        private boolean fired;
+
+        RoomTimer(String roomCode, Runnable onTick, Runnable onComplete) {
+            this.roomCode = roomCode;
+            this.onTick = onTick;
+            this.onComplete = onComplete;
+        }
+
+        synchronized void start(long deadline) {
+            this.deadlineNanos = deadline;
+            // First tick fires right away, as the fixed-rate timer it replaces did
+            next = wheel.schedule(0, TimeUnit.NANOSECONDS, this::tick);
+        }
+
+        private void tick() {
+            boolean complete;
+            synchronized (this) {
+                if (cancelled || fired || pausedRemainingNanos >= 0) {
+                    return;
+                }
+                long now = System.nanoTime();
+                complete = now >= deadlineNanos;
+                fired = complete;
+                if (!complete && onTick == null) {
+                    next = wheel.scheduleAt(deadlineNanos, this::tick);
+                } else if (!complete) {
+                    // Next tick on the next whole second before the deadline, or at the deadline itself
+                    long remaining = deadlineNanos - now;
+                    long untilNext = remaining % SECOND_NANOS;
+                    next = wheel.scheduleAt(now + (untilNext == 0 ? SECOND_NANOS : untilNext), this::tick);
+                }
+            }
+
+            if (complete) {
+                roomExecutor.execute(roomCode, this::complete);
+            } else if (onTick != null) {
+                roomExecutor.execute(roomCode, onTick);
+            }
+        }
+
+        /**
+         * Runs on the room's mailbox, so a stopTimer or startTimer queued ahead of it wins
+         */
+        private void complete() {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+            }
+            roomTimers.remove(roomCode, this);
+            onComplete.run();
+        }
+
+        synchronized void pause() {
+            if (cancelled || fired || pausedRemainingNanos >= 0) {
+                return;
+            }
+            pausedRemainingNanos = Math.max(0, deadlineNanos - System.nanoTime());
+            if (next != null) {
+                next.cancel();
+            }
+        }
+
+        synchronized void resume() {
+            if (cancelled || fired || pausedRemainingNanos < 0) {
+                return;
+            }
+            long remaining = pausedRemainingNanos;
+            pausedRemainingNanos = -1;
+            start(System.nanoTime() + remaining);
+        }
+
+        synchronized void extend(long nanos) {
+            if (cancelled || fired) {
+                return;
+            }
+            if (pausedRemainingNanos >= 0) {
+                pausedRemainingNanos += nanos;
+            } else {
+                deadlineNanos += nanos;
+            }
+        }
+
+        synchronized long remainingNanos() {
+            if (pausedRemainingNanos >= 0) {
+                return pausedRemainingNanos;
+            }
+            return Math.max(0, deadlineNanos - System.nanoTime());
+        }
+
+        synchronized long deadlineNanos() {
+            return pausedRemainingNanos >= 0 ? 0 : deadlineNanos;
+        }
+
+        synchronized boolean isRunning() {
+            return !cancelled && !fired && pausedRemainingNanos < 0;
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (next != null) {
+                next.cancel();
             }
-        } catch (InterruptedException e) {
-            scheduler.shutdownNow();
         }
     }
-}
\ No newline at end of file
+}
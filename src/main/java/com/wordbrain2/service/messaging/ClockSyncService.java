@@ -0,0 +1,131 @@
+package com.wordbrain2.service.messaging;
+
+import com.wordbrain2.config.GameConfig;
+import com.wordbrain2.controller.websocket.ConnectionManager;
+import com.wordbrain2.controller.websocket.SessionContext;
+import com.wordbrain2.model.enums.MessageType;
+import com.wordbrain2.service.game.TimerService;
+import com.wordbrain2.util.ClockEstimator;
+import com.wordbrain2.util.TimeSync;
+import com.wordbrain2.websocket.message.BaseMessage;
+import com.wordbrain2.websocket.message.TimeSyncPayload;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TIME_SYNC ping/pong per session: a short burst on connect, then a ping every
+ * clock-sync interval. Each pong feeds the session's ClockEstimator, which is
+ * used to date word submissions at the moment the player made them rather
+ * than when their frame reached the server. The session context records when
+ * each ping was sent, and a pong is only timed against that record, so a
+ * client cannot shape its own RTT by echoing a different serverTime.
+ */
+@Slf4j
+@Service
+public class ClockSyncService {
+
+    private static final int INITIAL_PINGS = 3;
+    private static final long INITIAL_PING_SPACING_MS = 1000;
+
+    private final ConnectionManager connectionManager;
+    private final TimerService timerService;
+    private final TimeSync timeSync;
+    private final GameConfig gameConfig;
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final DistributionSummary rttSummary;
+
+    public ClockSyncService(ConnectionManager connectionManager, TimerService timerService, TimeSync timeSync,
+                            MeterRegistry meterRegistry, GameConfig gameConfig) {
+        this.connectionManager = connectionManager;
+        this.timerService = timerService;
+        this.timeSync = timeSync;
+        this.gameConfig = gameConfig;
+        // One summary for every session keeps the series bounded; each session's own
+        // estimate is served with the player's statistics
+        this.rttSummary = DistributionSummary.builder("wordbrain.session.rtt")
+            .description("Round-trip time measured by TIME_SYNC, over all sessions")
+            .baseUnit("milliseconds")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Begin pinging a newly connected session
+     */
+    public void start(String sessionId) {
+        for (int i = 0; i < INITIAL_PINGS; i++) {
+            boolean last = i == INITIAL_PINGS - 1;
+            timerService.schedule(i * INITIAL_PING_SPACING_MS, TimeUnit.MILLISECONDS, () -> ping(sessionId, last));
+        }
+    }
+
+    private void ping(String sessionId, boolean reschedule) {
+        SessionContext context = connectionManager.getContext(sessionId);
+        if (context == null) {
+            // Session is gone; stop pinging
+            return;
+        }
+
+        TimeSyncPayload ping = new TimeSyncPayload(sequence.incrementAndGet(), timeSync.getCurrentServerTime(), 0);
+        context.pingSent(ping.seq(), ping.serverTime());
+        connectionManager.sendMessage(sessionId, new BaseMessage(MessageType.TIME_SYNC, ping));
+
+        if (reschedule) {
+            timerService.schedule(gameConfig.getServer().getClockSyncIntervalMs(), TimeUnit.MILLISECONDS,
+                () -> ping(sessionId, true));
+        }
+    }
+
+    /**
+     * Fold a client's pong into its session's estimate
+     */
+    public void onPong(String sessionId, TimeSyncPayload pong, long receivedAt) {
+        SessionContext context = connectionManager.getContext(sessionId);
+        if (context == null) {
+            return;
+        }
+
+        long sentAt = context.pongReceived(pong.seq());
+        if (sentAt < 0) {
+            log.debug("Ignoring TIME_SYNC pong from {} for unknown ping {}", sessionId, pong.seq());
+            return;
+        }
+
+        long rtt = receivedAt - sentAt;
+        long oneWayDelay = timeSync.calculateNetworkDelay(sentAt, receivedAt, receivedAt);
+        // The client read its clock roughly one one-way delay after we sent the ping
+        long offset = sentAt + oneWayDelay - pong.clientTime();
+
+        ClockEstimator clock = context.getClock();
+        boolean accepted = clock.addSample(rtt, offset);
+        rttSummary.record(rtt);
+        log.debug("Clock sample for {}: rtt={}ms offset={}ms accepted={} (srtt={}ms)",
+            sessionId, rtt, offset, accepted, Math.round(clock.getRttMillis()));
+    }
+
+    /**
+     * Server time at which the player actually submitted: the client's timestamp
+     * mapped onto the server clock, or the receive time when that cannot be trusted
+     */
+    public long compensatedTime(String sessionId, long clientTime, long receivedAt) {
+        SessionContext context = connectionManager.getContext(sessionId);
+        if (clientTime <= 0 || context == null || !context.getClock().isSynced()) {
+            return receivedAt;
+        }
+
+        ClockEstimator clock = context.getClock();
+        long submittedAt = timeSync.adjustClientTime(clientTime, Math.round(clock.getOffsetMillis()));
+        // A frame cannot be older than the link's RTT allows, and never older than the configured cap
+        long maxDrift = Math.min(gameConfig.getServer().getMaxLatencyCompensationMs(),
+            Math.round(clock.getRttMillis() + 4 * clock.getRttDeviationMillis()));
+        if (submittedAt > receivedAt || !timeSync.isValidClientTimestamp(submittedAt, maxDrift)) {
+            return receivedAt;
+        }
+        return submittedAt;
+    }
+}
@@ -0,0 +1,163 @@
+package com.wordbrain2.service.messaging;
+
+import com.wordbrain2.config.GameConfig;
+import com.wordbrain2.model.enums.MessageType;
+import com.wordbrain2.service.core.GameEngine;
+import com.wordbrain2.service.game.TimerService;
+import com.wordbrain2.util.HashedWheelTimer;
+import com.wordbrain2.websocket.message.LeaderboardPayload;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces LEADERBOARD_UPDATE per room. A change only marks the room dirty; the
+ * first mark arms a one-off tick for the broadcast interval, and when it fires
+ * one update goes out carrying just the rows that differ from the last one sent.
+ * A burst of submits therefore costs one frame per player per interval rather
+ * than one per submit. Level end flushes the full board at once.
+ *
+ * Marks, ticks and flushes all run on the room's mailbox, so a room's state is
+ * only ever touched by one thread at a time.
+ */
+@Service
+public class LeaderboardBroadcastService {
+
+    private final GameEngine gameEngine;
+    private final MessageBroadcastService broadcastService;
+    private final TimerService timerService;
+    private final long intervalMs;
+    private final Map<String, RoomBoard> rooms = new ConcurrentHashMap<>();
+    private final Counter fullUpdates;
+    private final Counter partialUpdates;
+    private final Counter coalescedMarks;
+
+    public LeaderboardBroadcastService(GameEngine gameEngine, MessageBroadcastService broadcastService,
+                                       TimerService timerService, GameConfig gameConfig, MeterRegistry meterRegistry) {
+        this.gameEngine = gameEngine;
+        this.broadcastService = broadcastService;
+        this.timerService = timerService;
+        this.intervalMs = gameConfig.getLeaderboard().getBroadcastIntervalMs();
+        this.fullUpdates = Counter.builder("wordbrain.leaderboard.broadcasts")
+            .description("LEADERBOARD_UPDATE broadcasts by kind")
+            .tag("kind", "full")
+            .register(meterRegistry);
+        this.partialUpdates = Counter.builder("wordbrain.leaderboard.broadcasts")
+            .description("LEADERBOARD_UPDATE broadcasts by kind")
+            .tag("kind", "partial")
+            .register(meterRegistry);
+        this.coalescedMarks = Counter.builder("wordbrain.leaderboard.coalesced")
+            .description("Leaderboard changes folded into an already pending broadcast")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Note that the room's standings may have changed; call on the room's mailbox
+     */
+    public void markDirty(String roomCode) {
+        RoomBoard board = rooms.computeIfAbsent(roomCode, k -> new RoomBoard());
+        if (intervalMs <= 0) {
+            send(roomCode, board, false);
+            return;
+        }
+        if (board.dirty) {
+            coalescedMarks.increment();
+            return;
+        }
+        board.dirty = true;
+        if (board.pending == null) {
+            int tick = ++board.tick;
+            board.pending = timerService.schedule(roomCode, intervalMs, TimeUnit.MILLISECONDS,
+                () -> onTick(roomCode, tick));
+        }
+    }
+
+    /**
+     * Broadcast the full board now, dropping any pending tick; for level end
+     */
+    public void flush(String roomCode) {
+        RoomBoard board = rooms.computeIfAbsent(roomCode, k -> new RoomBoard());
+        cancelPending(board);
+        send(roomCode, board, true);
+    }
+
+    /**
+     * Drop a room's state, e.g. once it is closed
+     */
+    public void forget(String roomCode) {
+        RoomBoard board = rooms.remove(roomCode);
+        if (board != null) {
+            cancelPending(board);
+        }
+    }
+
+    private void onTick(String roomCode, int tick) {
+        RoomBoard board = rooms.get(roomCode);
+        // A tick already queued on the mailbox when it was cancelled is stale
+        if (board == null || board.tick != tick) {
+            return;
+        }
+        board.pending = null;
+        if (board.dirty) {
+            send(roomCode, board, false);
+        }
+    }
+
+    private void send(String roomCode, RoomBoard board, boolean full) {
+        board.dirty = false;
+        LeaderboardPayload payload = gameEngine.getLeaderboard(roomCode);
+        if (payload == null) {
+            forget(roomCode);
+            return;
+        }
+
+        List<LeaderboardPayload.Entry> rows = payload.leaderboard();
+        Map<String, LeaderboardPayload.Entry> sent = new HashMap<>(rows.size() * 2);
+        List<LeaderboardPayload.Entry> changed = new ArrayList<>();
+        for (LeaderboardPayload.Entry row : rows) {
+            sent.put(row.playerId(), row);
+            if (board.lastSent == null || !row.equals(board.lastSent.get(row.playerId()))) {
+                changed.add(row);
+            }
+        }
+        // A player who left has no row to change, so their removal needs the full board
+        boolean partial = !full && board.lastSent != null && sent.keySet().containsAll(board.lastSent.keySet());
+        board.lastSent = sent;
+
+        if (!partial) {
+            broadcastService.broadcastToRoom(roomCode, MessageType.LEADERBOARD_UPDATE, payload);
+            fullUpdates.increment();
+        } else if (!changed.isEmpty()) {
+            broadcastService.broadcastToRoom(roomCode, MessageType.LEADERBOARD_UPDATE,
+                new LeaderboardPayload(changed, payload.levelProgress(), true));
+            partialUpdates.increment();
+        }
+    }
+
+    private void cancelPending(RoomBoard board) {
+        if (board.pending != null) {
+            board.pending.cancel();
+            board.pending = null;
+            board.tick++;
+        }
+        board.dirty = false;
+    }
+
+    /**
+     * What a room's players were last sent, and whether an update is due
+     */
+    private static final class RoomBoard {
+        private boolean dirty;
+        private HashedWheelTimer.Timeout pending;
+        private int tick;
+        // Rows by player id as of the last broadcast; null before the first
+        private Map<String, LeaderboardPayload.Entry> lastSent;
+    }
+}
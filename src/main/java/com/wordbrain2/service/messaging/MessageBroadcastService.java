@@ -1,7 +1,7 @@
 package com.wordbrain2.service.messaging;
 
-import com.google.gson.Gson;
 import com.wordbrain2.controller.websocket.ConnectionManager;
+import com.wordbrain2.controller.websocket.OutboundFrame;
 import com.wordbrain2.model.entity.Player;
 import com.wordbrain2.model.entity.Room;
 import com.wordbrain2.model.enums.MessageType;
@@ -24,7 +24,6 @@ public class MessageBroadcastService {
     
     private final RoomService roomService;
     private final ConnectionManager connectionManager;
-    private final Gson gson = new Gson();
     
     public MessageBroadcastService(RoomService roomService, ConnectionManager connectionManager) {
         this.roomService = roomService;
@@ -48,7 +47,7 @@ public class MessageBroadcastService {
             return;
         }
         
-        BaseMessage message = new BaseMessage(type, convertToMap(data));
+        BaseMessage message = new BaseMessage(type, wrapData(data));
         broadcastToRoom(roomCode, message, excludeSessionId);
     }
     
@@ -69,13 +68,16 @@ public class MessageBroadcastService {
             return;
         }
         
+        // Encode once; every recipient gets the same immutable frame
+        OutboundFrame frame = connectionManager.encode(message);
+        
         int sentCount = 0;
         for (Player player : room.getPlayers()) {
             String sessionId = player.getSessionId();
             if (sessionId == null) continue;
             if (excludeSessionId != null && excludeSessionId.equals(sessionId)) continue;
             
-            connectionManager.sendMessage(sessionId, message);
+            connectionManager.sendFrame(sessionId, frame);
             sentCount++;
         }
         
@@ -86,7 +88,7 @@ public class MessageBroadcastService {
      * Send a message to a specific session
      */
     public void sendMessageToSession(String sessionId, MessageType type, Object data) {
-        BaseMessage message = new BaseMessage(type, convertToMap(data));
+        BaseMessage message = new BaseMessage(type, wrapData(data));
         connectionManager.sendMessage(sessionId, message);
     }
     
@@ -94,7 +96,7 @@ public class MessageBroadcastService {
      * Send a message to a specific player
      */
     public void sendMessageToPlayer(String playerId, MessageType type, Object data) {
-        BaseMessage message = new BaseMessage(type, convertToMap(data));
+        BaseMessage message = new BaseMessage(type, wrapData(data));
         sendMessageToPlayer(playerId, message);
     }
     
@@ -149,9 +151,10 @@ public class MessageBroadcastService {
         sendMessageToSession(sessionId, MessageType.INVALID_ACTION, Map.of("reason", reason));
     }
     
-    private Map<String, Object> convertToMap(Object data) {
-        if (data instanceof Map) {
-            return (Map<String, Object>) data;
+    private Object wrapData(Object data) {
+        if (data instanceof Map || (data != null && data.getClass().isRecord())) {
+            // Payload records are serialized as-is, without copying into a map
+            return data;
         } else {
             // Wrap non-map objects
             return Map.of("data", data);
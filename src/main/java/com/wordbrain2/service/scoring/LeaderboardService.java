@@ -1,11 +1,16 @@
 package com.wordbrain2.service.scoring;
 
+import com.wordbrain2.config.GameConfig;
+import com.wordbrain2.model.enums.LeaderboardWindow;
 import com.wordbrain2.model.scoring.Leaderboard;
 import com.wordbrain2.model.scoring.Score;
+import com.wordbrain2.model.scoring.WindowScore;
+import com.wordbrain2.model.scoring.WindowedLeaderboard;
 import com.wordbrain2.model.entity.Player;
 import com.wordbrain2.service.core.PlayerService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import javax.annotation.PostConstruct;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
@@ -15,8 +20,24 @@ public class LeaderboardService {
     @Autowired
     private PlayerService playerService;
     
+    @Autowired
+    private GameConfig gameConfig;
+    
     private final Map<String, Leaderboard> roomLeaderboards = new ConcurrentHashMap<>();
     private final Leaderboard globalLeaderboard = new Leaderboard("GLOBAL");
+    // Hourly, daily and weekly global boards; all-time is globalLeaderboard
+    private final Map<LeaderboardWindow, WindowedLeaderboard> windowedLeaderboards = new EnumMap<>(LeaderboardWindow.class);
+    
+    @PostConstruct
+    public void initWindows() {
+        long now = System.currentTimeMillis();
+        int capacity = gameConfig.getLeaderboard().getWindowCapacity();
+        for (LeaderboardWindow window : LeaderboardWindow.values()) {
+            if (window != LeaderboardWindow.ALL_TIME) {
+                windowedLeaderboards.put(window, new WindowedLeaderboard(window, capacity, now));
+            }
+        }
+    }
     
     public Leaderboard getLeaderboard(String roomCode) {
         return roomLeaderboards.computeIfAbsent(roomCode, k -> new Leaderboard(k));
@@ -32,6 +53,12 @@ public class LeaderboardService {
         
         // Update global leaderboard
         globalLeaderboard.updateScore(score);
+        
+        // Credit the points to the current period of each windowed board
+        long now = System.currentTimeMillis();
+        for (WindowedLeaderboard board : windowedLeaderboards.values()) {
+            board.addPoints(playerId, points, now);
+        }
     }
     
     public void recordCorrectAnswer(String roomCode, String playerId) {
@@ -59,10 +86,41 @@ public class LeaderboardService {
         return globalLeaderboard.getTopScores(limit);
     }
     
+    /**
+     * Top of a global board by points earned in the window's current period;
+     * all-time standings come from the total score
+     */
+    public List<WindowScore> getGlobalTopPlayers(LeaderboardWindow window, int limit) {
+        if (window == LeaderboardWindow.ALL_TIME) {
+            List<WindowScore> scores = new ArrayList<>();
+            for (Score score : globalLeaderboard.getTopScores(limit)) {
+                scores.add(new WindowScore(score.getRank(), score.getPlayerId(), score.getTotalPoints()));
+            }
+            return scores;
+        }
+        return windowedLeaderboards.get(window).getTopScores(limit, System.currentTimeMillis());
+    }
+    
+    /**
+     * The player's standing on a global board, or null when they have no points in it
+     */
+    public WindowScore getGlobalPlayerScore(LeaderboardWindow window, String playerId) {
+        if (window == LeaderboardWindow.ALL_TIME) {
+            Score score = globalLeaderboard.getPlayerScore(playerId);
+            return score != null ? new WindowScore(score.getRank(), playerId, score.getTotalPoints()) : null;
+        }
+        return windowedLeaderboards.get(window).getPlayerScore(playerId, System.currentTimeMillis());
+    }
+    
+    /**
+     * The board behind a timed window, for its period bounds; null for all-time
+     */
+    public WindowedLeaderboard getWindowedLeaderboard(LeaderboardWindow window) {
+        return windowedLeaderboards.get(window);
+    }
+    
     public int getPlayerRank(String roomCode, String playerId) {
-        Leaderboard board = getLeaderboard(roomCode);
-        Score playerScore = board.getPlayerScore(playerId);
-        return playerScore != null ? playerScore.getRank() : -1;
+        return getLeaderboard(roomCode).getRank(playerId);
     }
     
     public Score getPlayerScore(String roomCode, String playerId) {
@@ -74,15 +132,16 @@ public class LeaderboardService {
         Leaderboard board = getLeaderboard(roomCode);
         Map<String, Object> data = new HashMap<>();
         
+        List<Score> scores = board.getScores();
         data.put("roomCode", roomCode);
-        data.put("scores", board.getScores());
+        data.put("scores", scores);
         data.put("lastUpdated", board.getLastUpdated());
         data.put("currentLevel", board.getCurrentLevel());
         data.put("totalLevels", board.getTotalLevels());
         
         // Add player names
         List<Map<String, Object>> enrichedScores = new ArrayList<>();
-        for (Score score : board.getScores()) {
+        for (Score score : scores) {
             Map<String, Object> scoreData = new HashMap<>();
             Player player = playerService.getPlayer(score.getPlayerId());
             
@@ -102,9 +161,7 @@ public class LeaderboardService {
     }
     
     public void resetRoomLeaderboard(String roomCode) {
-        Leaderboard board = getLeaderboard(roomCode);
-        board.setScores(new ArrayList<>());
-        board.setLastUpdated(System.currentTimeMillis());
+        getLeaderboard(roomCode).clear();
     }
     
     public void removeRoomLeaderboard(String roomCode) {
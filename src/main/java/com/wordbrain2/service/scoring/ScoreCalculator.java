@@ -24,6 +24,21 @@ public class ScoreCalculator {
         return (int) Math.round(score);
     }
     
+    /**
+     * Speed multiplier for a word found at submittedAt, the latency-compensated
+     * server time of the submission
+     */
+    public double calculateSpeedFactor(long submittedAt, long levelStartTime, int totalDuration) {
+        long duration = totalDuration * 1000L;
+        long timeRemaining = Math.max(0, Math.min(duration, duration - (submittedAt - levelStartTime)));
+        
+        double percentRemaining = (double) timeRemaining / duration;
+        double minMultiplier = gameConfig.getScore().getSpeedMultiplierMin();
+        double maxMultiplier = gameConfig.getScore().getSpeedMultiplierMax();
+        
+        return minMultiplier + (maxMultiplier - minMultiplier) * percentRemaining;
+    }
+    
     private double calculateStreakMultiplier(int streak) {
         if (streak <= 0) return 1.0;
         
@@ -1,64 +1,115 @@
 package com.wordbrain2.service.scoring;
 
-import com.wordbrain2.model.entity.Player;
-import com.wordbrain2.model.scoring.Score;
 import com.wordbrain2.repository.LeaderboardRepository;
+import com.wordbrain2.util.LatencyHistogram;
 import org.springframework.stereotype.Service;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Player and room statistics, written from every room's worker at once. Counters
+ * are LongAdders, so concurrent increments land on separate cells instead of
+ * contending, and response times go into per-player LatencyHistograms plus one
+ * global one. Reads sum the cells and never block writers.
+ */
 @Service
 public class StatisticsService {
-    
+
+    private static final double[] PERCENTILES = {50, 95, 99};
+
     private final LeaderboardRepository leaderboardRepository;
-    private final Map<String, PlayerStats> playerStats = new HashMap<>();
-    
+    private final Map<String, PlayerStats> playerStats = new ConcurrentHashMap<>();
+    private final Map<String, RoomStats> roomStats = new ConcurrentHashMap<>();
+    private final LatencyHistogram globalResponseTimes = new LatencyHistogram();
+
     public StatisticsService(LeaderboardRepository leaderboardRepository) {
         this.leaderboardRepository = leaderboardRepository;
     }
-    
+
     public void recordGameStart(String playerId, String roomCode) {
         PlayerStats stats = getOrCreatePlayerStats(playerId);
         stats.incrementGamesPlayed();
         stats.setLastRoomCode(roomCode);
     }
-    
+
     public void recordWordSubmission(String playerId, boolean correct, int points, long responseTime) {
         PlayerStats stats = getOrCreatePlayerStats(playerId);
-        
+
         if (correct) {
             stats.incrementCorrectWords();
             stats.addPoints(points);
         } else {
             stats.incrementWrongWords();
         }
-        
-        stats.updateAverageResponseTime(responseTime);
+
+        stats.recordResponseTime(responseTime);
+        globalResponseTimes.record(responseTime);
+    }
+
+    /**
+     * @param responseTime ms from the start of the level to the submit
+     */
+    public void recordWordSubmission(String roomCode, String playerId, boolean correct, int points, long responseTime) {
+        recordWordSubmission(playerId, correct, points, responseTime);
+
+        RoomStats stats = getOrCreateRoomStats(roomCode);
+        if (correct) {
+            stats.correctWords.increment();
+            stats.points.add(points);
+        } else {
+            stats.wrongWords.increment();
+        }
     }
-    
+
     public void recordBoosterUsage(String playerId, String boosterType) {
         PlayerStats stats = getOrCreatePlayerStats(playerId);
         stats.incrementBoostersUsed();
         stats.recordBoosterUsage(boosterType);
     }
-    
+
     public void recordGameEnd(String playerId, boolean won, int finalScore) {
         PlayerStats stats = getOrCreatePlayerStats(playerId);
-        
+
         if (won) {
             stats.incrementWins();
         } else {
             stats.incrementLosses();
         }
-        
+
         stats.updateHighScore(finalScore);
     }
-    
+
     public PlayerStats getPlayerStatistics(String playerId) {
         return getOrCreatePlayerStats(playerId);
     }
-    
+
+    /**
+     * A player's stats if they have any, without creating an entry
+     */
+    public PlayerStats findPlayerStatistics(String playerId) {
+        return playerStats.get(playerId);
+    }
+
+    public void removePlayerStatistics(String playerId) {
+        playerStats.remove(playerId);
+    }
+
+    public RoomStats getRoomStatistics(String roomCode) {
+        return roomStats.get(roomCode);
+    }
+
+    public void removeRoomStatistics(String roomCode) {
+        roomStats.remove(roomCode);
+    }
+
+    public Map<String, Object> getGlobalResponseTimes() {
+        return summarize(globalResponseTimes);
+    }
+
     public double getWinRate(String playerId) {
         PlayerStats stats = playerStats.get(playerId);
         if (stats == null || stats.getGamesPlayed() == 0) {
@@ -66,82 +117,113 @@ public class StatisticsService {
         }
         return (double) stats.getWins() / stats.getGamesPlayed();
     }
-    
+
     public double getAccuracy(String playerId) {
         PlayerStats stats = playerStats.get(playerId);
         if (stats == null) {
             return 0.0;
         }
-        
+
         int totalWords = stats.getCorrectWords() + stats.getWrongWords();
         if (totalWords == 0) {
             return 0.0;
         }
-        
+
         return (double) stats.getCorrectWords() / totalWords;
     }
-    
+
     private PlayerStats getOrCreatePlayerStats(String playerId) {
         return playerStats.computeIfAbsent(playerId, k -> new PlayerStats(playerId));
     }
-    
+
+    private RoomStats getOrCreateRoomStats(String roomCode) {
+        return roomStats.computeIfAbsent(roomCode, k -> new RoomStats());
+    }
+
+    /**
+     * Count, mean, max and p50/p95/p99 in ms, read from one snapshot
+     */
+    static Map<String, Object> summarize(LatencyHistogram histogram) {
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", snapshot.getCount());
+        summary.put("mean", snapshot.getMean());
+        for (double percentile : PERCENTILES) {
+            summary.put("p" + (int) percentile, snapshot.percentile(percentile));
+        }
+        summary.put("max", snapshot.getMax());
+        return summary;
+    }
+
     public static class PlayerStats {
         private final String playerId;
-        private int gamesPlayed;
-        private int wins;
-        private int losses;
-        private int correctWords;
-        private int wrongWords;
-        private int totalPoints;
-        private int highScore;
-        private int boostersUsed;
-        private double averageResponseTime;
-        private int responseCount;
-        private String lastRoomCode;
-        private final Map<String, Integer> boosterUsageCount = new HashMap<>();
-        
+        private final LongAdder gamesPlayed = new LongAdder();
+        private final LongAdder wins = new LongAdder();
+        private final LongAdder losses = new LongAdder();
+        private final LongAdder correctWords = new LongAdder();
+        private final LongAdder wrongWords = new LongAdder();
+        private final LongAdder totalPoints = new LongAdder();
+        private final LongAccumulator highScore = new LongAccumulator(Long::max, 0);
+        private final LongAdder boostersUsed = new LongAdder();
+        private final LatencyHistogram responseTimes = new LatencyHistogram();
+        private volatile String lastRoomCode;
+        private final Map<String, LongAdder> boosterUsageCount = new ConcurrentHashMap<>();
+
         public PlayerStats(String playerId) {
             this.playerId = playerId;
         }
-        
+
         // Increment methods
-        public void incrementGamesPlayed() { this.gamesPlayed++; }
-        public void incrementWins() { this.wins++; }
-        public void incrementLosses() { this.losses++; }
-        public void incrementCorrectWords() { this.correctWords++; }
-        public void incrementWrongWords() { this.wrongWords++; }
-        public void incrementBoostersUsed() { this.boostersUsed++; }
-        
-        public void addPoints(int points) { this.totalPoints += points; }
-        
+        public void incrementGamesPlayed() { this.gamesPlayed.increment(); }
+        public void incrementWins() { this.wins.increment(); }
+        public void incrementLosses() { this.losses.increment(); }
+        public void incrementCorrectWords() { this.correctWords.increment(); }
+        public void incrementWrongWords() { this.wrongWords.increment(); }
+        public void incrementBoostersUsed() { this.boostersUsed.increment(); }
+
+        public void addPoints(int points) { this.totalPoints.add(points); }
+
         public void updateHighScore(int score) {
-            if (score > this.highScore) {
-                this.highScore = score;
-            }
+            this.highScore.accumulate(score);
         }
-        
-        public void updateAverageResponseTime(long responseTime) {
-            this.averageResponseTime = (this.averageResponseTime * this.responseCount + responseTime) / (this.responseCount + 1);
-            this.responseCount++;
+
+        public void recordResponseTime(long responseTime) {
+            this.responseTimes.record(responseTime);
         }
-        
+
         public void recordBoosterUsage(String boosterType) {
-            boosterUsageCount.merge(boosterType, 1, Integer::sum);
+            boosterUsageCount.computeIfAbsent(boosterType, k -> new LongAdder()).increment();
         }
-        
+
         // Getters
         public String getPlayerId() { return playerId; }
-        public int getGamesPlayed() { return gamesPlayed; }
-        public int getWins() { return wins; }
-        public int getLosses() { return losses; }
-        public int getCorrectWords() { return correctWords; }
-        public int getWrongWords() { return wrongWords; }
-        public int getTotalPoints() { return totalPoints; }
-        public int getHighScore() { return highScore; }
-        public int getBoostersUsed() { return boostersUsed; }
-        public double getAverageResponseTime() { return averageResponseTime; }
+        public int getGamesPlayed() { return gamesPlayed.intValue(); }
+        public int getWins() { return wins.intValue(); }
+        public int getLosses() { return losses.intValue(); }
+        public int getCorrectWords() { return correctWords.intValue(); }
+        public int getWrongWords() { return wrongWords.intValue(); }
+        public int getTotalPoints() { return totalPoints.intValue(); }
+        public int getHighScore() { return highScore.intValue(); }
+        public int getBoostersUsed() { return boostersUsed.intValue(); }
+        public double getAverageResponseTime() { return responseTimes.getMean(); }
+        public Map<String, Object> getResponseTimes() { return summarize(responseTimes); }
         public String getLastRoomCode() { return lastRoomCode; }
         public void setLastRoomCode(String lastRoomCode) { this.lastRoomCode = lastRoomCode; }
-        public Map<String, Integer> getBoosterUsageCount() { return new HashMap<>(boosterUsageCount); }
+        public Map<String, Integer> getBoosterUsageCount() {
+            Map<String, Integer> usage = new HashMap<>();
+            boosterUsageCount.forEach((type, count) -> usage.put(type, count.intValue()));
+            return usage;
+        }
+    }
+
+    public static class RoomStats {
+        private final LongAdder correctWords = new LongAdder();
+        private final LongAdder wrongWords = new LongAdder();
+        private final LongAdder points = new LongAdder();
+
+        public int getCorrectWords() { return correctWords.intValue(); }
+        public int getWrongWords() { return wrongWords.intValue(); }
+        public long getPoints() { return points.sum(); }
+        public int getSubmissions() { return getCorrectWords() + getWrongWords(); }
     }
-}
\ No newline at end of file
+}
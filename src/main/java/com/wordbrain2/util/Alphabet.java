@@ -0,0 +1,107 @@
+package com.wordbrain2.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The letters a dictionary's grids are written in, each with a one-byte index,
+ * so packed boards hold any script rather than only Latin-1. Index 0 is the
+ * empty cell ('\0') and index 1 the blank a new cell starts with; a dictionary's
+ * own letters follow in code-point order. Letters outside the dictionary, which
+ * reach a grid through fallback words, are added on first use, so indices never
+ * change once handed out. Lookups are lock-free; only adding a letter locks.
+ */
+public final class Alphabet {
+
+    public static final int MAX_LETTERS = 256;
+
+    private static final char EMPTY = '\0';
+    private static final char BLANK = ' ';
+
+    // index -> letter, replaced whole when a letter is added
+    private volatile char[] letters = {EMPTY, BLANK};
+    private final Map<Character, Integer> indices = new ConcurrentHashMap<>();
+
+    public Alphabet() {
+        indices.put(EMPTY, 0);
+        indices.put(BLANK, 1);
+    }
+
+    /**
+     * An alphabet holding every letter of the words, upper-cased
+     */
+    public static Alphabet of(Iterable<String> words) {
+        TreeSet<Character> distinct = new TreeSet<>();
+        for (String word : words) {
+            for (int i = 0; i < word.length(); i++) {
+                distinct.add(Character.toUpperCase(word.charAt(i)));
+            }
+        }
+        Alphabet alphabet = new Alphabet();
+        for (char letter : distinct) {
+            alphabet.indexOf(letter);
+        }
+        return alphabet;
+    }
+
+    /**
+     * An alphabet with exactly these letters at indices 1 and up, as written by letters()
+     */
+    public static Alphabet of(char[] letters) {
+        if (letters.length < 1 || letters[0] != BLANK) {
+            throw new IllegalArgumentException("Alphabet must start with the blank cell");
+        }
+        Alphabet alphabet = new Alphabet();
+        for (int i = 1; i < letters.length; i++) {
+            if (alphabet.indexOf(letters[i]) != i + 1) {
+                throw new IllegalArgumentException("Repeated letter in alphabet: " + letters[i]);
+            }
+        }
+        return alphabet;
+    }
+
+    /**
+     * The letter's index, adding it if it is new
+     *
+     * @throws IllegalArgumentException when the alphabet already holds MAX_LETTERS letters
+     */
+    public int indexOf(char letter) {
+        Integer index = indices.get(letter);
+        return index != null ? index : add(letter);
+    }
+
+    public char letterAt(int index) {
+        return letters[index];
+    }
+
+    /**
+     * Letters from index 1 up, for writing the alphabet out
+     */
+    public char[] letters() {
+        char[] current = letters;
+        return Arrays.copyOfRange(current, 1, current.length);
+    }
+
+    public int size() {
+        return letters.length;
+    }
+
+    private synchronized int add(char letter) {
+        Integer existing = indices.get(letter);
+        if (existing != null) {
+            return existing;
+        }
+        char[] current = letters;
+        if (current.length >= MAX_LETTERS) {
+            throw new IllegalArgumentException("Alphabet is full, cannot add letter: " + letter);
+        }
+        char[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = letter;
+        // Publish the letter before its index, so a reader that finds the index can decode it
+        letters = grown;
+        indices.put(letter, current.length);
+        return current.length;
+    }
+}
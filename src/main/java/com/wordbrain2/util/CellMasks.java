@@ -0,0 +1,64 @@
+package com.wordbrain2.util;
+
+/**
+ * Bit masks over the cells of a grid of at most 64 cells, numbered row * cols + col.
+ *
+ * The neighbour table is built once for every grid size that fits a long, so a
+ * path step is one AND against the mask of the cell it came from.
+ */
+public final class CellMasks {
+
+    public static final int MAX_CELLS = 64;
+
+    // NEIGHBOURS[rows][cols][cell]: the eight-way neighbours of each cell of a rows x cols grid
+    private static final long[][][] NEIGHBOURS = new long[MAX_CELLS + 1][][];
+
+    static {
+        for (int rows = 1; rows <= MAX_CELLS; rows++) {
+            NEIGHBOURS[rows] = new long[MAX_CELLS / rows + 1][];
+            for (int cols = 1; rows * cols <= MAX_CELLS; cols++) {
+                long[] masks = new long[rows * cols];
+                for (int r = 0; r < rows; r++) {
+                    for (int c = 0; c < cols; c++) {
+                        long mask = 0;
+                        for (int dr = -1; dr <= 1; dr++) {
+                            for (int dc = -1; dc <= 1; dc++) {
+                                int nr = r + dr;
+                                int nc = c + dc;
+                                if ((dr != 0 || dc != 0) && nr >= 0 && nr < rows && nc >= 0 && nc < cols) {
+                                    mask |= 1L << (nr * cols + nc);
+                                }
+                            }
+                        }
+                        masks[r * cols + c] = mask;
+                    }
+                }
+                NEIGHBOURS[rows][cols] = masks;
+            }
+        }
+    }
+
+    private CellMasks() {
+    }
+
+    public static boolean fits(int rows, int cols) {
+        return rows > 0 && cols > 0 && rows * cols <= MAX_CELLS;
+    }
+
+    /**
+     * Neighbour masks indexed by cell; shared, so callers must not modify them
+     */
+    public static long[] neighbours(int rows, int cols) {
+        if (!fits(rows, cols)) {
+            throw new IllegalArgumentException("Grid too large for cell masks: " + rows + "x" + cols);
+        }
+        return NEIGHBOURS[rows][cols];
+    }
+
+    /**
+     * Every cell of a grid with the given number of cells
+     */
+    public static long all(int cellCount) {
+        return cellCount == MAX_CELLS ? -1L : (1L << cellCount) - 1;
+    }
+}
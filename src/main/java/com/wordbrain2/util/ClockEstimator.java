@@ -0,0 +1,86 @@
+package com.wordbrain2.util;
+
+/**
+ * Running estimate of one client's round-trip time and clock offset.
+ *
+ * RTT follows the TCP smoothed-RTT scheme (EWMA of the RTT and of its
+ * deviation). Once warmed up, a sample whose RTT lies more than four
+ * deviations above the average is treated as a queueing outlier and
+ * dropped, since its offset is skewed by the asymmetric delay. A run of
+ * such samples is not a spike but a lasting rise (a new route, a busier
+ * network), so after MAX_CONSECUTIVE_REJECTS in a row the next one is taken
+ * and the average moves towards the new level. Offset is server clock
+ * minus client clock, averaged over accepted samples only.
+ */
+public class ClockEstimator {
+
+    private static final double RTT_GAIN = 0.125;
+    private static final double DEVIATION_GAIN = 0.25;
+    private static final int WARMUP_SAMPLES = 3;
+    // Keeps a very steady link from rejecting every bit of ordinary jitter
+    private static final double MIN_SLACK_MILLIS = 5;
+    private static final int MAX_CONSECUTIVE_REJECTS = 3;
+
+    private double rtt;
+    private double rttDeviation;
+    private double offset;
+    private int samples;
+    private long rejected;
+    private int consecutiveRejects;
+
+    /**
+     * @return true when the sample was accepted into the estimate
+     */
+    public synchronized boolean addSample(long rttMillis, long offsetMillis) {
+        if (rttMillis < 0) {
+            return false;
+        }
+        if (samples >= WARMUP_SAMPLES
+                && rttMillis > rtt + Math.max(4 * rttDeviation, MIN_SLACK_MILLIS)
+                && consecutiveRejects < MAX_CONSECUTIVE_REJECTS) {
+            rejected++;
+            consecutiveRejects++;
+            return false;
+        }
+        consecutiveRejects = 0;
+
+        if (samples == 0) {
+            rtt = rttMillis;
+            rttDeviation = rttMillis / 2.0;
+            offset = offsetMillis;
+        } else {
+            rttDeviation = (1 - DEVIATION_GAIN) * rttDeviation + DEVIATION_GAIN * Math.abs(rtt - rttMillis);
+            rtt = (1 - RTT_GAIN) * rtt + RTT_GAIN * rttMillis;
+            offset = (1 - RTT_GAIN) * offset + RTT_GAIN * offsetMillis;
+        }
+        samples++;
+        return true;
+    }
+
+    public synchronized boolean isSynced() {
+        return samples > 0;
+    }
+
+    public synchronized double getRttMillis() {
+        return rtt;
+    }
+
+    public synchronized double getRttDeviationMillis() {
+        return rttDeviation;
+    }
+
+    /**
+     * Server clock minus client clock
+     */
+    public synchronized double getOffsetMillis() {
+        return offset;
+    }
+
+    public synchronized int getSamples() {
+        return samples;
+    }
+
+    public synchronized long getRejectedSamples() {
+        return rejected;
+    }
+}
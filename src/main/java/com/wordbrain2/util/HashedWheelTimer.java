@@ -0,0 +1,243 @@
+package com.wordbrain2.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel: one worker thread advances a ring of buckets every
+ * tick and fires the timeouts whose deadline has passed. Scheduling and
+ * cancelling are O(1) regardless of how many timeouts are pending; a timeout
+ * fires up to one tick late, never early.
+ *
+ * Deadlines are absolute System.nanoTime values, so callers that move a
+ * deadline reschedule against the same clock without accumulating drift.
+ * Tasks run on the wheel thread and must hand real work off elsewhere.
+ */
+@Slf4j
+public class HashedWheelTimer {
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean running = true;
+    private long tick;
+
+    public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int wheelSize) {
+        this.tickNanos = unit.toNanos(tickDuration);
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Run the task once the absolute deadline (System.nanoTime) has passed
+     */
+    public Timeout scheduleAt(long deadlineNanos, Runnable task) {
+        Timeout timeout = new Timeout(this, deadlineNanos, task);
+        if (!running) {
+            timeout.state.set(Timeout.CANCELLED);
+            return timeout;
+        }
+        pendingCount.incrementAndGet();
+        pending.add(timeout);
+        return timeout;
+    }
+
+    public Timeout schedule(long delay, TimeUnit unit, Runnable task) {
+        return scheduleAt(System.nanoTime() + unit.toNanos(delay), task);
+    }
+
+    public long getPendingCount() {
+        return pendingCount.get();
+    }
+
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long tickDeadline = startNanos + (tick + 1) * tickNanos;
+            long sleepNanos = tickDeadline - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                    continue;
+                }
+            }
+
+            removeCancelled();
+            transferPending();
+            wheel[(int) (tick & mask)].expire(tickDeadline, this::fire);
+            tick++;
+        }
+    }
+
+    private void transferPending() {
+        // Bound the work per tick so a burst of schedules cannot stall expiry
+        for (int i = 0; i < 100_000; i++) {
+            Timeout timeout = pending.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state.get() == Timeout.CANCELLED) {
+                pendingCount.decrementAndGet();
+                continue;
+            }
+
+            // Tick n covers deadlines up to startNanos + (n + 1) * tickNanos
+            long ticksUntil = (timeout.deadlineNanos - startNanos + tickNanos - 1) / tickNanos - 1;
+            // Never place a timeout behind the hand, it would wait a whole revolution
+            long targetTick = Math.max(ticksUntil, tick);
+            timeout.remainingRounds = (targetTick - tick) / wheel.length;
+            wheel[(int) (targetTick & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+                pendingCount.decrementAndGet();
+            }
+        }
+    }
+
+    private void fire(Timeout timeout) {
+        pendingCount.decrementAndGet();
+        if (!timeout.state.compareAndSet(Timeout.WAITING, Timeout.EXPIRED)) {
+            return;
+        }
+        try {
+            timeout.task.run();
+        } catch (Throwable t) {
+            log.error("Timer task failed", t);
+        }
+    }
+
+    /**
+     * Handle for a scheduled task
+     */
+    public static final class Timeout {
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final HashedWheelTimer timer;
+        private final long deadlineNanos;
+        private final Runnable task;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        // Owned by the wheel thread
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout prev;
+
+        private Timeout(HashedWheelTimer timer, long deadlineNanos, Runnable task) {
+            this.timer = timer;
+            this.deadlineNanos = deadlineNanos;
+            this.task = task;
+        }
+
+        public long getDeadlineNanos() {
+            return deadlineNanos;
+        }
+
+        /**
+         * @return false if the task already ran or was cancelled before
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(WAITING, CANCELLED)) {
+                return false;
+            }
+            // Unlinked by the wheel thread on its next tick
+            timer.cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+
+    /**
+     * Doubly linked list of timeouts, touched only by the wheel thread
+     */
+    private final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire(long tickDeadline, Consumer<Timeout> onExpired) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0 && timeout.deadlineNanos <= tickDeadline) {
+                    remove(timeout);
+                    onExpired.accept(timeout);
+                } else if (timeout.remainingRounds > 0) {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.next = null;
+            timeout.prev = null;
+            timeout.bucket = null;
+        }
+    }
+}
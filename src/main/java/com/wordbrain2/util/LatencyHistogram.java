@@ -0,0 +1,132 @@
+package com.wordbrain2.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streaming histogram of non-negative durations in milliseconds, in the style of
+ * HdrHistogram: values below 32 get a bucket each, and every power of two above
+ * that is split into 32 linear sub-buckets, so any recorded value is reported
+ * within about 3% of itself. Values of MAX_VALUE and above land in the top bucket.
+ *
+ * Recording is a single atomic increment plus LongAdder updates and never
+ * blocks; reads copy the counts, so a percentile taken during writes may miss
+ * the latest few values but is never torn.
+ */
+public final class LatencyHistogram {
+
+    public static final long MAX_VALUE = 1L << 24; // ~4.6 hours
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 63 - Long.numberOfLeadingZeros(MAX_VALUE - 1);
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    public void record(long valueMs) {
+        long value = Math.max(0, Math.min(valueMs, MAX_VALUE - 1));
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n > 0 ? (double) sum.sum() / n : 0.0;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * The value below which the given percentage of recorded values fall, or 0 when empty
+     */
+    public long getPercentile(double percentile) {
+        return snapshot().percentile(percentile);
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(copy, total, getMean(), getMax());
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+    }
+
+    // Midpoint of a bucket's range, the value reported for anything recorded in it
+    private static long valueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + (bucket - SUB_BUCKETS) % SUB_BUCKETS) << shift;
+        return lower + ((1L << shift) >>> 1);
+    }
+
+    /**
+     * Counts copied at one moment, for reading several percentiles consistently
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long total;
+        private final double mean;
+        private final long max;
+
+        private Snapshot(long[] counts, long total, double mean, long max) {
+            this.counts = counts;
+            this.total = total;
+            this.mean = mean;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return total;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public long percentile(double percentile) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(total * Math.min(percentile, 100.0) / 100.0));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(valueOf(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -11,13 +11,12 @@ public class PathValidator {
         }
         
         // Check for duplicate cells
-        Set<String> visited = new HashSet<>();
-        for (Cell cell : path) {
-            String key = cell.getRow() + "," + cell.getCol();
-            if (visited.contains(key)) {
-                return false;
+        for (int i = 1; i < path.size(); i++) {
+            for (int j = 0; j < i; j++) {
+                if (samePosition(path.get(i), path.get(j))) {
+                    return false;
+                }
             }
-            visited.add(key);
         }
         
         // Check if cells are adjacent
@@ -61,17 +60,18 @@ public class PathValidator {
     }
     
     public static boolean pathCoversAllCells(List<Cell> path, Set<Cell> targetCells) {
-        Set<String> pathCells = new HashSet<>();
-        for (Cell cell : path) {
-            pathCells.add(cell.getRow() + "," + cell.getCol());
-        }
-        
+        // Cell equality is by position, so the path's cells can be looked up directly
+        Set<Cell> pathCells = new HashSet<>(path);
         for (Cell target : targetCells) {
-            if (!pathCells.contains(target.getRow() + "," + target.getCol())) {
+            if (!pathCells.contains(target)) {
                 return false;
             }
         }
         
         return true;
     }
+    
+    private static boolean samePosition(Cell a, Cell b) {
+        return a.getRow() == b.getRow() && a.getCol() == b.getCol();
+    }
 }
\ No newline at end of file
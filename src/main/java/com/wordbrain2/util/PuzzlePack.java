@@ -0,0 +1,304 @@
+package com.wordbrain2.util;
+
+import com.wordbrain2.model.game.Cell;
+import com.wordbrain2.model.game.Grid;
+import com.wordbrain2.model.game.Puzzle;
+import com.wordbrain2.model.game.Shape;
+import com.wordbrain2.model.game.Word;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pre-built puzzles for one topic, read straight out of a memory-mapped file.
+ *
+ * Layout (big-endian):
+ * <pre>
+ * u32 magic "WBPK", u16 version, u16 sectionCount
+ * u16 topicLength, topic (UTF-8)
+ * u8 letterCount, letterCount x u16 letter (UTF-16), the pack's Alphabet from index 1
+ * sectionCount x [u8 tier, u8 gridSize, u16 reserved, u32 count, u32 indexOffset]
+ * per section, at indexOffset: count x u32 record offset
+ * record: u8 rows, u8 cols, u8 shapeType, u8 targetCount, targetCount x u8 length,
+ *         u8 wordCount, per word [u8 length, length x u8 letter, length x u8 (row << 4 | col)],
+ *         rows x cols u8 letter (0 for an empty cell)
+ * </pre>
+ * Letters in records are indices into the pack's alphabet, so any script packs
+ * in one byte per letter. Reads use absolute offsets only, so one pack is safe
+ * to share between threads.
+ */
+public final class PuzzlePack {
+
+    public static final String FILE_EXTENSION = ".wbpk";
+
+    private static final int MAGIC = 0x5742504B; // "WBPK"
+    private static final int VERSION = 2;
+    private static final int SECTION_ENTRY_BYTES = 12;
+
+    private final ByteBuffer buffer;
+    private final String topic;
+    private final Alphabet alphabet;
+    private final Map<Integer, Section> sections;
+
+    private PuzzlePack(ByteBuffer buffer, String topic, Alphabet alphabet, Map<Integer, Section> sections) {
+        this.buffer = buffer;
+        this.topic = topic;
+        this.alphabet = alphabet;
+        this.sections = sections;
+    }
+
+    public static PuzzlePack open(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.limit() < 10 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a puzzle pack: " + file);
+        }
+        int version = Short.toUnsignedInt(buffer.getShort(4));
+        if (version != VERSION) {
+            throw new IOException("Unsupported puzzle pack version " + version + ": " + file);
+        }
+        int sectionCount = Short.toUnsignedInt(buffer.getShort(6));
+        int topicLength = Short.toUnsignedInt(buffer.getShort(8));
+        byte[] topicBytes = new byte[topicLength];
+        buffer.get(10, topicBytes);
+        String topic = new String(topicBytes, StandardCharsets.UTF_8);
+
+        int entry = 10 + topicLength;
+        char[] letters = new char[Byte.toUnsignedInt(buffer.get(entry++))];
+        for (int i = 0; i < letters.length; i++, entry += 2) {
+            letters[i] = buffer.getChar(entry);
+        }
+        Alphabet alphabet = Alphabet.of(letters);
+
+        Map<Integer, Section> sections = new HashMap<>();
+        for (int i = 0; i < sectionCount; i++, entry += SECTION_ENTRY_BYTES) {
+            int tier = Byte.toUnsignedInt(buffer.get(entry));
+            int gridSize = Byte.toUnsignedInt(buffer.get(entry + 1));
+            sections.put(sectionKey(tier, gridSize), new Section(buffer.getInt(entry + 4), buffer.getInt(entry + 8)));
+        }
+        return new PuzzlePack(buffer, topic, alphabet, sections);
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * Puzzles held for a tier and grid size
+     */
+    public int size(int tier, int gridSize) {
+        Section section = sections.get(sectionKey(tier, gridSize));
+        return section != null ? section.count() : 0;
+    }
+
+    /**
+     * Decode one puzzle into a fresh grid; index must be below size(tier, gridSize)
+     */
+    public Puzzle read(int tier, int gridSize, int index) {
+        Section section = sections.get(sectionKey(tier, gridSize));
+        if (section == null || index < 0 || index >= section.count()) {
+            throw new IndexOutOfBoundsException("No puzzle " + index + " for tier " + tier + ", size " + gridSize);
+        }
+
+        int pos = buffer.getInt(section.indexOffset() + index * 4);
+        int rows = u8(pos++);
+        int cols = u8(pos++);
+        Shape.ShapeType shapeType = Shape.ShapeType.values()[u8(pos++)];
+
+        int targetCount = u8(pos++);
+        List<Integer> wordTargets = new ArrayList<>(targetCount);
+        for (int i = 0; i < targetCount; i++) {
+            wordTargets.add(u8(pos++));
+        }
+
+        int wordCount = u8(pos++);
+        List<String> targetWords = new ArrayList<>(wordCount);
+        List<Word> solutions = new ArrayList<>(wordCount);
+        for (int i = 0; i < wordCount; i++) {
+            int length = u8(pos++);
+            char[] letters = new char[length];
+            for (int k = 0; k < length; k++) {
+                letters[k] = alphabet.letterAt(u8(pos++));
+            }
+            List<Cell> path = new ArrayList<>(length);
+            for (int k = 0; k < length; k++) {
+                int packed = u8(pos++);
+                path.add(new Cell(packed >>> 4, packed & 0x0F, letters[k]));
+            }
+            String text = new String(letters);
+            targetWords.add(text);
+            solutions.add(new Word(text, path));
+        }
+
+        char[][] letters = new char[rows][cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                letters[r][c] = alphabet.letterAt(u8(pos++));
+            }
+        }
+
+        Grid grid = new Grid(rows, cols, alphabet);
+        grid.applyShape(new Shape(rows, cols, shapeType));
+        grid.fillWithSolution(letters, solutions);
+        return new Puzzle(grid, wordTargets, targetWords, true);
+    }
+
+    private int u8(int pos) {
+        return Byte.toUnsignedInt(buffer.get(pos));
+    }
+
+    /**
+     * Write a pack; sections are keyed by tier and grid size, and every puzzle must
+     * be solvable with a full path for each solution, fit a 16x16 grid and, across
+     * the pack, use fewer than Alphabet.MAX_LETTERS distinct letters
+     */
+    public static void write(Path file, String topic, Map<SectionKey, List<Puzzle>> sections) throws IOException {
+        byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+        List<Map.Entry<SectionKey, List<Puzzle>>> entries = new ArrayList<>(sections.entrySet());
+
+        // The pack's own alphabet, gathered as the records are encoded
+        Alphabet alphabet = new Alphabet();
+        List<byte[]> records = new ArrayList<>();
+        for (Map.Entry<SectionKey, List<Puzzle>> entry : entries) {
+            for (Puzzle puzzle : entry.getValue()) {
+                records.add(encode(puzzle, alphabet));
+            }
+        }
+        char[] letters = alphabet.letters();
+
+        int headerBytes = 10 + topicBytes.length + 1 + letters.length * 2 + entries.size() * SECTION_ENTRY_BYTES;
+        int indexBytes = records.size() * 4;
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeShort(entries.size());
+            out.writeShort(topicBytes.length);
+            out.write(topicBytes);
+            out.writeByte(letters.length);
+            for (char letter : letters) {
+                out.writeChar(letter);
+            }
+
+            int indexOffset = headerBytes;
+            for (Map.Entry<SectionKey, List<Puzzle>> entry : entries) {
+                out.writeByte(entry.getKey().tier());
+                out.writeByte(entry.getKey().gridSize());
+                out.writeShort(0);
+                out.writeInt(entry.getValue().size());
+                out.writeInt(indexOffset);
+                indexOffset += entry.getValue().size() * 4;
+            }
+
+            int recordOffset = headerBytes + indexBytes;
+            for (byte[] record : records) {
+                out.writeInt(recordOffset);
+                recordOffset += record.length;
+            }
+            for (byte[] record : records) {
+                out.write(record);
+            }
+        }
+    }
+
+    private static byte[] encode(Puzzle puzzle, Alphabet alphabet) throws IOException {
+        Grid grid = puzzle.grid();
+        if (grid.getRows() > 16 || grid.getCols() > 16) {
+            throw new IllegalArgumentException("Grid too large for a pack: " + grid.getRows() + "x" + grid.getCols());
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(grid.getRows());
+        out.writeByte(grid.getCols());
+        out.writeByte(grid.getShape().getType().ordinal());
+
+        out.writeByte(puzzle.wordTargets().size());
+        for (Integer length : puzzle.wordTargets()) {
+            out.writeByte(length);
+        }
+
+        List<Word> solutions = grid.getSolutions();
+        out.writeByte(solutions.size());
+        for (Word word : solutions) {
+            String text = word.getText();
+            // read() takes one path byte per letter, so a short path would misalign the record
+            if (word.getPath() == null || word.getPath().size() != text.length()) {
+                throw new IllegalArgumentException("Solution " + text + " has no full path to pack");
+            }
+            out.writeByte(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                out.writeByte(alphabet.indexOf(text.charAt(i)));
+            }
+            for (Cell cell : word.getPath()) {
+                out.writeByte(cell.getRow() << 4 | cell.getCol());
+            }
+        }
+
+        for (int r = 0; r < grid.getRows(); r++) {
+            for (int c = 0; c < grid.getCols(); c++) {
+                Cell cell = grid.getCell(r, c);
+                out.writeByte(cell.isActive() ? alphabet.indexOf(cell.getCharacter()) : 0);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Identity of a board for de-duplication: the same letters, shape and words,
+     * or their left-right mirror image, which plays identically under gravity
+     */
+    public static long canonicalHash(Puzzle puzzle) {
+        return Math.min(hash(puzzle, false), hash(puzzle, true));
+    }
+
+    private static long hash(Puzzle puzzle, boolean mirrored) {
+        Grid grid = puzzle.grid();
+        long h = 0xcbf29ce484222325L;
+        h = fnv(h, grid.getRows());
+        h = fnv(h, grid.getCols());
+        h = fnv(h, grid.getShape().getType().ordinal());
+        for (int r = 0; r < grid.getRows(); r++) {
+            for (int c = 0; c < grid.getCols(); c++) {
+                Cell cell = grid.getCell(r, mirrored ? grid.getCols() - 1 - c : c);
+                h = fnv(h, cell.isActive() ? cell.getCharacter() : 0);
+            }
+        }
+        for (String word : puzzle.targetWords()) {
+            for (int i = 0; i < word.length(); i++) {
+                h = fnv(h, word.charAt(i));
+            }
+            h = fnv(h, '|');
+        }
+        return h;
+    }
+
+    private static long fnv(long h, int value) {
+        return (h ^ value) * 0x100000001b3L;
+    }
+
+    private static int sectionKey(int tier, int gridSize) {
+        return tier << 8 | gridSize;
+    }
+
+    public record SectionKey(int tier, int gridSize) {
+    }
+
+    private record Section(int count, int indexOffset) {
+    }
+}
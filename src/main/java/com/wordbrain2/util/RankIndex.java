@@ -0,0 +1,323 @@
+package com.wordbrain2.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Rank-ordered index of values keyed by id: highest score first, and among equal
+ * scores whoever was updated earlier.
+ *
+ * An indexable skip list: every forward link also records how many entries it
+ * skips, so walking towards an entry adds up its rank and walking a rank's worth
+ * of spans lands on it. Update, rank lookup and locating the start of a range are
+ * O(log n); a range then costs one step per entry. Ids map straight to their node,
+ * and one read-write lock guards the whole structure, so reads run in parallel
+ * and writes hold the lock for a single O(log n) splice.
+ */
+public final class RankIndex<V> {
+
+    private static final int MAX_LEVEL = 24;
+    // Chance a node is linked at the next level up; 1/4 keeps ~1.33 links per node
+    private static final int LEVEL_SHIFT = 2;
+
+    private final Node<V> head = new Node<>(null, 0, 0, null, MAX_LEVEL);
+    private final Map<String, Node<V>> nodes = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int level = 1;
+    private long sequence;
+
+    /**
+     * Insert the id, or move it to its new score; it ranks after entries already
+     * holding the same score
+     */
+    public void put(String id, long score, V value) {
+        lock.writeLock().lock();
+        try {
+            Node<V> existing = nodes.remove(id);
+            if (existing != null) {
+                unlink(existing);
+            }
+            nodes.put(id, insert(id, score, sequence++, value));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add delta to the id's score, starting from 0 when it is new, and store the
+     * value; returns the new score
+     */
+    public long add(String id, long delta, V value) {
+        lock.writeLock().lock();
+        try {
+            Node<V> existing = nodes.remove(id);
+            long score = delta;
+            if (existing != null) {
+                unlink(existing);
+                score += existing.score;
+            }
+            nodes.put(id, insert(id, score, sequence++, value));
+            return score;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop the lowest-ranked entries until at most maxSize remain
+     */
+    public void trimTo(int maxSize) {
+        lock.writeLock().lock();
+        try {
+            while (nodes.size() > maxSize) {
+                Node<V> last = nodeAt(nodes.size());
+                nodes.remove(last.id);
+                unlink(last);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Node<V> node = nodes.remove(id);
+            if (node == null) {
+                return false;
+            }
+            unlink(node);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            nodes.clear();
+            for (int i = 0; i < MAX_LEVEL; i++) {
+                head.next[i] = null;
+                head.span[i] = 0;
+            }
+            level = 1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The id's value, score and rank, or null when it is not indexed
+     */
+    public Entry<V> entry(String id) {
+        lock.readLock().lock();
+        try {
+            Node<V> node = nodes.get(id);
+            return node != null ? new Entry<>(id, node.value, node.score, rank(node)) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public V get(String id) {
+        lock.readLock().lock();
+        try {
+            Node<V> node = nodes.get(id);
+            return node != null ? node.value : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 1-based rank of the id, or -1 when it is not indexed
+     */
+    public int rankOf(String id) {
+        lock.readLock().lock();
+        try {
+            Node<V> node = nodes.get(id);
+            return node != null ? rank(node) : -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to count values starting at the 1-based rank, best first
+     */
+    public List<V> range(int fromRank, int count) {
+        lock.readLock().lock();
+        try {
+            int size = nodes.size();
+            if (fromRank < 1 || fromRank > size || count <= 0) {
+                return new ArrayList<>();
+            }
+            List<V> values = new ArrayList<>(Math.min(count, size - fromRank + 1));
+            for (Node<V> x = nodeAt(fromRank); x != null && values.size() < count; x = x.next[0]) {
+                values.add(x.value);
+            }
+            return values;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Like range, with each value's id, score and rank
+     */
+    public List<Entry<V>> entries(int fromRank, int count) {
+        lock.readLock().lock();
+        try {
+            int size = nodes.size();
+            if (fromRank < 1 || fromRank > size || count <= 0) {
+                return new ArrayList<>();
+            }
+            List<Entry<V>> entries = new ArrayList<>(Math.min(count, size - fromRank + 1));
+            int rank = fromRank;
+            for (Node<V> x = nodeAt(fromRank); x != null && entries.size() < count; x = x.next[0]) {
+                entries.add(new Entry<>(x.id, x.value, x.score, rank++));
+            }
+            return entries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<V> top(int count) {
+        return range(1, count);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int rank(Node<V> node) {
+        int rank = 0;
+        Node<V> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && (x.next[i] == node || before(x.next[i], node.score, node.sequence))) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            if (x == node) {
+                return rank;
+            }
+        }
+        return -1;
+    }
+
+    private Node<V> nodeAt(int rank) {
+        int traversed = 0;
+        Node<V> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= rank) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+            if (traversed == rank) {
+                return x;
+            }
+        }
+        return null;
+    }
+
+    private Node<V> insert(String id, long score, long seq, V value) {
+        @SuppressWarnings("unchecked")
+        Node<V>[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+        Node<V> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && before(x.next[i], score, seq)) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        int nodeLevel = randomLevel();
+        if (nodeLevel > level) {
+            for (int i = level; i < nodeLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = nodes.size();
+            }
+            level = nodeLevel;
+        }
+
+        Node<V> node = new Node<>(id, score, seq, value, nodeLevel);
+        for (int i = 0; i < nodeLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            // The new node splits the link it was spliced into at rank[0] + 1
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = rank[0] - rank[i] + 1;
+        }
+        for (int i = nodeLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+        return node;
+    }
+
+    private void unlink(Node<V> node) {
+        Node<V> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && x.next[i] != node && before(x.next[i], node.score, node.sequence)) {
+                x = x.next[i];
+            }
+            if (x.next[i] == node) {
+                x.span[i] += node.span[i] - 1;
+                x.next[i] = node.next[i];
+            } else {
+                x.span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+    }
+
+    private static boolean before(Node<?> node, long score, long seq) {
+        return node.score > score || (node.score == score && node.sequence < seq);
+    }
+
+    private static int randomLevel() {
+        // Each extra level needs LEVEL_SHIFT more zero bits from one random draw
+        int zeros = Long.numberOfTrailingZeros(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+        return Math.min(1 + zeros / LEVEL_SHIFT, MAX_LEVEL);
+    }
+
+    public record Entry<V>(String id, V value, long score, int rank) {
+    }
+
+    private static final class Node<V> {
+        private final String id;
+        private final long score;
+        private final long sequence;
+        private final V value;
+        private final Node<V>[] next;
+        // span[i]: entries from this node to next[i], counting next[i]
+        private final int[] span;
+
+        @SuppressWarnings("unchecked")
+        Node(String id, long score, long sequence, V value, int level) {
+            this.id = id;
+            this.score = score;
+            this.sequence = sequence;
+            this.value = value;
+            this.next = new Node[level];
+            this.span = new int[level];
+        }
+    }
+}
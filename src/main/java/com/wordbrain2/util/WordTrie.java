@@ -0,0 +1,263 @@
+package com.wordbrain2.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Immutable word index: a trie packed into flat arrays, with words bucketed by
+ * length for random picks.
+ *
+ * Nodes are numbered breadth first with each node's children in label order,
+ * so the children of node n are exactly the nodes childStart[n] until
+ * childStart[n + 1] and a lookup is a binary search per character. A node costs
+ * about ten bytes (label, parent, child offset) plus a terminal bit, and the
+ * words themselves are not kept: they are rebuilt from their terminal node by
+ * following parent links. Lookups are case-sensitive; words are stored upper case.
+ */
+public final class WordTrie {
+
+    public static final WordTrie EMPTY = build(List.of());
+
+    private static final int ROOT = 0;
+
+    private final char[] labels;
+    private final int[] parents;
+    private final int[] childStart;
+    private final long[] terminal;
+    // byLength[n] holds the terminal nodes of the n-letter words, in alphabetical order
+    private final int[][] byLength;
+    private final int size;
+
+    private WordTrie(char[] labels, int[] parents, int[] childStart, long[] terminal, int[][] byLength, int size) {
+        this.labels = labels;
+        this.parents = parents;
+        this.childStart = childStart;
+        this.terminal = terminal;
+        this.byLength = byLength;
+        this.size = size;
+    }
+
+    /**
+     * Index the words, upper-cased and de-duplicated; blank entries are skipped
+     */
+    public static WordTrie build(Collection<String> source) {
+        String[] words = source.stream()
+            .filter(word -> word != null && !word.isBlank())
+            .map(String::toUpperCase)
+            .sorted()
+            .distinct()
+            .toArray(String[]::new);
+
+        int maxLength = 0;
+        int totalChars = 0;
+        for (String word : words) {
+            maxLength = Math.max(maxLength, word.length());
+            totalChars += word.length();
+        }
+
+        // Upper bound on the node count; trimmed once the trie is built
+        char[] labels = new char[totalChars + 1];
+        int[] parents = new int[totalChars + 1];
+        parents[ROOT] = -1;
+        int nodes = 1;
+
+        // node[w] is the node for word w's prefix at the depth being built
+        int[] node = new int[words.length];
+        for (int depth = 1; depth <= maxLength; depth++) {
+            // Words sharing a prefix are adjacent when sorted, and new nodes come out in
+            // alphabetical order of their prefixes, which is breadth-first label order
+            int lastParent = -1;
+            char lastLabel = 0;
+            int lastNode = -1;
+            for (int w = 0; w < words.length; w++) {
+                if (words[w].length() < depth) {
+                    continue;
+                }
+                char label = words[w].charAt(depth - 1);
+                if (node[w] == lastParent && label == lastLabel) {
+                    node[w] = lastNode;
+                    continue;
+                }
+                lastParent = node[w];
+                lastLabel = label;
+                labels[nodes] = label;
+                parents[nodes] = node[w];
+                lastNode = nodes++;
+                node[w] = lastNode;
+            }
+        }
+
+        // Children of consecutive nodes are consecutive, so child offsets are a running count
+        int[] childStart = new int[nodes + 1];
+        for (int n = 1; n < nodes; n++) {
+            childStart[parents[n] + 1]++;
+        }
+        childStart[0] = 1;
+        for (int n = 1; n <= nodes; n++) {
+            childStart[n] += childStart[n - 1];
+        }
+
+        long[] terminal = new long[(nodes + 63) >>> 6];
+        int[] lengthCounts = new int[maxLength + 1];
+        for (int w = 0; w < words.length; w++) {
+            terminal[node[w] >>> 6] |= 1L << node[w];
+            lengthCounts[words[w].length()]++;
+        }
+        int[][] byLength = new int[maxLength + 1][];
+        for (int length = 0; length <= maxLength; length++) {
+            byLength[length] = new int[lengthCounts[length]];
+        }
+        int[] filled = new int[maxLength + 1];
+        for (int w = 0; w < words.length; w++) {
+            int length = words[w].length();
+            byLength[length][filled[length]++] = node[w];
+        }
+
+        return new WordTrie(Arrays.copyOf(labels, nodes), Arrays.copyOf(parents, nodes), childStart,
+            terminal, byLength, words.length);
+    }
+
+    public boolean contains(CharSequence word) {
+        int n = find(word);
+        return n >= 0 && isWord(n);
+    }
+
+    public boolean hasPrefix(CharSequence prefix) {
+        return find(prefix) >= 0;
+    }
+
+    /**
+     * Up to limit words starting with the prefix, in alphabetical order
+     */
+    public List<String> wordsWithPrefix(CharSequence prefix, int limit) {
+        List<String> words = new ArrayList<>();
+        int start = find(prefix);
+        if (start < 0 || limit <= 0) {
+            return words;
+        }
+
+        StringBuilder word = new StringBuilder(prefix);
+        collect(start, word, words, limit);
+        return words;
+    }
+
+    private void collect(int n, StringBuilder word, List<String> words, int limit) {
+        if (isWord(n)) {
+            words.add(word.toString());
+        }
+        for (int child = childStart[n]; child < childStart[n + 1] && words.size() < limit; child++) {
+            word.append(labels[child]);
+            collect(child, word, words, limit);
+            word.setLength(word.length() - 1);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int countOfLength(int length) {
+        return length > 0 && length < byLength.length ? byLength[length].length : 0;
+    }
+
+    /**
+     * The index-th word of the given length, alphabetically
+     */
+    public String wordOfLength(int length, int index) {
+        return spell(byLength[length][index], length);
+    }
+
+    /**
+     * A uniformly random word of the length, or null when there is none
+     */
+    public String randomWord(int length, Random random) {
+        int count = countOfLength(length);
+        return count > 0 ? wordOfLength(length, random.nextInt(count)) : null;
+    }
+
+    /**
+     * Every word, alphabetically by length; materialized on each call
+     */
+    public List<String> words() {
+        List<String> words = new ArrayList<>(size);
+        for (int length = 1; length < byLength.length; length++) {
+            for (int n : byLength[length]) {
+                words.add(spell(n, length));
+            }
+        }
+        return words;
+    }
+
+    public int nodeCount() {
+        return labels.length;
+    }
+
+    /**
+     * Heap taken by the index arrays, for sizing dictionaries
+     */
+    public long estimatedBytes() {
+        long bytes = labels.length * 2L + parents.length * 4L + childStart.length * 4L + terminal.length * 8L;
+        for (int[] bucket : byLength) {
+            bytes += 16 + bucket.length * 4L;
+        }
+        return bytes;
+    }
+
+    // Node-level walk for searches that extend a path one letter at a time
+
+    public int root() {
+        return ROOT;
+    }
+
+    /**
+     * The child of node n labelled c, or -1
+     */
+    public int child(int n, char c) {
+        int lo = childStart[n];
+        int hi = childStart[n + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char label = labels[mid];
+            if (label < c) {
+                lo = mid + 1;
+            } else if (label > c) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    public boolean isWord(int n) {
+        return (terminal[n >>> 6] & (1L << n)) != 0;
+    }
+
+    public boolean hasChildren(int n) {
+        return childStart[n + 1] > childStart[n];
+    }
+
+    private int find(CharSequence word) {
+        int n = ROOT;
+        for (int i = 0; i < word.length() && n >= 0; i++) {
+            n = child(n, word.charAt(i));
+        }
+        return n;
+    }
+
+    private String spell(int n, int length) {
+        char[] chars = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            chars[i] = labels[n];
+            n = parents[n];
+        }
+        return new String(chars);
+    }
+}
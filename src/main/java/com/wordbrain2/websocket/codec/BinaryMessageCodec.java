@@ -0,0 +1,451 @@
+package com.wordbrain2.websocket.codec;
+
+import com.wordbrain2.model.enums.MessageType;
+import com.wordbrain2.model.game.GridDelta;
+import com.wordbrain2.websocket.message.BaseMessage;
+import com.wordbrain2.websocket.message.GridDeltaPayload;
+import com.wordbrain2.websocket.message.GridSnapshotPayload;
+import com.wordbrain2.websocket.message.GridUpdatePayload;
+import com.wordbrain2.websocket.message.LeaderboardPayload;
+import com.wordbrain2.websocket.message.OpponentScoredPayload;
+import com.wordbrain2.websocket.message.SubmitWordPayload;
+import com.wordbrain2.websocket.message.TimerUpdatePayload;
+import com.wordbrain2.websocket.message.WordAcceptedPayload;
+import com.wordbrain2.websocket.message.WordRejectedPayload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compact big-endian encoding for the high-volume message types.
+ *
+ * Every body starts with the message timestamp (i64); strings use the
+ * DataOutput modified UTF-8 form. Only the typed payload records are
+ * encoded; a message with map data, or one that carries a roomCode/playerId,
+ * is left to the JSON codec so nothing is lost.
+ */
+@Slf4j
+@Component
+public class BinaryMessageCodec implements MessageCodec {
+
+    private static final Set<MessageType> SUPPORTED = EnumSet.of(
+        MessageType.SUBMIT_WORD,
+        MessageType.WORD_ACCEPTED,
+        MessageType.WORD_REJECTED,
+        MessageType.GRID_UPDATE,
+        MessageType.GRID_DELTA,
+        MessageType.LEADERBOARD_UPDATE,
+        MessageType.TIMER_UPDATE,
+        MessageType.OPPONENT_SCORED
+    );
+
+    // WORD_ACCEPTED flag bits
+    private static final int LEVEL_COMPLETE = 0x01;
+    private static final int GRID_UPDATED = 0x02;
+
+    public boolean supports(MessageType type) {
+        return type != null && SUPPORTED.contains(type);
+    }
+
+    @Override
+    public byte[] encode(BaseMessage message) {
+        MessageType type = message.getMessageType();
+        Object data = message.getData();
+        if (!supports(type) || data == null
+            || message.getRoomCode() != null || message.getPlayerId() != null) {
+            return null;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(sizeHint(data));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(message.getTimestamp());
+            boolean encoded;
+            switch (type) {
+                case SUBMIT_WORD:
+                    encoded = data instanceof SubmitWordPayload payload && writeSubmitWord(out, payload);
+                    break;
+                case WORD_ACCEPTED:
+                    encoded = data instanceof WordAcceptedPayload payload && writeWordAccepted(out, payload);
+                    break;
+                case WORD_REJECTED:
+                    encoded = data instanceof WordRejectedPayload payload && writeWordRejected(out, payload);
+                    break;
+                case GRID_UPDATE:
+                    encoded = data instanceof GridUpdatePayload payload && writeGridUpdate(out, payload);
+                    break;
+                case GRID_DELTA:
+                    encoded = data instanceof GridDeltaPayload payload && writeGridDelta(out, payload);
+                    break;
+                case LEADERBOARD_UPDATE:
+                    encoded = data instanceof LeaderboardPayload payload && writeLeaderboard(out, payload);
+                    break;
+                case TIMER_UPDATE:
+                    encoded = data instanceof TimerUpdatePayload payload && writeTimerUpdate(out, payload);
+                    break;
+                case OPPONENT_SCORED:
+                    encoded = data instanceof OpponentScoredPayload payload && writeOpponentScored(out, payload);
+                    break;
+                default:
+                    encoded = false;
+            }
+            if (!encoded) {
+                return null;
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // Out-of-range values or an over-long string; JSON can still carry it
+            log.debug("{} not binary encodable: {}", type, e.getMessage());
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public BaseMessage decode(MessageType type, byte[] body) throws IOException {
+        if (!supports(type)) {
+            return null;
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        long timestamp = in.readLong();
+        Object data;
+        switch (type) {
+            case SUBMIT_WORD:
+                data = readSubmitWord(in);
+                break;
+            case WORD_ACCEPTED:
+                data = readWordAccepted(in);
+                break;
+            case WORD_REJECTED:
+                data = WordRejectedPayload.of(in.readUTF(), in.readUTF());
+                break;
+            case GRID_UPDATE:
+                data = readGridUpdate(in);
+                break;
+            case GRID_DELTA:
+                data = readGridDelta(in);
+                break;
+            case LEADERBOARD_UPDATE:
+                data = readLeaderboard(in);
+                break;
+            case TIMER_UPDATE:
+                data = new TimerUpdatePayload(in.readLong(), in.readLong(), in.readLong(), in.readBoolean());
+                break;
+            case OPPONENT_SCORED:
+                data = new OpponentScoredPayload(in.readUTF(), in.readInt(), in.readUTF());
+                break;
+            default:
+                return null;
+        }
+        if (in.available() > 0) {
+            throw new IOException("Trailing bytes in " + type + " body");
+        }
+
+        BaseMessage message = new BaseMessage(type, data);
+        message.setTimestamp(timestamp);
+        return message;
+    }
+
+    /**
+     * Encoded size of a payload, exact for ASCII strings, so the buffer never has to grow
+     */
+    private int sizeHint(Object data) {
+        int size = 8;
+        if (data instanceof SubmitWordPayload payload) {
+            size += stringSize(payload.word()) + 1 + 2 * payload.path().size() + 8;
+        } else if (data instanceof WordAcceptedPayload payload) {
+            size += stringSize(payload.word()) + 17;
+        } else if (data instanceof WordRejectedPayload payload) {
+            size += stringSize(payload.word()) + stringSize(payload.reason());
+        } else if (data instanceof GridUpdatePayload payload) {
+            int cells = payload.grid().rows() * payload.grid().cols();
+            size += 2 + 2 * cells + (cells + 7) / 8 + 4 + 8 + 1 + 1 + payload.remainingTargets().size();
+        } else if (data instanceof GridDeltaPayload payload) {
+            size += 16 + 1 + 2 * payload.cleared().size() + 1 + 3 * payload.moves().size()
+                + 1 + 1 + payload.remainingTargets().size();
+        } else if (data instanceof LeaderboardPayload payload) {
+            size += 2 + 16 + 1;
+            for (LeaderboardPayload.Entry entry : payload.leaderboard()) {
+                size += 10 + stringSize(entry.playerId()) + stringSize(entry.name());
+            }
+        } else if (data instanceof TimerUpdatePayload) {
+            size += 25;
+        } else if (data instanceof OpponentScoredPayload payload) {
+            size += stringSize(payload.playerId()) + 4 + stringSize(payload.word());
+        }
+        return size;
+    }
+
+    private static int stringSize(String value) {
+        return 2 + (value != null ? value.length() : 0);
+    }
+
+    // SUBMIT_WORD: word, u8 path length, (u8 row, u8 col)*, optional i64 clientTime
+    private boolean writeSubmitWord(DataOutputStream out, SubmitWordPayload payload) throws IOException {
+        writeString(out, payload.word());
+        out.writeByte(toUnsignedByte(payload.path().size()));
+        for (SubmitWordPayload.Cell cell : payload.path()) {
+            out.writeByte(toUnsignedByte(cell.row()));
+            out.writeByte(toUnsignedByte(cell.col()));
+        }
+        if (payload.clientTime() != 0) {
+            out.writeLong(payload.clientTime());
+        }
+        return true;
+    }
+
+    private SubmitWordPayload readSubmitWord(DataInputStream in) throws IOException {
+        String word = in.readUTF();
+        int length = in.readUnsignedByte();
+        List<SubmitWordPayload.Cell> path = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            path.add(new SubmitWordPayload.Cell(in.readUnsignedByte(), in.readUnsignedByte()));
+        }
+        // Older clients end the body after the path
+        long clientTime = in.available() >= 8 ? in.readLong() : 0;
+        return new SubmitWordPayload(word, path, clientTime);
+    }
+
+    // WORD_ACCEPTED: word, i32 points, i32 streak, u8 flags, i64 gridVersion
+    private boolean writeWordAccepted(DataOutputStream out, WordAcceptedPayload payload) throws IOException {
+        if (!payload.correct() || !payload.valid()) {
+            return false;
+        }
+        int flags = 0;
+        if (payload.levelComplete()) {
+            flags |= LEVEL_COMPLETE;
+        }
+        if (payload.gridUpdated()) {
+            flags |= GRID_UPDATED;
+        }
+        writeString(out, payload.word());
+        out.writeInt(payload.points());
+        out.writeInt(payload.streak());
+        out.writeByte(flags);
+        out.writeLong(payload.gridVersion());
+        return true;
+    }
+
+    private WordAcceptedPayload readWordAccepted(DataInputStream in) throws IOException {
+        String word = in.readUTF();
+        int points = in.readInt();
+        int streak = in.readInt();
+        int flags = in.readUnsignedByte();
+        long gridVersion = in.readLong();
+        return new WordAcceptedPayload(true, true, word, points, streak,
+            (flags & GRID_UPDATED) != 0, (flags & LEVEL_COMPLETE) != 0, gridVersion);
+    }
+
+    // WORD_REJECTED: word, reason
+    private boolean writeWordRejected(DataOutputStream out, WordRejectedPayload payload) throws IOException {
+        if (payload.correct() || payload.valid()) {
+            return false;
+        }
+        writeString(out, payload.word());
+        writeString(out, payload.reason());
+        return true;
+    }
+
+    // GRID_UPDATE: u8 rows, u8 cols, u16 cells (row-major), packed mask bits,
+    // i32 cellCount, i64 version, bool isEmpty, u8 target count, u8 targets
+    private boolean writeGridUpdate(DataOutputStream out, GridUpdatePayload payload) throws IOException {
+        GridSnapshotPayload grid = payload.grid();
+        int rows = grid.rows();
+        int cols = grid.cols();
+        char[][] cells = grid.cells();
+        boolean[][] mask = grid.shape().mask();
+
+        out.writeByte(toUnsignedByte(rows));
+        out.writeByte(toUnsignedByte(cols));
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                out.writeChar(cells[r][c]);
+            }
+        }
+        int bits = 0;
+        int bitCount = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (mask[r][c]) {
+                    bits |= 1 << bitCount;
+                }
+                if (++bitCount == 8) {
+                    out.writeByte(bits);
+                    bits = 0;
+                    bitCount = 0;
+                }
+            }
+        }
+        if (bitCount > 0) {
+            out.writeByte(bits);
+        }
+        out.writeInt(grid.shape().cellCount());
+        out.writeLong(grid.version());
+        out.writeBoolean(payload.isEmpty());
+        writeTargets(out, payload.remainingTargets());
+        return true;
+    }
+
+    private GridUpdatePayload readGridUpdate(DataInputStream in) throws IOException {
+        int rows = in.readUnsignedByte();
+        int cols = in.readUnsignedByte();
+        char[][] cells = new char[rows][cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                cells[r][c] = in.readChar();
+            }
+        }
+        boolean[][] mask = new boolean[rows][cols];
+        int bits = 0;
+        int bitCount = 8;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (bitCount == 8) {
+                    bits = in.readUnsignedByte();
+                    bitCount = 0;
+                }
+                mask[r][c] = (bits & (1 << bitCount++)) != 0;
+            }
+        }
+        int cellCount = in.readInt();
+        long version = in.readLong();
+        boolean isEmpty = in.readBoolean();
+        List<Integer> targets = readTargets(in);
+
+        GridSnapshotPayload grid = new GridSnapshotPayload(rows, cols, cells,
+            new GridSnapshotPayload.Shape(mask, cellCount), version);
+        return new GridUpdatePayload(grid, isEmpty, targets);
+    }
+
+    // GRID_DELTA: i64 baseVersion, i64 version, u8 cleared count, (u8 row, u8 col)*,
+    // u8 move count, (u8 col, u8 fromRow, u8 toRow)*, bool isEmpty, u8 target count, u8 targets
+    private boolean writeGridDelta(DataOutputStream out, GridDeltaPayload payload) throws IOException {
+        out.writeLong(payload.baseVersion());
+        out.writeLong(payload.version());
+        out.writeByte(toUnsignedByte(payload.cleared().size()));
+        for (GridDelta.Position cell : payload.cleared()) {
+            out.writeByte(toUnsignedByte(cell.row()));
+            out.writeByte(toUnsignedByte(cell.col()));
+        }
+        out.writeByte(toUnsignedByte(payload.moves().size()));
+        for (GridDelta.Move move : payload.moves()) {
+            out.writeByte(toUnsignedByte(move.col()));
+            out.writeByte(toUnsignedByte(move.fromRow()));
+            out.writeByte(toUnsignedByte(move.toRow()));
+        }
+        out.writeBoolean(payload.isEmpty());
+        writeTargets(out, payload.remainingTargets());
+        return true;
+    }
+
+    private GridDeltaPayload readGridDelta(DataInputStream in) throws IOException {
+        long baseVersion = in.readLong();
+        long version = in.readLong();
+        int clearedCount = in.readUnsignedByte();
+        List<GridDelta.Position> cleared = new ArrayList<>(clearedCount);
+        for (int i = 0; i < clearedCount; i++) {
+            cleared.add(new GridDelta.Position(in.readUnsignedByte(), in.readUnsignedByte()));
+        }
+        int moveCount = in.readUnsignedByte();
+        List<GridDelta.Move> moves = new ArrayList<>(moveCount);
+        for (int i = 0; i < moveCount; i++) {
+            moves.add(new GridDelta.Move(in.readUnsignedByte(), in.readUnsignedByte(), in.readUnsignedByte()));
+        }
+        boolean isEmpty = in.readBoolean();
+        return new GridDeltaPayload(baseVersion, version, cleared, moves, isEmpty, readTargets(in));
+    }
+
+    private void writeTargets(DataOutputStream out, List<Integer> targets) throws IOException {
+        out.writeByte(toUnsignedByte(targets.size()));
+        for (int target : targets) {
+            out.writeByte(toUnsignedByte(target));
+        }
+    }
+
+    private List<Integer> readTargets(DataInputStream in) throws IOException {
+        int count = in.readUnsignedByte();
+        List<Integer> targets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            targets.add(in.readUnsignedByte());
+        }
+        return targets;
+    }
+
+    // LEADERBOARD_UPDATE: u16 rows of (u16 rank, playerId, name, i32 score, i32 streak),
+    // then i32 current level, i32 total levels, i64 seconds remaining, u8 partial
+    private boolean writeLeaderboard(DataOutputStream out, LeaderboardPayload payload) throws IOException {
+        List<LeaderboardPayload.Entry> rows = payload.leaderboard();
+        if (rows.size() > 0xFFFF) {
+            return false;
+        }
+
+        out.writeShort(rows.size());
+        for (LeaderboardPayload.Entry entry : rows) {
+            if (entry.rank() < 0 || entry.rank() > 0xFFFF) {
+                return false;
+            }
+            out.writeShort(entry.rank());
+            writeString(out, entry.playerId());
+            writeString(out, entry.name());
+            out.writeInt(entry.score());
+            out.writeInt(entry.streak());
+        }
+        LeaderboardPayload.LevelProgress progress = payload.levelProgress();
+        out.writeInt(progress.current());
+        out.writeInt(progress.total());
+        out.writeLong(progress.timeRemaining());
+        out.writeBoolean(payload.partial());
+        return true;
+    }
+
+    private LeaderboardPayload readLeaderboard(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        List<LeaderboardPayload.Entry> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new LeaderboardPayload.Entry(
+                in.readUnsignedShort(), in.readUTF(), in.readUTF(), in.readInt(), in.readInt()));
+        }
+        LeaderboardPayload.LevelProgress progress =
+            new LeaderboardPayload.LevelProgress(in.readInt(), in.readInt(), in.readLong());
+        return new LeaderboardPayload(rows, progress, in.readBoolean());
+    }
+
+    // TIMER_UPDATE: i64 timeRemaining, i64 serverTime, i64 deadline, u8 paused
+    private boolean writeTimerUpdate(DataOutputStream out, TimerUpdatePayload payload) throws IOException {
+        out.writeLong(payload.timeRemaining());
+        out.writeLong(payload.serverTime());
+        out.writeLong(payload.deadline());
+        out.writeBoolean(payload.paused());
+        return true;
+    }
+
+    // OPPONENT_SCORED: playerId, i32 points, word
+    private boolean writeOpponentScored(DataOutputStream out, OpponentScoredPayload payload) throws IOException {
+        writeString(out, payload.playerId());
+        out.writeInt(payload.points());
+        writeString(out, payload.word());
+        return true;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            throw new IllegalArgumentException("Null string field");
+        }
+        out.writeUTF(value);
+    }
+
+    private static int toUnsignedByte(int value) {
+        if (value < 0 || value > 0xFF) {
+            throw new IllegalArgumentException("Value out of byte range: " + value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,46 @@
+package com.wordbrain2.websocket.codec;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.wordbrain2.model.enums.MessageType;
+import com.wordbrain2.websocket.message.BaseMessage;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The default codec; every message type can be carried as JSON.
+ */
+@Component
+public class JsonMessageCodec implements MessageCodec {
+
+    private final Gson gson = new Gson();
+
+    public String toJson(BaseMessage message) {
+        return gson.toJson(message);
+    }
+
+    public BaseMessage fromJson(String json) {
+        return gson.fromJson(json, BaseMessage.class);
+    }
+
+    @Override
+    public byte[] encode(BaseMessage message) {
+        return toJson(message).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public BaseMessage decode(MessageType type, byte[] body) throws IOException {
+        BaseMessage message;
+        try {
+            message = fromJson(new String(body, StandardCharsets.UTF_8));
+        } catch (JsonParseException e) {
+            throw new IOException("Malformed JSON message", e);
+        }
+        if (message != null && message.getType() == null && type != null) {
+            message.setMessageType(type);
+        }
+        return message;
+    }
+}
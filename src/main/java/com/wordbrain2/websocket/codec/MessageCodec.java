@@ -0,0 +1,22 @@
+package com.wordbrain2.websocket.codec;
+
+import com.wordbrain2.model.enums.MessageType;
+import com.wordbrain2.websocket.message.BaseMessage;
+
+import java.io.IOException;
+
+/**
+ * Converts messages to and from frame bodies.
+ */
+public interface MessageCodec {
+
+    /**
+     * Encode a message body, or return null when this codec cannot represent it
+     */
+    byte[] encode(BaseMessage message);
+
+    /**
+     * Decode a frame body; type is the type from the frame header, if any
+     */
+    BaseMessage decode(MessageType type, byte[] body) throws IOException;
+}
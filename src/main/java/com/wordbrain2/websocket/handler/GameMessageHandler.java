@@ -4,6 +4,9 @@ import com.wordbrain2.controller.websocket.ConnectionManager;
 import com.wordbrain2.service.core.GameEngine;
 import com.wordbrain2.service.core.RoomService;
 import com.wordbrain2.websocket.message.BaseMessage;
+import com.wordbrain2.websocket.message.ErrorPayload;
+import com.wordbrain2.websocket.message.SubmitWordPayload;
+import com.wordbrain2.websocket.message.WordResultPayload;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -61,21 +64,22 @@ public class GameMessageHandler {
         return createErrorResult("Không thể bắt đầu trò chơi.");
     }
     
-    public Map<String, Object> handleSubmitWord(String sessionId, BaseMessage message) {
+    public WordResultPayload handleSubmitWord(String sessionId, BaseMessage message) {
         String playerId = connectionManager.getPlayerId(sessionId);
         String roomCode = roomService.getPlayerRoom(playerId);
         
         if (playerId == null || roomCode == null) {
-            return createErrorResult("Bạn chưa tham gia phòng.");
+            return new ErrorPayload("Bạn chưa tham gia phòng.");
         }
         
-        var result = gameEngine.submitWord(roomCode, playerId, message.getData());
+        long submittedAt = message.getEffectiveTime() > 0 ? message.getEffectiveTime() : System.currentTimeMillis();
+        var result = gameEngine.submitWord(roomCode, playerId, SubmitWordPayload.from(message.getData()), submittedAt);
         
         if (result != null) {
             return result;
         }
         
-        return createErrorResult("Không thể xử lý từ.");
+        return new ErrorPayload("Không thể xử lý từ.");
     }
     
     public Map<String, Object> handleRequestHint(String sessionId, BaseMessage message) {
@@ -1,6 +1,7 @@
 package com.wordbrain2.websocket.handler;
 
 import com.wordbrain2.controller.websocket.ConnectionManager;
+import com.wordbrain2.controller.websocket.SessionContext;
 import com.wordbrain2.model.enums.MessageType;
 import com.wordbrain2.service.core.RoomService;
 import com.wordbrain2.websocket.message.BaseMessage;
@@ -31,9 +32,8 @@ public class RoomMessageHandler {
         if (result != null) {
             String playerId = (String) result.get("playerId");
             
-            // Only register session-player mapping
-            connectionManager.registerPlayer(sessionId, playerId);
-            // Room-player relationship is already handled by RoomService
+            // Cache the player and room on the session; RoomService stays the source of truth
+            connectionManager.registerPlayer(sessionId, playerId, (String) result.get("roomCode"));
         }
         
         return result;
@@ -49,9 +49,8 @@ public class RoomMessageHandler {
         if (result != null) {
             String playerId = (String) result.get("playerId");
             
-            // Only register session-player mapping
-            connectionManager.registerPlayer(sessionId, playerId);
-            // Room-player relationship is already handled by RoomService
+            // Cache the player and room on the session; RoomService stays the source of truth
+            connectionManager.registerPlayer(sessionId, playerId, roomCode);
         }
         
         return result;
@@ -108,9 +107,19 @@ public class RoomMessageHandler {
     }
     
     public void registerPlayerSession(String sessionId, String playerId, String roomCode) {
-        // Only register session-player mapping
-        connectionManager.registerPlayer(sessionId, playerId);
-        // Room-player relationship should be handled by RoomService
+        connectionManager.registerPlayer(sessionId, playerId, roomCode);
+    }
+    
+    /**
+     * Room of the session's player, read from the session context when it is cached there
+     */
+    public String getRoomForSession(String sessionId) {
+        SessionContext context = connectionManager.getContext(sessionId);
+        if (context == null || context.getPlayerId() == null) {
+            return null;
+        }
+        String roomCode = context.getRoomCode();
+        return roomCode != null ? roomCode : roomService.getPlayerRoom(context.getPlayerId());
     }
     
     private String resolvePlayerId(String sessionId, BaseMessage message) {
@@ -2,27 +2,28 @@ package com.wordbrain2.websocket.message;
 
 import com.wordbrain2.model.enums.MessageType;
 import lombok.Data;
-import java.util.Map;
 
 @Data
 public class BaseMessage {
     private String type;  // Change to String to accept both enum names and strings
     private String roomCode;
     private String playerId;
-    private Map<String, Object> data;
+    private Object data;  // a payload record, or a map for types without one
     private long timestamp;
+    // Server time the command counts as issued at; never serialized
+    private transient long effectiveTime;
     
     public BaseMessage() {
         this.timestamp = System.currentTimeMillis();
     }
     
-    public BaseMessage(String type, Map<String, Object> data) {
+    public BaseMessage(String type, Object data) {
         this();
         this.type = type;
         this.data = data;
     }
     
-    public BaseMessage(MessageType type, Map<String, Object> data) {
+    public BaseMessage(MessageType type, Object data) {
         this();
         this.type = type.name();
         this.data = data;
@@ -0,0 +1,7 @@
+package com.wordbrain2.websocket.message;
+
+/**
+ * ERROR
+ */
+public record ErrorPayload(String error) implements WordResultPayload {
+}
@@ -73,13 +73,10 @@ public class GameMessage extends BaseMessage {
         return message;
     }
     
-    public static GameMessage timerUpdate(String roomCode, long timeRemaining) {
+    public static GameMessage timerUpdate(String roomCode, TimerUpdatePayload clock) {
         GameMessage message = new GameMessage("TIMER_UPDATE", roomCode);
-        message.timeRemaining = timeRemaining;
-        message.setData(Map.of(
-            "timeRemaining", timeRemaining,
-            "serverTime", System.currentTimeMillis()
-        ));
+        message.timeRemaining = clock.timeRemaining();
+        message.setData(clock);
         return message;
     }
     
@@ -0,0 +1,24 @@
+package com.wordbrain2.websocket.message;
+
+import com.wordbrain2.model.game.GridDelta;
+
+import java.util.List;
+
+/**
+ * GRID_DELTA: the cells one accepted word cleared and the letters that fell.
+ * A client whose grid is not at baseVersion must ask for a full GRID_UPDATE.
+ */
+public record GridDeltaPayload(
+    long baseVersion,
+    long version,
+    List<GridDelta.Position> cleared,
+    List<GridDelta.Move> moves,
+    boolean isEmpty,
+    List<Integer> remainingTargets
+) {
+
+    public static GridDeltaPayload of(GridDelta delta, boolean isEmpty, List<Integer> remainingTargets) {
+        return new GridDeltaPayload(delta.baseVersion(), delta.version(),
+            delta.cleared(), delta.moves(), isEmpty, remainingTargets);
+    }
+}
@@ -0,0 +1,36 @@
+package com.wordbrain2.websocket.message;
+
+import com.wordbrain2.model.game.Grid;
+
+/**
+ * Full grid contents as sent in LEVEL_START and GRID_UPDATE
+ */
+public record GridSnapshotPayload(int rows, int cols, char[][] cells, Shape shape, long version) {
+
+    public record Shape(boolean[][] mask, int cellCount) {
+    }
+
+    public static GridSnapshotPayload of(Grid grid) {
+        // Hold the grid lock so the letters and the version agree
+        synchronized (grid) {
+            return snapshot(grid);
+        }
+    }
+
+    private static GridSnapshotPayload snapshot(Grid grid) {
+        char[][] cells = new char[grid.getRows()][grid.getCols()];
+        boolean[][] mask = new boolean[grid.getRows()][grid.getCols()];
+
+        long active = grid.getActiveMask();
+        for (int i = 0; i < grid.getRows(); i++) {
+            for (int j = 0; j < grid.getCols(); j++) {
+                int index = grid.index(i, j);
+                cells[i][j] = grid.letterAt(index);
+                mask[i][j] = (active & (1L << index)) != 0;
+            }
+        }
+
+        return new GridSnapshotPayload(grid.getRows(), grid.getCols(), cells,
+            new Shape(mask, grid.getTotalCells()), grid.getVersion());
+    }
+}
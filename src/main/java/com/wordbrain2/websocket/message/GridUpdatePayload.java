@@ -0,0 +1,9 @@
+package com.wordbrain2.websocket.message;
+
+import java.util.List;
+
+/**
+ * GRID_UPDATE
+ */
+public record GridUpdatePayload(GridSnapshotPayload grid, boolean isEmpty, List<Integer> remainingTargets) {
+}
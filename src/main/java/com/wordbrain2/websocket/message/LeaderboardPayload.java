@@ -0,0 +1,21 @@
+package com.wordbrain2.websocket.message;
+
+import java.util.List;
+
+/**
+ * LEADERBOARD_UPDATE: rows in rank order plus the room's level progress. A partial
+ * update carries only the rows that changed since the previous one, to be merged
+ * by player id; a full one replaces the board.
+ */
+public record LeaderboardPayload(List<Entry> leaderboard, LevelProgress levelProgress, boolean partial) {
+
+    public LeaderboardPayload(List<Entry> leaderboard, LevelProgress levelProgress) {
+        this(leaderboard, levelProgress, false);
+    }
+
+    public record Entry(int rank, String playerId, String name, int score, int streak) {
+    }
+
+    public record LevelProgress(int current, int total, long timeRemaining) {
+    }
+}
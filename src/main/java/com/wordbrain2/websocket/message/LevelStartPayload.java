@@ -0,0 +1,22 @@
+package com.wordbrain2.websocket.message;
+
+import java.util.List;
+
+/**
+ * LEVEL_START; deadline is the level's end in server epoch millis, which
+ * clients count down to after correcting by serverTime
+ */
+public record LevelStartPayload(
+    int level,
+    GridSnapshotPayload grid,
+    int duration,
+    long serverTime,
+    long deadline,
+    List<Integer> wordTargets,
+    List<WordSlot> wordSlots,
+    int currentWordIndex
+) {
+
+    public record WordSlot(int index, int length, String word, boolean completed, boolean active) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.wordbrain2.websocket.message;
+
+/**
+ * OPPONENT_SCORED
+ */
+public record OpponentScoredPayload(String playerId, int points, String word) {
+}
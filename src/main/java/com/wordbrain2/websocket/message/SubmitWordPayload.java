@@ -0,0 +1,43 @@
+package com.wordbrain2.websocket.message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SUBMIT_WORD: the word a player traced and the cells it went through;
+ * clientTime is the client's clock at submission, or 0 when not sent
+ */
+public record SubmitWordPayload(String word, List<Cell> path, long clientTime) {
+
+    public SubmitWordPayload(String word, List<Cell> path) {
+        this(word, path, 0);
+    }
+
+    public record Cell(int row, int col) {
+    }
+
+    /**
+     * Accept either a decoded payload or the map Gson produces for JSON frames
+     */
+    public static SubmitWordPayload from(Object data) {
+        if (data instanceof SubmitWordPayload payload) {
+            return payload;
+        }
+        if (!(data instanceof Map<?, ?> map)) {
+            throw new IllegalArgumentException("SUBMIT_WORD needs a word and a path");
+        }
+
+        List<Cell> path = new ArrayList<>();
+        if (map.get("path") instanceof List<?> cells) {
+            for (Object cell : cells) {
+                Map<?, ?> position = (Map<?, ?>) cell;
+                path.add(new Cell(
+                    ((Number) position.get("row")).intValue(),
+                    ((Number) position.get("col")).intValue()));
+            }
+        }
+        long clientTime = map.get("clientTime") instanceof Number time ? time.longValue() : 0;
+        return new SubmitWordPayload((String) map.get("word"), path, clientTime);
+    }
+}
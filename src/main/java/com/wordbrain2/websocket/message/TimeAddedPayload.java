@@ -0,0 +1,14 @@
+package com.wordbrain2.websocket.message;
+
+/**
+ * TIME_ADDED, carrying the level clock after the extension
+ */
+public record TimeAddedPayload(
+    String playerId,
+    int seconds,
+    String message,
+    long timeRemaining,
+    long serverTime,
+    long deadline
+) {
+}
@@ -0,0 +1,24 @@
+package com.wordbrain2.websocket.message;
+
+import java.util.Map;
+
+/**
+ * TIME_SYNC: the server sends seq and serverTime; the client echoes both
+ * and adds its own clock reading as clientTime. Only the echoed seq is
+ * trusted: the server times the round trip from its own record of the ping.
+ */
+public record TimeSyncPayload(int seq, long serverTime, long clientTime) {
+
+    public static TimeSyncPayload from(Object data) {
+        if (data instanceof TimeSyncPayload payload) {
+            return payload;
+        }
+        if (!(data instanceof Map<?, ?> map)
+                || !(map.get("serverTime") instanceof Number serverTime)
+                || !(map.get("clientTime") instanceof Number clientTime)) {
+            throw new IllegalArgumentException("TIME_SYNC needs serverTime and clientTime");
+        }
+        int seq = map.get("seq") instanceof Number number ? number.intValue() : 0;
+        return new TimeSyncPayload(seq, serverTime.longValue(), clientTime.longValue());
+    }
+}
@@ -0,0 +1,9 @@
+package com.wordbrain2.websocket.message;
+
+/**
+ * TIMER_UPDATE, sent only as a correction (pause, resume, time changes);
+ * clients count down to deadline locally. deadline is server epoch millis,
+ * 0 while paused or when no level clock is running.
+ */
+public record TimerUpdatePayload(long timeRemaining, long serverTime, long deadline, boolean paused) {
+}
@@ -0,0 +1,20 @@
+package com.wordbrain2.websocket.message;
+
+/**
+ * WORD_ACCEPTED
+ */
+public record WordAcceptedPayload(
+    boolean correct,
+    boolean valid,
+    String word,
+    int points,
+    int streak,
+    boolean gridUpdated,
+    boolean levelComplete,
+    long gridVersion
+) implements WordResultPayload {
+
+    public static WordAcceptedPayload of(String word, int points, int streak, boolean levelComplete, long gridVersion) {
+        return new WordAcceptedPayload(true, true, word, points, streak, true, levelComplete, gridVersion);
+    }
+}
@@ -0,0 +1,16 @@
+package com.wordbrain2.websocket.message;
+
+/**
+ * WORD_REJECTED
+ */
+public record WordRejectedPayload(
+    boolean correct,
+    boolean valid,
+    String word,
+    String reason
+) implements WordResultPayload {
+
+    public static WordRejectedPayload of(String word, String reason) {
+        return new WordRejectedPayload(false, false, word, reason);
+    }
+}
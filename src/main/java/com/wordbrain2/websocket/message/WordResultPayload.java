@@ -0,0 +1,7 @@
+package com.wordbrain2.websocket.message;
+
+/**
+ * Outcome of a SUBMIT_WORD: accepted, rejected, or an error before validation
+ */
+public sealed interface WordResultPayload permits WordAcceptedPayload, WordRejectedPayload, ErrorPayload {
+}
@@ -451,14 +451,30 @@ class App {
         if (totalLevelsEl) totalLevelsEl.textContent = this.roomInfo.levelCount || 10;
         
         // Start timer
-        this.startTimer(levelData.duration);
+        this.startTimer(levelData);
     }
     
-    startTimer(duration) {
-        let timeRemaining = duration;
+    // The server only sends the level deadline (and corrections when it moves);
+    // the countdown is rendered locally against the server clock
+    startTimer(clock) {
+        if (this.timerHandle) clearInterval(this.timerHandle);
+        this.timerHandle = null;
+        this.applyClock(clock);
+        this.runCountdown();
+    }
+    
+    runCountdown() {
         const timerDisplay = document.getElementById('timer-display');
         
         const updateTimer = () => {
+            let timeRemaining;
+            if (this.levelClock.paused) {
+                timeRemaining = this.levelClock.timeRemaining;
+            } else {
+                const serverNow = Date.now() + this.levelClock.offset;
+                timeRemaining = Math.max(0, Math.ceil((this.levelClock.deadline - serverNow) / 1000));
+            }
+            
             if (timerDisplay) timerDisplay.textContent = timeRemaining;
             
             if (timerDisplay) {
@@ -471,15 +487,33 @@ class App {
                 }
             }
             
-            if (timeRemaining > 0) {
-                timeRemaining--;
-                setTimeout(updateTimer, 1000);
+            if (timeRemaining <= 0 && !this.levelClock.paused) {
+                clearInterval(this.timerHandle);
+                this.timerHandle = null;
             }
         };
         
+        this.timerHandle = setInterval(updateTimer, 250);
         updateTimer();
     }
     
+    // Correction from a TIMER_UPDATE or TIME_ADDED
+    updateClock(clock) {
+        this.applyClock(clock);
+        if (!this.timerHandle) this.runCountdown();
+    }
+    
+    applyClock(clock) {
+        const offset = clock.serverTime ? clock.serverTime - Date.now() : 0;
+        const deadline = clock.deadline || (Date.now() + offset + (clock.timeRemaining ?? clock.duration ?? 0) * 1000);
+        this.levelClock = {
+            deadline,
+            offset,
+            paused: !!clock.paused,
+            timeRemaining: clock.timeRemaining ?? clock.duration ?? 0
+        };
+    }
+    
     updateLeaderboard(leaderboardData) {
         const leaderboardList = document.getElementById('leaderboard-list');
         if (!leaderboardList) return;
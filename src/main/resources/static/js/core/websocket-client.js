@@ -71,6 +71,19 @@ class WebSocketClient {
     handleMessage(data) {
         try {
             const message = JSON.parse(data);
+            
+            // Answer clock sync pings straight away; the server measures the round trip
+            if (message.type === 'TIME_SYNC') {
+                this.send({
+                    type: 'TIME_SYNC',
+                    data: {
+                        seq: message.data.seq,
+                        serverTime: message.data.serverTime,
+                        clientTime: Date.now()
+                    }
+                });
+                return;
+            }
             console.log('Received message:', message);
             
             switch (message.type) {
@@ -134,6 +147,11 @@ class WebSocketClient {
                     this.handleEffectReceived(message.data);
                     break;
                     
+                case 'TIMER_UPDATE':
+                case 'TIME_ADDED':
+                    this.handleClockCorrection(message.data);
+                    break;
+                    
                 case 'ERROR':
                     this.handleError(message.data);
                     break;
@@ -256,6 +274,13 @@ class WebSocketClient {
         }
     }
     
+    handleClockCorrection(data) {
+        console.log('Clock correction:', data);
+        if (window.app && window.app.levelClock) {
+            window.app.updateClock(data);
+        }
+    }
+    
     handleWordAccepted(data) {
         console.log('Word accepted:', data);
         this.showNotification(`✓ Correct! +${data.points} points`, 'success');
@@ -153,7 +153,8 @@ class GameController {
                 type: 'SUBMIT_WORD',
                 data: {
                     word: word,
-                    path: path.map(cell => ({ row: cell.row, col: cell.col }))
+                    path: path.map(cell => ({ row: cell.row, col: cell.col })),
+                    clientTime: Date.now()
                 }
             });
         }